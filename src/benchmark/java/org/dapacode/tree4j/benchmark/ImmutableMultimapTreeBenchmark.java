@@ -0,0 +1,82 @@
+package org.dapacode.tree4j.benchmark;
+
+import org.dapacode.tree4j.ImmutableMultimapTree;
+import org.dapacode.tree4j.Trees;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the operations of {@link ImmutableMultimapTree}, whose modifications copy the tree. The trees are copies of
+ * the multimap trees of the state, so the backing parameter has no effect on them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ImmutableMultimapTreeBenchmark {
+  /** A node which isn't contained in the trees, as their nodes are positive. */
+  private static final Integer NEW_NODE = -1;
+
+  @Benchmark
+  public ImmutableMultimapTree<Integer> added(final TreeState state) {
+    return state.immutableTree.added(state.nextNode(), NEW_NODE);
+  }
+
+  @Benchmark
+  public ImmutableMultimapTree<Integer> removed(final TreeState state) {
+    return state.immutableTree.removed(state.leaves[state.nextLeaf()]);
+  }
+
+  @Benchmark
+  public Collection<Integer> getChildren(final TreeState state) {
+    return state.immutableTree.getChildren(state.nextNode());
+  }
+
+  @Benchmark
+  public Integer getParent(final TreeState state) {
+    return state.immutableTree.getParent(state.nextNode());
+  }
+
+  @Benchmark
+  public boolean contains(final TreeState state) {
+    return state.immutableTree.contains(state.nextNode());
+  }
+
+  @Benchmark
+  public ImmutableMultimapTree<Integer> copyOf(final TreeState state) {
+    return ImmutableMultimapTree.copyOf(state.tree);
+  }
+
+  @Benchmark
+  public boolean equalsEqualTree(final TreeState state) {
+    return state.immutableTree.equals(state.copy);
+  }
+
+  @Benchmark
+  public int hashCode(final TreeState state) {
+    return state.immutableTree.hashCode();
+  }
+
+  @Benchmark
+  public void iterate(final TreeState state, final Blackhole blackhole) {
+    for (final Map.Entry<Integer, Integer> association : state.immutableTree) {
+      blackhole.consume(association);
+    }
+  }
+
+  @Benchmark
+  public Collection<Map.Entry<Integer, Integer>> getAssociationsDepthFirst(final TreeState state) {
+    return Trees.getAssociationsDepthFirst(state.immutableTree);
+  }
+}
@@ -0,0 +1,87 @@
+package org.dapacode.tree4j.benchmark;
+
+import org.dapacode.tree4j.MultimapTree;
+import org.dapacode.tree4j.Trees;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the operations of {@link MultimapTree}. The benchmarks modifying the tree undo their modification, so that
+ * the tree keeps its shape and size across invocations, and measure the modification and its undoing together.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MultimapTreeBenchmark {
+  /** A node which isn't contained in the trees, as their nodes are positive. */
+  private static final Integer NEW_NODE = -1;
+
+  @Benchmark
+  public boolean addLeafThenRemoveIt(final TreeState state) {
+    final MultimapTree<Integer> tree = state.tree;
+    tree.add(state.nextNode(), NEW_NODE);
+    return tree.remove(NEW_NODE);
+  }
+
+  @Benchmark
+  public boolean removeLeafThenAddIt(final TreeState state) {
+    final MultimapTree<Integer> tree = state.tree;
+    final int leaf = state.nextLeaf();
+    tree.remove(state.leaves[leaf]);
+    return tree.add(state.leafParents[leaf], state.leaves[leaf]);
+  }
+
+  @Benchmark
+  public Collection<Integer> getChildren(final TreeState state) {
+    return state.tree.getChildren(state.nextNode());
+  }
+
+  @Benchmark
+  public Integer getParent(final TreeState state) {
+    return state.tree.getParent(state.nextNode());
+  }
+
+  @Benchmark
+  public boolean contains(final TreeState state) {
+    return state.tree.contains(state.nextNode());
+  }
+
+  @Benchmark
+  public MultimapTree<Integer> copyOf(final TreeState state) {
+    return MultimapTree.copyOf(state.tree);
+  }
+
+  @Benchmark
+  public boolean equalsEqualTree(final TreeState state) {
+    return state.tree.equals(state.copy);
+  }
+
+  @Benchmark
+  public int hashCode(final TreeState state) {
+    return state.tree.hashCode();
+  }
+
+  @Benchmark
+  public void iterate(final TreeState state, final Blackhole blackhole) {
+    for (final Map.Entry<Integer, Integer> association : state.tree) {
+      blackhole.consume(association);
+    }
+  }
+
+  @Benchmark
+  public Collection<Map.Entry<Integer, Integer>> getAssociationsDepthFirst(final TreeState state) {
+    return Trees.getAssociationsDepthFirst(state.tree);
+  }
+}
@@ -0,0 +1,156 @@
+package org.dapacode.tree4j.benchmark;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.TreeMultimap;
+import org.dapacode.tree4j.ImmutableMultimapTree;
+import org.dapacode.tree4j.MultimapTree;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The trees the benchmarks run against, built once per trial for each combination of shape, size and backing. The nodes are
+ * the integers from {@code 0}, the root, to {@code size - 1}, and each node is added after its parent.
+ */
+@State(Scope.Benchmark)
+public class TreeState {
+  /** The number of nodes picked at random, which the benchmarks cycle through. */
+  private static final int SAMPLES = 1024;
+
+  private static final long SEED = 42L;
+
+  /** The shapes of the trees. */
+  public enum Shape {
+    /** All the nodes are children of the root. */
+    WIDE,
+    /** Each node is the only child of the previous one. */
+    DEEP,
+    /** A complete binary tree. */
+    BALANCED,
+    /** Each node is the child of a node picked at random among the previous ones. */
+    RANDOM;
+
+    int parentOf(final int node, final Random random) {
+      switch (this) {
+        case WIDE:
+          return 0;
+        case DEEP:
+          return node - 1;
+        case BALANCED:
+          return (node - 1) / 2;
+        default:
+          return random.nextInt(node);
+      }
+    }
+  }
+
+  /** The multimap and map implementations backing the trees. */
+  public enum Backing {
+    /** The default backing of {@link MultimapTree#create()}. */
+    LINKED_HASH {
+      @Override
+      MultimapTree<Integer> create() {
+        return MultimapTree.create();
+      }
+    },
+    /** A {@link HashMultimap} and a {@link java.util.HashMap HashMap}. */
+    HASH {
+      @Override
+      MultimapTree<Integer> create() {
+        return MultimapTree.create(HashMultimap.<Integer, Integer>create(), Maps.<Integer, Integer>newHashMap());
+      }
+    },
+    /** A {@link TreeMultimap} and a {@link java.util.TreeMap TreeMap}. */
+    TREE {
+      @Override
+      MultimapTree<Integer> create() {
+        return MultimapTree.create(TreeMultimap.<Integer, Integer>create(), Maps.<Integer, Integer>newTreeMap());
+      }
+    };
+
+    abstract MultimapTree<Integer> create();
+  }
+
+  @Param
+  public Shape shape;
+
+  @Param({"1000", "10000", "100000", "1000000", "10000000"})
+  public int size;
+
+  @Param
+  public Backing backing;
+
+  /** The tree, which the benchmarks modifying it restore before they return. */
+  public MultimapTree<Integer> tree;
+
+  /** A distinct tree, equal to the tree. */
+  public MultimapTree<Integer> copy;
+
+  public ImmutableMultimapTree<Integer> immutableTree;
+
+  /** Nodes of the tree picked at random. */
+  public Integer[] nodes;
+
+  /** The last leaves of the tree, up to {@link #SAMPLES} of them, and their parents. */
+  public Integer[] leaves;
+
+  public Integer[] leafParents;
+
+  private int nextNode;
+
+  private int nextLeaf;
+
+  @Setup
+  public void setUp() {
+    final Random random = new Random(SEED);
+    final int[] parents = new int[size];
+    final boolean[] hasChildren = new boolean[size];
+    tree = backing.create();
+    tree.setRoot(0);
+    for (int node = 1; node < size; node++) {
+      parents[node] = shape.parentOf(node, random);
+      hasChildren[parents[node]] = true;
+      tree.add(parents[node], node);
+    }
+    copy = MultimapTree.copyOf(tree);
+    immutableTree = ImmutableMultimapTree.copyOf(tree);
+
+    nodes = new Integer[SAMPLES];
+    for (int i = 0; i < SAMPLES; i++) {
+      nodes[i] = random.nextInt(size);
+    }
+
+    final int leafCount = Math.min(SAMPLES, size - 1);
+    leaves = new Integer[leafCount];
+    leafParents = new Integer[leafCount];
+    int found = 0;
+    for (int node = size - 1; node > 0 && found < leafCount; node--) {
+      if (!hasChildren[node]) {
+        leaves[found] = node;
+        leafParents[found] = parents[node];
+        found++;
+      }
+    }
+    // A deep tree has a single leaf
+    leaves = Arrays.copyOf(leaves, found);
+    leafParents = Arrays.copyOf(leafParents, found);
+  }
+
+  /** Returns the next node picked at random. */
+  public Integer nextNode() {
+    nextNode = (nextNode + 1) & (SAMPLES - 1);
+    return nodes[nextNode];
+  }
+
+  /** Returns the index of the next leaf. */
+  public int nextLeaf() {
+    nextLeaf = (nextLeaf + 1) % leaves.length;
+    return nextLeaf;
+  }
+}
@@ -1,8 +1,5 @@
 package org.dapacode.tree4j;
 
-import com.google.common.base.Objects;
-import com.google.common.base.Predicate;
-import com.google.common.collect.Iterables;
 import com.google.common.collect.SetMultimap;
 
 import java.util.Collection;
@@ -18,9 +15,40 @@ public abstract class AbstractMultimapTree<T> implements Tree<T> {
   /** The child-parent associations of the tree. */
   protected final Map<T, T> parents;
 
+  /** The hash code of the parent-children associations, as defined by {@link SetMultimap#hashCode()}. */
+  private int childrenHash;
+
+  /** The hash code of the child-parent associations, as defined by {@link Map#hashCode()}. */
+  private int parentsHash;
+
+  /**
+   * Creates a new tree with the specified associations, computing their hash codes once. The subclasses which modify the
+   * associations must then keep the hash codes up to date, with {@link #updateHashes(int, int)} or {@link #resetHashes()}.
+   *
+   * @param children the parent-children associations
+   * @param parents the child-parent associations
+   */
   protected AbstractMultimapTree(final SetMultimap<T, T> children, final Map<T, T> parents) {
     this.children = children;
     this.parents = parents;
+    resetHashes();
+  }
+
+  /**
+   * Adds the specified differences to the hash codes of the associations, after some associations were added or removed.
+   *
+   * @param childrenHashDelta the difference in the hash code of the parent-children associations
+   * @param parentsHashDelta the difference in the hash code of the child-parent associations
+   */
+  protected final void updateHashes(final int childrenHashDelta, final int parentsHashDelta) {
+    childrenHash += childrenHashDelta;
+    parentsHash += parentsHashDelta;
+  }
+
+  /** Recomputes the hash codes of the associations from the associations, in O(n). */
+  protected final void resetHashes() {
+    childrenHash = children.hashCode();
+    parentsHash = parents.hashCode();
   }
 
   @Override
@@ -54,34 +82,21 @@ public abstract class AbstractMultimapTree<T> implements Tree<T> {
 
   @Override
   public final boolean equals(final Object obj) {
-    return this == obj || obj instanceof Tree && deepEquals((Tree<?>) obj);
-  }
-
-  private <U> boolean deepEquals(final Tree<U> that) {
-    final T thisRoot = getRoot();
-    final U thatRoot = that.getRoot();
-    return thisRoot == null ? thatRoot == null : thisRoot.equals(thatRoot) && deepEquals(that, thisRoot, thatRoot);
-  }
-
-  private <U> boolean deepEquals(final Tree<U> that, final T thisNode, final U thatNode) {
-    final Collection<T> thisChildren = getChildren(thisNode);
-    final Collection<U> thatChildren = that.getChildren(thatNode);
-    return Objects.equal(thisChildren, thatChildren) && !Iterables.tryFind(thisChildren, new Predicate<T>() {
-      final Iterator<U> thatIter = thatChildren.iterator();
-
-      @Override
-      public boolean apply(final T thisChild) {
-        return !deepEquals(that, thisChild, thatIter.next());
-      }
-    }).isPresent();
+    return this == obj || obj instanceof Tree && Trees.deepEquals(this, (Tree<?>) obj);
   }
 
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * The hash codes of the associations are computed once when the tree is created and then maintained on every modification,
+   * so this method is O(1).
+   */
   @Override
   public final int hashCode() {
     final T root = getRoot();
     int result = root == null ? 0 : root.hashCode();
-    result = 31 * result + children.hashCode();
-    result = 31 * result + parents.hashCode();
+    result = 31 * result + childrenHash;
+    result = 31 * result + parentsHash;
     return result;
   }
 }
@@ -0,0 +1,246 @@
+package org.dapacode.tree4j;
+
+import com.google.common.collect.Maps;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * An index of a tree answering ancestry queries without walking up the tree: {@link #isAncestor(Object, Object)} in O(1),
+ * {@link #lca(Object, Object)} and {@link #distance(Object, Object)} in O(1) with a small constant, and {@link
+ * #kthAncestor(Object, int)} in O(log n).
+ * <p/>
+ * The nodes are numbered in pre-order, so that the subtree of a node is an interval of ordinals, and an ancestor test is two
+ * comparisons. The lowest common ancestor of two nodes is the parent of the shallowest node between them in pre-order, found
+ * with a sparse table of the minimum depths of blocks of ordinals, which keeps the index at a few integers per node.
+ * <p/>
+ * The index reflects the tree when it was built: after the tree is modified, the index must be {@link #rebuild() rebuilt}.
+ * The index of an {@link ImmutableTree} never needs to be rebuilt.
+ *
+ * @param <T> the type of the nodes in the tree
+ * @see Trees#ancestorIndex(Tree)
+ */
+public final class AncestorIndex<T> {
+  /** The base two logarithm of the number of ordinals per block of the sparse table. */
+  private static final int BLOCK_SHIFT = 4;
+
+  private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+
+  private final Tree<T> tree;
+
+  /** The ordinals, by node. */
+  private Map<T, Integer> ordinals;
+
+  /** The nodes, by ordinal. */
+  private Object[] nodes;
+
+  /** The ordinal of the parent of each node, by ordinal, {@code -1} for the root. */
+  private int[] parents;
+
+  /** The depth of each node, by ordinal. */
+  private int[] depths;
+
+  /** The ordinal following the subtree of each node, by ordinal. */
+  private int[] subtreeEnds;
+
+  /** The ordinals of the nodes at each depth, in increasing order, by depth. */
+  private int[][] levels;
+
+  /** The ordinal of the shallowest node in each run of {@code 2^i} blocks, by {@code i} and first block. */
+  private int[][] blockMinima;
+
+  AncestorIndex(final Tree<T> tree) {
+    this.tree = checkNotNull(tree);
+    rebuild();
+  }
+
+  /** Rebuilds the index from the current state of the tree, in O(n). */
+  public void rebuild() {
+    final int size = tree.getRoot() == null ? 0 : tree.size();
+    ordinals = Maps.newHashMapWithExpectedSize(size);
+    nodes = new Object[size];
+    parents = new int[size];
+    depths = new int[size];
+    subtreeEnds = new int[size];
+
+    int ordinal = 0;
+    int maxDepth = -1;
+    for (final T node : Trees.getNodesPreOrder(tree)) {
+      final T parent = tree.getParent(node);
+      final int parentOrdinal = parent == null ? -1 : ordinals.get(parent);
+      ordinals.put(node, ordinal);
+      nodes[ordinal] = node;
+      parents[ordinal] = parentOrdinal;
+      depths[ordinal] = parentOrdinal < 0 ? 0 : depths[parentOrdinal] + 1;
+      maxDepth = Math.max(maxDepth, depths[ordinal]);
+      ordinal++;
+    }
+
+    // The children follow their parent in pre-order, so the subtree sizes are summed up in reverse order
+    final int[] subtreeSizes = new int[size];
+    for (int i = size - 1; i >= 0; i--) {
+      subtreeSizes[i]++;
+      subtreeEnds[i] = i + subtreeSizes[i];
+      if (parents[i] >= 0) {
+        subtreeSizes[parents[i]] += subtreeSizes[i];
+      }
+    }
+
+    final int[] levelSizes = new int[maxDepth + 1];
+    for (int i = 0; i < size; i++) {
+      levelSizes[depths[i]]++;
+    }
+    levels = new int[maxDepth + 1][];
+    for (int depth = 0; depth <= maxDepth; depth++) {
+      levels[depth] = new int[levelSizes[depth]];
+      levelSizes[depth] = 0;
+    }
+    for (int i = 0; i < size; i++) {
+      levels[depths[i]][levelSizes[depths[i]]++] = i;
+    }
+
+    buildBlockMinima(size);
+  }
+
+  private void buildBlockMinima(final int size) {
+    final int blocks = (size + BLOCK_SIZE - 1) >> BLOCK_SHIFT;
+    final int levelCount = blocks == 0 ? 0 : Integer.SIZE - Integer.numberOfLeadingZeros(blocks);
+    blockMinima = new int[levelCount][];
+    if (levelCount == 0) {
+      return;
+    }
+
+    blockMinima[0] = new int[blocks];
+    for (int block = 0; block < blocks; block++) {
+      final int start = block << BLOCK_SHIFT;
+      blockMinima[0][block] = scanMinimum(start, Math.min(start + BLOCK_SIZE, size) - 1);
+    }
+    for (int level = 1; level < levelCount; level++) {
+      final int half = 1 << (level - 1);
+      final int[] previous = blockMinima[level - 1];
+      final int[] current = new int[blocks - (1 << level) + 1];
+      for (int block = 0; block < current.length; block++) {
+        current[block] = shallowest(previous[block], previous[block + half]);
+      }
+      blockMinima[level] = current;
+    }
+  }
+
+  private int shallowest(final int ordinal, final int otherOrdinal) {
+    return depths[otherOrdinal] < depths[ordinal] ? otherOrdinal : ordinal;
+  }
+
+  /** Returns the ordinal of the shallowest node between the specified ordinals, inclusive, by scanning them. */
+  private int scanMinimum(final int from, final int to) {
+    int minimum = from;
+    for (int i = from + 1; i <= to; i++) {
+      minimum = shallowest(minimum, i);
+    }
+    return minimum;
+  }
+
+  /** Returns the ordinal of the shallowest node between the specified ordinals, inclusive. */
+  private int minimum(final int from, final int to) {
+    final int fromBlock = from >> BLOCK_SHIFT;
+    final int toBlock = to >> BLOCK_SHIFT;
+    if (toBlock - fromBlock <= 1) {
+      return scanMinimum(from, to);
+    }
+
+    int minimum = shallowest(scanMinimum(from, ((fromBlock + 1) << BLOCK_SHIFT) - 1), scanMinimum(toBlock << BLOCK_SHIFT, to));
+    final int firstBlock = fromBlock + 1;
+    final int blockCount = toBlock - firstBlock;
+    final int level = Integer.SIZE - 1 - Integer.numberOfLeadingZeros(blockCount);
+    minimum = shallowest(minimum, blockMinima[level][firstBlock]);
+    return shallowest(minimum, blockMinima[level][toBlock - (1 << level)]);
+  }
+
+  private int ordinal(final T node) {
+    checkNotNull(node);
+    final Integer ordinal = ordinals.get(node);
+    checkArgument(ordinal != null, "The tree doesn't contain the specified node: %s", node);
+    return ordinal;
+  }
+
+  @SuppressWarnings("unchecked")
+  private T node(final int ordinal) {
+    return (T) nodes[ordinal];
+  }
+
+  /**
+   * Tests whether a node is an ancestor of another node, or the node itself.
+   *
+   * @param ancestor a node of the tree
+   * @param node a node of the tree
+   * @return {@code true} if the first node is the second node or one of its ancestors
+   * @throws IllegalArgumentException if either node isn't contained in the tree
+   */
+  public boolean isAncestor(final T ancestor, final T node) {
+    final int ancestorOrdinal = ordinal(ancestor);
+    final int nodeOrdinal = ordinal(node);
+    return ancestorOrdinal <= nodeOrdinal && nodeOrdinal < subtreeEnds[ancestorOrdinal];
+  }
+
+  /**
+   * Returns the lowest common ancestor of two nodes: their deepest common ancestor, where a node counts as its own ancestor.
+   *
+   * @param node a node of the tree
+   * @param otherNode a node of the tree
+   * @return the lowest common ancestor of the nodes
+   * @throws IllegalArgumentException if either node isn't contained in the tree
+   */
+  public T lca(final T node, final T otherNode) {
+    return node(lcaOrdinal(ordinal(node), ordinal(otherNode)));
+  }
+
+  private int lcaOrdinal(final int ordinal, final int otherOrdinal) {
+    if (ordinal == otherOrdinal) {
+      return ordinal;
+    }
+    final int first = Math.min(ordinal, otherOrdinal);
+    final int last = Math.max(ordinal, otherOrdinal);
+    // The shallowest node after the first node, up to the last node, is the child of their lowest common ancestor leading to
+    // the last node
+    return parents[minimum(first + 1, last)];
+  }
+
+  /**
+   * Returns the number of associations on the path between two nodes.
+   *
+   * @param node a node of the tree
+   * @param otherNode a node of the tree
+   * @return the distance between the nodes
+   * @throws IllegalArgumentException if either node isn't contained in the tree
+   */
+  public int distance(final T node, final T otherNode) {
+    final int ordinal = ordinal(node);
+    final int otherOrdinal = ordinal(otherNode);
+    return depths[ordinal] + depths[otherOrdinal] - 2 * depths[lcaOrdinal(ordinal, otherOrdinal)];
+  }
+
+  /**
+   * Returns the ancestor of a node the specified number of generations up: the node itself for zero, its parent for one, and so
+   * on.
+   *
+   * @param node a node of the tree
+   * @param k the number of generations, zero or more
+   * @return the ancestor of the node, or {@code null} if {@code k} is greater than the depth of the node
+   * @throws IllegalArgumentException if the node isn't contained in the tree or if {@code k} is negative
+   */
+  @Nullable
+  public T kthAncestor(final T node, final int k) {
+    checkArgument(k >= 0, "The number of generations is negative: %s", k);
+    final int ordinal = ordinal(node);
+    final int depth = depths[ordinal] - k;
+    if (depth < 0) {
+      return null;
+    }
+    // The ancestor at a given depth is the last node at that depth preceding the node in pre-order
+    final int[] level = levels[depth];
+    final int index = Arrays.binarySearch(level, ordinal);
+    return node(level[index >= 0 ? index : -index - 2]);
+  }
+}
@@ -0,0 +1,218 @@
+package org.dapacode.tree4j;
+
+import com.google.common.base.Optional;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * A tree backed by another tree, which memoizes the results of {@link #contains(Object)}, {@link #getParent(Object)}, {@link
+ * #getChildren(Object)} and {@link #getRoot()}, for backing trees whose lookups are expensive, such as adapters over remote
+ * sources. The other methods are delegated to the backing tree on every call.
+ * <p/>
+ * The results are kept in one cache per method, each bounded to a maximum number of nodes, evicting the nodes least recently
+ * used, and optionally expiring a fixed time after they were looked up. The collections returned by {@link
+ * #getChildren(Object)} are cached as they are, so a view of the children stays a view. Lookups which throw an exception aren't
+ * cached. The caches are safe for concurrent readers, and a result missing from a cache is looked up once when several threads
+ * request it at the same time, so the backing tree must support concurrent readers too.
+ * <p/>
+ * The caches aren't aware of the modifications of the backing tree: after modifying it, invalidate the nodes whose children or
+ * parent changed with {@link #invalidate(Object)}, or all of them with {@link #invalidateAll()}. The number of hits, misses
+ * and evictions of the caches are available from {@link #stats()}.
+ *
+ * @param <T> the type of the nodes in the tree
+ * @see Trees#cachingTree(Tree)
+ */
+public final class CachingTree<T> extends DelegatingTree<T> {
+  /** The maximum number of nodes whose results are cached, per method, by default. */
+  private static final long DEFAULT_MAXIMUM_SIZE = 10000;
+
+  /** The single key of the cache of the root. */
+  private static final Object ROOT_KEY = new Object();
+
+  private final Tree<T> delegate;
+
+  private final LoadingCache<T, Boolean> contained;
+
+  private final LoadingCache<T, Optional<T>> parents;
+
+  private final LoadingCache<T, Collection<T>> children;
+
+  private final LoadingCache<Object, Optional<T>> root;
+
+  private CachingTree(final Builder<T> builder) {
+    this.delegate = builder.delegate;
+    this.contained = builder.newCache().build(new CacheLoader<T, Boolean>() {
+      @Override
+      public Boolean load(final T node) {
+        return delegate.contains(node);
+      }
+    });
+    this.parents = builder.newCache().build(new CacheLoader<T, Optional<T>>() {
+      @Override
+      public Optional<T> load(final T node) {
+        return Optional.fromNullable(delegate.getParent(node));
+      }
+    });
+    this.children = builder.newCache().build(new CacheLoader<T, Collection<T>>() {
+      @Override
+      public Collection<T> load(final T node) {
+        return delegate.getChildren(node);
+      }
+    });
+    this.root = builder.newCache().build(new CacheLoader<Object, Optional<T>>() {
+      @Override
+      public Optional<T> load(final Object key) {
+        return Optional.fromNullable(delegate.getRoot());
+      }
+    });
+  }
+
+  /**
+   * Returns a new builder of a caching tree backed by the specified tree.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @param delegate the backing tree
+   * @return a new builder
+   */
+  public static <T> Builder<T> builder(final Tree<T> delegate) {
+    return new Builder<T>(delegate);
+  }
+
+  /**
+   * A builder of caching trees.
+   *
+   * @param <T> the type of the nodes in the tree
+   */
+  public static final class Builder<T> {
+    private final Tree<T> delegate;
+
+    private long maximumSize = DEFAULT_MAXIMUM_SIZE;
+
+    /** The time after which the results expire, in nanoseconds, or {@code -1} if they don't expire. */
+    private long expireAfterNanos = -1;
+
+    private Builder(final Tree<T> delegate) {
+      this.delegate = checkNotNull(delegate);
+    }
+
+    /**
+     * Sets the maximum number of nodes whose results are cached, per method, 10000 by default.
+     *
+     * @param size the maximum number of nodes
+     * @return this builder
+     * @throws IllegalArgumentException if the size is negative
+     */
+    public Builder<T> maximumSize(final long size) {
+      checkArgument(size >= 0, "The maximum size is negative: %s", size);
+      maximumSize = size;
+      return this;
+    }
+
+    /**
+     * Sets the time after which the results expire, once they were looked up. By default, the results don't expire.
+     *
+     * @param duration the time after which the results expire
+     * @param unit the unit of the duration
+     * @return this builder
+     * @throws IllegalArgumentException if the duration is negative
+     */
+    public Builder<T> expireAfterWrite(final long duration, final TimeUnit unit) {
+      checkArgument(duration >= 0, "The expiration duration is negative: %s", duration);
+      expireAfterNanos = unit.toNanos(duration);
+      return this;
+    }
+
+    private CacheBuilder<Object, Object> newCache() {
+      final CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats();
+      return expireAfterNanos < 0 ? cacheBuilder : cacheBuilder.expireAfterWrite(expireAfterNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Builds a new caching tree with the settings of this builder.
+     *
+     * @return a new caching tree
+     */
+    public CachingTree<T> build() {
+      return new CachingTree<T>(this);
+    }
+  }
+
+  @Override
+  protected Tree<T> delegate() {
+    return delegate;
+  }
+
+  @Override
+  public boolean contains(final T node) {
+    return get(contained, checkNotNull(node));
+  }
+
+  @Override
+  @Nullable
+  public T getParent(final T node) {
+    return get(parents, checkNotNull(node)).orNull();
+  }
+
+  @Override
+  public Collection<T> getChildren(final T node) {
+    return get(children, checkNotNull(node));
+  }
+
+  @Override
+  @Nullable
+  public T getRoot() {
+    return get(root, ROOT_KEY).orNull();
+  }
+
+  /** Looks up the result for the specified key, or returns it if it's cached, propagating the failures of the backing tree. */
+  private static <K, V> V get(final LoadingCache<K, V> cache, final K key) {
+    try {
+      return cache.getUnchecked(key);
+    } catch (UncheckedExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Discards the cached results for the specified node: whether it's contained in the tree, its parent and its children. The
+   * root isn't discarded.
+   *
+   * @param node a node
+   */
+  public void invalidate(final T node) {
+    checkNotNull(node);
+    contained.invalidate(node);
+    parents.invalidate(node);
+    children.invalidate(node);
+  }
+
+  /** Discards all the cached results, the root included. */
+  public void invalidateAll() {
+    contained.invalidateAll();
+    parents.invalidateAll();
+    children.invalidateAll();
+    root.invalidateAll();
+  }
+
+  /**
+   * Returns the statistics of the caches of this tree, summed over the four methods: the hits, the misses, the time spent
+   * looking up the misses in the backing tree and the evictions, expirations included.
+   *
+   * @return a snapshot of the statistics of the caches
+   */
+  public CacheStats stats() {
+    return contained.stats().plus(parents.stats()).plus(children.stats()).plus(root.stats());
+  }
+}
@@ -0,0 +1,333 @@
+package org.dapacode.tree4j;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.Striped;
+
+import javax.annotation.Nullable;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * A thread-safe {@link MutableTree} implementation which uses concurrent maps and striped locks.
+ * <p/>
+ * {@link #contains(Object)}, {@link #getParent(Object)}, {@link #getChildren(Object)} and {@link #getRoot()} don't lock. The
+ * collections returned by {@link #getChildren(Object)} and the {@link #iterator()} are weakly consistent: they never throw a
+ * {@link java.util.ConcurrentModificationException} and reflect some, but not necessarily all, of the modifications made since
+ * their creation.
+ * <p/>
+ * {@link #add(Object, Object)} and {@link #remove(Object)} only lock the stripes of the nodes they change, so writers to
+ * disjoint subtrees rarely contend: an association is added with the stripes of the parent and child nodes held, and a subtree
+ * is removed bottom-up, one node at a time, with the stripe of each removed node held. A node is only removed once it has no
+ * children, so every node of the tree stays connected to the root, and adding a child to a node whose removal is in progress
+ * either fails or has the child removed along with the node. {@link #setRoot(Object)}, {@link #move(Object, Object)}, {@link
+ * #addAll(Object, Tree)} and {@link #clear()} exclude all other writers, moving so that concurrent moves can't create a cycle.
+ * <p/>
+ * The order of the children of a node is unspecified.
+ *
+ * @param <T> the type of the nodes in the tree
+ */
+public final class ConcurrentMultimapTree<T> implements MutableTree<T> {
+  /** The number of lock stripes per available processor, by default. */
+  private static final int STRIPES_PER_PROCESSOR = 4;
+
+  /** The parent-children associations of the tree. */
+  private final ConcurrentMap<T, Set<T>> children = new ConcurrentHashMap<T, Set<T>>();
+
+  /** The child-parent associations of the tree. */
+  private final ConcurrentMap<T, T> parents = new ConcurrentHashMap<T, T>();
+
+  /** The locks guarding the changes to the associations of the nodes, by node. */
+  private final Striped<Lock> stripes;
+
+  /** Shared by the writers which only lock stripes, and exclusively held by the writers which change the root. */
+  private final ReadWriteLock rootLock = new ReentrantReadWriteLock();
+
+  /** The root of the tree. */
+  @Nullable
+  private volatile T root;
+
+  private ConcurrentMultimapTree(final int stripeCount) {
+    checkArgument(stripeCount > 0, "The number of stripes isn't positive: %s", stripeCount);
+    stripes = Striped.lock(stripeCount);
+  }
+
+  /**
+   * Creates a new concurrent multimap tree with a number of lock stripes proportional to the number of available processors.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @return a new concurrent multimap tree
+   */
+  public static <T> ConcurrentMultimapTree<T> create() {
+    return create(STRIPES_PER_PROCESSOR * Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Creates a new concurrent multimap tree with the specified number of lock stripes, the maximum number of writers which can
+   * modify the tree without contending.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @param stripeCount the number of lock stripes
+   * @return a new concurrent multimap tree
+   */
+  public static <T> ConcurrentMultimapTree<T> create(final int stripeCount) {
+    return new ConcurrentMultimapTree<T>(stripeCount);
+  }
+
+  @Override
+  public int size() {
+    return root == null ? 0 : 1 + parents.size();
+  }
+
+  @Override
+  public boolean contains(final T node) {
+    checkNotNull(node);
+    return node.equals(root) || parents.containsKey(node);
+  }
+
+  @Override
+  @Nullable
+  public T getParent(final T node) {
+    checkNotNull(node);
+    final T parent = parents.get(node);
+    checkArgument(parent != null || node.equals(root), "The tree doesn't contain the specified node: %s", node);
+    return parent;
+  }
+
+  @Override
+  public Collection<T> getChildren(final T node) {
+    checkNotNull(node);
+    checkArgument(contains(node), "The tree doesn't contain the specified node: %s", node);
+    final Set<T> nodeChildren = children.get(node);
+    return nodeChildren == null ? ImmutableSet.<T>of() : Collections.unmodifiableSet(nodeChildren);
+  }
+
+  @Override
+  @Nullable
+  public T getRoot() {
+    return root;
+  }
+
+  @Override
+  public Iterator<Map.Entry<T, T>> iterator() {
+    return Iterators.transform(parents.entrySet().iterator(), new Function<Map.Entry<T, T>, Map.Entry<T, T>>() {
+      @Override
+      public Map.Entry<T, T> apply(final Map.Entry<T, T> childParent) {
+        return new AbstractMap.SimpleImmutableEntry<T, T>(childParent.getValue(), childParent.getKey());
+      }
+    });
+  }
+
+  @Override
+  public boolean setRoot(final T node) {
+    checkNotNull(node);
+    rootLock.writeLock().lock();
+    try {
+      if (node.equals(root)) {
+        return false;
+      } else {
+        // clear first, then set the root, otherwise the root is cleared too
+        clearInternal();
+        root = node;
+        return true;
+      }
+    } finally {
+      rootLock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public boolean add(final T parent, final T child) {
+    checkNotNull(parent);
+    checkNotNull(child);
+
+    rootLock.readLock().lock();
+    try {
+      final Iterable<Lock> locks = stripes.bulkGet(ImmutableList.of(parent, child));
+      lockAll(locks);
+      try {
+        checkArgument(contains(parent), "The tree doesn't contain the specified parent node: %s", parent);
+
+        final T childParent = parents.get(child);
+        if (parent.equals(childParent)) {
+          return false;
+        }
+
+        checkArgument(childParent == null && !child.equals(root),
+            "The child node (%s) is already associated to another node", child);
+
+        parents.put(child, parent);
+        childrenOf(parent).add(child);
+
+        return true;
+      } finally {
+        unlockAll(locks);
+      }
+    } finally {
+      rootLock.readLock().unlock();
+    }
+  }
+
+  private Set<T> childrenOf(final T parent) {
+    final Set<T> parentChildren = children.get(parent);
+    if (parentChildren != null) {
+      return parentChildren;
+    }
+    final Set<T> newChildren = Collections.newSetFromMap(new ConcurrentHashMap<T, Boolean>());
+    final Set<T> existingChildren = children.putIfAbsent(parent, newChildren);
+    return existingChildren == null ? newChildren : existingChildren;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * The node is added to the children of its new parent before it's removed from the children of its previous parent, so a
+   * concurrent reader may see it as a child of both, but always connected to the root.
+   */
+  @Override
+  public boolean move(final T node, final T newParent) {
+    rootLock.writeLock().lock();
+    try {
+      final T parent = Trees.checkMovable(this, node, newParent);
+      if (parent.equals(newParent)) {
+        return false;
+      }
+
+      childrenOf(newParent).add(node);
+      parents.put(node, newParent);
+      children.get(parent).remove(node);
+
+      return true;
+    } finally {
+      rootLock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * The nodes of the subtree are checked and added with all other writers excluded, so the subtree is added atomically with
+   * respect to the other modifications, but a concurrent reader may see it partially added.
+   */
+  @Override
+  public boolean addAll(final T parent, final Tree<T> subtree) {
+    rootLock.writeLock().lock();
+    try {
+      final T subtreeRoot = Trees.checkGraftable(this, parent, subtree);
+      if (subtreeRoot == null) {
+        return false;
+      }
+
+      parents.put(subtreeRoot, parent);
+      childrenOf(parent).add(subtreeRoot);
+      for (final Map.Entry<T, T> association : Trees.getAssociationsPreOrder(subtree, subtreeRoot)) {
+        parents.put(association.getValue(), association.getKey());
+        childrenOf(association.getKey()).add(association.getValue());
+      }
+
+      return true;
+    } finally {
+      rootLock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void clear() {
+    rootLock.writeLock().lock();
+    try {
+      clearInternal();
+    } finally {
+      rootLock.writeLock().unlock();
+    }
+  }
+
+  private void clearInternal() {
+    children.clear();
+    parents.clear();
+    root = null;
+  }
+
+  @Override
+  public boolean remove(final T node) {
+    checkNotNull(node);
+
+    if (node.equals(root)) { // optimisation
+      clear();
+      return true;
+    }
+
+    rootLock.readLock().lock();
+    try {
+      checkArgument(parents.containsKey(node), "The tree doesn't contain the specified node: %s", node);
+
+      // Remove the nodes bottom-up, with an explicit stack: a node stays on the stack until it has no children left
+      final Deque<T> stack = new ArrayDeque<T>();
+      stack.push(node);
+      while (!stack.isEmpty()) {
+        final T current = stack.peek();
+        final Lock lock = stripes.get(current);
+        lock.lock();
+        try {
+          if (parents.containsKey(current)) {
+            final Set<T> currentChildren = children.get(current);
+            if (currentChildren != null && !currentChildren.isEmpty()) {
+              for (final T child : currentChildren) {
+                stack.push(child);
+              }
+              continue;
+            }
+            children.remove(current);
+            final Set<T> siblings = children.get(parents.remove(current));
+            if (siblings != null) {
+              siblings.remove(current);
+            }
+          }
+        } finally {
+          lock.unlock();
+        }
+        stack.pop();
+      }
+
+      return true;
+    } finally {
+      rootLock.readLock().unlock();
+    }
+  }
+
+  private static void lockAll(final Iterable<Lock> locks) {
+    for (final Lock lock : locks) {
+      lock.lock();
+    }
+  }
+
+  private static void unlockAll(final Iterable<Lock> locks) {
+    for (final Lock lock : locks) {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    return this == obj || obj instanceof Tree && Trees.deepEquals(this, (Tree<?>) obj);
+  }
+
+  @Override
+  public int hashCode() {
+    return Trees.hashCode(this);
+  }
+}
@@ -2,6 +2,7 @@ package org.dapacode.tree4j;
 
 import javax.annotation.Nullable;
 import java.util.Collection;
+import java.util.Map;
 
 /**
  * An immutable tree which delegates all its method calls to another immutable tree. Subclasses should override one or more
@@ -52,4 +53,24 @@ public abstract class DelegatingImmutableTree<T> extends DelegatingTree<T> imple
   public ImmutableTree<T> removed(final T node) {
     return delegate().removed(node);
   }
+
+  @Override
+  public ImmutableTree<T> moved(final T node, final T newParent) {
+    return delegate().moved(node, newParent);
+  }
+
+  @Override
+  public ImmutableTree<T> addedAll(final Iterable<Map.Entry<T, T>> associations) {
+    return delegate().addedAll(associations);
+  }
+
+  @Override
+  public ImmutableTree<T> grafted(final T parent, final Tree<T> subtree) {
+    return delegate().grafted(parent, subtree);
+  }
+
+  @Override
+  public ImmutableTree<T> removedAll(final Iterable<T> nodes) {
+    return delegate().removedAll(nodes);
+  }
 }
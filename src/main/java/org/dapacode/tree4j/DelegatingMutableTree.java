@@ -48,6 +48,16 @@ public abstract class DelegatingMutableTree<T> extends DelegatingTree<T> impleme
     return delegate().add(parent, child);
   }
 
+  @Override
+  public boolean move(final T node, final T newParent) {
+    return delegate().move(node, newParent);
+  }
+
+  @Override
+  public boolean addAll(final T parent, final Tree<T> subtree) {
+    return delegate().addAll(parent, subtree);
+  }
+
   @Override
   public void clear() {
     delegate().clear();
@@ -0,0 +1,273 @@
+package org.dapacode.tree4j;
+
+import com.google.common.collect.UnmodifiableIterator;
+
+import javax.annotation.Nullable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * A compact, read-only, {@link Tree} implementation laid out in arrays, for trees which are no longer modified once loaded.
+ * <p/>
+ * The nodes are numbered with dense ordinals in breadth-first order, so that the children of every node have consecutive
+ * ordinals: the tree is stored in compressed sparse row form, where the child array is the node array itself. Besides the node
+ * array, the tree only holds the ordinal of the parent and of the first child of each node, and an open addressing hash index
+ * from node to ordinal. This costs around 24 bytes per node (plus the nodes themselves), a fraction of the two maps of the
+ * multimap based trees.
+ * <p/>
+ * {@link #getChildren(Object)} returns a view of a slice of the node array, without copying, and the associations are
+ * iterated in breadth-first order by scanning the arrays sequentially. To derive a modified tree, copy the frozen tree into a
+ * {@link MutableTree} or {@link ImmutableTree} implementation.
+ *
+ * @param <T> the type of the nodes in the tree
+ * @see Trees#freeze(Tree)
+ */
+public final class FrozenTree<T> implements Tree<T> {
+  /** The multiplier used to spread the hash codes of the nodes over the hash index. */
+  private static final int SPREAD = 0x9E3779B9;
+
+  /** The maximum ratio of slots to nodes in the hash index, which keeps its load factor at or under one half. */
+  private static final int INDEX_SLOTS_PER_NODE = 4;
+
+  /** The nodes of the tree, by ordinal. */
+  private final Object[] nodes;
+
+  /** The ordinal of the parent of each node, by ordinal, {@code -1} for the root. */
+  private final int[] parents;
+
+  /** The ordinal of the first child of each node, by ordinal, followed by the number of nodes. */
+  private final int[] childStarts;
+
+  /** The hash index of the nodes, holding the ordinal of a node plus one, or zero for an empty slot. */
+  private final int[] index;
+
+  private final int hashCode;
+
+  private FrozenTree(final Object[] nodes, final int[] parents, final int[] childStarts) {
+    this.nodes = nodes;
+    this.parents = parents;
+    this.childStarts = childStarts;
+    this.index = buildIndex(nodes);
+    this.hashCode = computeHashCode();
+  }
+
+  /**
+   * Creates a frozen copy of the specified tree. Copying a frozen tree returns the tree itself, as it's immutable.
+   *
+   * @param <T> the type of the nodes in the trees
+   * @param tree a tree
+   * @return a frozen copy of the specified tree
+   */
+  public static <T> FrozenTree<T> copyOf(final Tree<T> tree) {
+    checkNotNull(tree);
+
+    if (tree instanceof FrozenTree) {
+      return (FrozenTree<T>) tree;
+    }
+
+    final T root = tree.getRoot();
+    final int size = root == null ? 0 : tree.size();
+    final Object[] nodes = new Object[size];
+    final int[] parents = new int[size];
+    final int[] childStarts = new int[size + 1];
+
+    if (root != null) {
+      nodes[0] = root;
+      parents[0] = -1;
+      int count = 1;
+      for (int i = 0; i < count; i++) {
+        childStarts[i] = count;
+        @SuppressWarnings("unchecked")
+        final T node = (T) nodes[i];
+        for (final T child : tree.getChildren(node)) {
+          checkState(count < size, "The tree has more nodes than its size: %s", size);
+          nodes[count] = child;
+          parents[count] = i;
+          count++;
+        }
+      }
+      checkState(count == size, "The tree has fewer nodes (%s) than its size (%s)", count, size);
+    }
+    childStarts[size] = size;
+
+    return new FrozenTree<T>(nodes, parents, childStarts);
+  }
+
+  private static int[] buildIndex(final Object[] nodes) {
+    final int[] index = new int[Integer.highestOneBit(Math.max(nodes.length, 1)) * INDEX_SLOTS_PER_NODE];
+    final int mask = index.length - 1;
+    for (int ordinal = 0; ordinal < nodes.length; ordinal++) {
+      int slot = spread(nodes[ordinal]) & mask;
+      while (index[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      index[slot] = ordinal + 1;
+    }
+    return index;
+  }
+
+  private static int spread(final Object node) {
+    final int h = node.hashCode() * SPREAD;
+    return h ^ (h >>> (Integer.SIZE / 2));
+  }
+
+  /**
+   * Looks up the ordinal of the specified node.
+   *
+   * @return the ordinal of the node, or {@code -1} if the tree doesn't contain it
+   */
+  private int ordinal(final Object node) {
+    final int mask = index.length - 1;
+    for (int slot = spread(node) & mask; index[slot] != 0; slot = (slot + 1) & mask) {
+      final int ordinal = index[slot] - 1;
+      if (node.equals(nodes[ordinal])) {
+        return ordinal;
+      }
+    }
+    return -1;
+  }
+
+  private int checkedOrdinal(final T node) {
+    checkNotNull(node);
+    final int ordinal = ordinal(node);
+    checkArgument(ordinal >= 0, "The tree doesn't contain the specified node: %s", node);
+    return ordinal;
+  }
+
+  @SuppressWarnings("unchecked")
+  private T node(final int ordinal) {
+    return (T) nodes[ordinal];
+  }
+
+  @Override
+  public int size() {
+    return nodes.length;
+  }
+
+  @Override
+  public boolean contains(final T node) {
+    checkNotNull(node);
+    return ordinal(node) >= 0;
+  }
+
+  @Override
+  @Nullable
+  public T getParent(final T node) {
+    final int parent = parents[checkedOrdinal(node)];
+    return parent < 0 ? null : node(parent);
+  }
+
+  @Override
+  public Collection<T> getChildren(final T node) {
+    final int ordinal = checkedOrdinal(node);
+    final int start = childStarts[ordinal];
+    final int end = childStarts[ordinal + 1];
+    return new AbstractSet<T>() {
+      @Override
+      public Iterator<T> iterator() {
+        return new UnmodifiableIterator<T>() {
+          private int next = start;
+
+          @Override
+          public boolean hasNext() {
+            return next < end;
+          }
+
+          @Override
+          public T next() {
+            if (next >= end) {
+              throw new NoSuchElementException();
+            }
+            return node(next++);
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return end - start;
+      }
+
+      @Override
+      public boolean contains(final Object o) {
+        if (o == null) {
+          return false;
+        }
+        final int childOrdinal = ordinal(o);
+        return childOrdinal >= start && childOrdinal < end;
+      }
+    };
+  }
+
+  @Override
+  @Nullable
+  public T getRoot() {
+    return nodes.length == 0 ? null : node(0);
+  }
+
+  @Override
+  public Iterator<Map.Entry<T, T>> iterator() {
+    return new UnmodifiableIterator<Map.Entry<T, T>>() {
+      private int next = 1; // The root isn't the child in any association
+
+      @Override
+      public boolean hasNext() {
+        return next < nodes.length;
+      }
+
+      @Override
+      public Map.Entry<T, T> next() {
+        if (next >= nodes.length) {
+          throw new NoSuchElementException();
+        }
+        final int child = next++;
+        return new AbstractMap.SimpleImmutableEntry<T, T>(node(parents[child]), node(child));
+      }
+    };
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    return this == obj || obj instanceof Tree && Trees.deepEquals(this, (Tree<?>) obj);
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
+  /** Computes the hash code consistently with the other tree implementations, by scanning the arrays once. */
+  private int computeHashCode() {
+    if (nodes.length == 0) {
+      return 0;
+    }
+
+    int childrenHash = 0;
+    int parentsHash = 0;
+    for (int ordinal = 0; ordinal < nodes.length; ordinal++) {
+      final int nodeHash = nodes[ordinal].hashCode();
+      final int start = childStarts[ordinal];
+      final int end = childStarts[ordinal + 1];
+      int nodeChildrenHash = 0;
+      for (int child = start; child < end; child++) {
+        final int childHash = nodes[child].hashCode();
+        nodeChildrenHash += childHash;
+        parentsHash += childHash ^ nodeHash;
+      }
+      if (end > start) {
+        childrenHash += nodeHash ^ nodeChildrenHash;
+      }
+    }
+
+    int result = nodes[0].hashCode();
+    result = Trees.HASH_MULTIPLIER * result + childrenHash;
+    result = Trees.HASH_MULTIPLIER * result + parentsHash;
+    return result;
+  }
+}
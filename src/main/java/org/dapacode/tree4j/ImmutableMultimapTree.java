@@ -1,16 +1,25 @@
 package org.dapacode.tree4j;
 
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Ordering;
+import com.google.common.collect.Sets;
 import org.dapacode.tree4j.common.Factory;
 
 import javax.annotation.Nullable;
+import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
 
 import static com.google.common.base.Preconditions.*;
 
@@ -158,6 +167,115 @@ public final class ImmutableMultimapTree<T> extends AbstractMultimapTree<T> impl
     }
   }
 
+  /**
+   * A builder of immutable multimap trees, for when a tree is built from many associations at once. The associations are
+   * collected into mutable scratch structures and are validated, and the immutable multimap and map are built, in a single pass
+   * when {@link #build()} is invoked, so building a tree of n associations is O(n), instead of the O(n<sup>2</sup>) of calling
+   * {@link ImmutableMultimapTree#added(Object, Object)} once per association.
+   * <p/>
+   * The associations may be added in any order, as long as they form a tree under the root when the tree is built.
+   *
+   * @param <T> the type of the nodes in the tree
+   */
+  public static final class Builder<T> {
+    private final ChildrenMaker<T> childrenMaker;
+    private final ParentsMaker<T> parentsMaker;
+
+    /** The child-parent associations, in the order they were added. */
+    private final Map<T, T> parents = Maps.newLinkedHashMap();
+
+    @Nullable
+    private T root;
+
+    private Builder(final ChildrenMaker<T> childrenMaker, final ParentsMaker<T> parentsMaker) {
+      this.childrenMaker = checkNotNull(childrenMaker);
+      this.parentsMaker = checkNotNull(parentsMaker);
+    }
+
+    /**
+     * Sets the root of the tree to be built.
+     *
+     * @param node a node
+     * @return this builder
+     */
+    public Builder<T> setRoot(final T node) {
+      root = checkNotNull(node);
+      return this;
+    }
+
+    /**
+     * Adds a new parent/child association to the tree to be built. The parent node doesn't need to be known yet.
+     *
+     * @param parent the parent node
+     * @param child the child node, a node not already associated to another node
+     * @return this builder
+     * @throws IllegalArgumentException if the child node is already associated to another node
+     */
+    public Builder<T> add(final T parent, final T child) {
+      checkNotNull(parent);
+      checkNotNull(child);
+
+      final T childParent = parents.put(child, parent);
+      if (childParent != null && !childParent.equals(parent)) {
+        parents.put(child, childParent);
+        throw new IllegalArgumentException(
+            String.format("The child node (%s) is already associated to another node", child));
+      }
+
+      return this;
+    }
+
+    /**
+     * Builds a new immutable multimap tree with the root and the associations added to this builder, using the children and
+     * parents makers of this builder.
+     *
+     * @return a new immutable multimap tree
+     * @throws IllegalArgumentException if associations were added but no root was set, or if the associations don't form a
+     * tree under the root
+     */
+    public ImmutableMultimapTree<T> build() {
+      checkArgument(root != null || parents.isEmpty(), "The tree has associations but no root");
+      checkArgument(root == null || !parents.containsKey(root), "The root node (%s) is associated to a parent node", root);
+
+      if (!parents.isEmpty()) {
+        checkConnected();
+      }
+
+      final ImmutableSetMultimap.Builder<T, T> childrenBuilder = childrenMaker.get();
+      final ImmutableMap.Builder<T, T> parentsBuilder = parentsMaker.get();
+      for (final Map.Entry<T, T> association : parents.entrySet()) {
+        childrenBuilder.put(association.getValue(), association.getKey());
+        parentsBuilder.put(association.getKey(), association.getValue());
+      }
+
+      return new ImmutableMultimapTree<T>(childrenMaker, parentsMaker, childrenBuilder.build(), parentsBuilder.build(), root);
+    }
+
+    /**
+     * Checks that every child node can be reached from the root. As every node has one parent at most and the root has none,
+     * this also guarantees there are no cycles.
+     */
+    private void checkConnected() {
+      final ListMultimap<T, T> children = ArrayListMultimap.create();
+      for (final Map.Entry<T, T> association : parents.entrySet()) {
+        children.put(association.getValue(), association.getKey());
+      }
+
+      int reached = 0;
+      final Deque<T> stack = new ArrayDeque<T>();
+      stack.push(root);
+      while (!stack.isEmpty()) {
+        for (final T child : children.get(stack.pop())) {
+          reached++;
+          stack.push(child);
+        }
+      }
+
+      checkArgument(reached == parents.size(), "%s of the associated nodes aren't connected to the root node (%s)",
+          parents.size() - reached, root);
+    }
+  }
+
   /**
    * The factory of immutable multimap builder instances, used to build the parent-children associations of a new immutable
    * multimap tree.
@@ -235,6 +353,28 @@ public final class ImmutableMultimapTree<T> extends AbstractMultimapTree<T> impl
     return new ImmutableMultimapTree<T>(childrenMaker, parentsMaker);
   }
 
+  /**
+   * Creates a new builder of immutable multimap trees backed by an {@link ImmutableSetMultimap} and an {@link ImmutableMap}.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @return a new builder
+   */
+  public static <T> Builder<T> builder() {
+    return builder(ChildrenMaker.<T>usingSetMultimap(), ParentsMaker.<T>usingImmutableMap());
+  }
+
+  /**
+   * Creates a new builder of immutable multimap trees using the specified {@link ChildrenMaker} and {@link ParentsMaker}.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @param childrenMaker an ImmutableSetMultimap builder factory
+   * @param parentsMaker an ImmutableMap builder factory
+   * @return a new builder
+   */
+  public static <T> Builder<T> builder(final ChildrenMaker<T> childrenMaker, final ParentsMaker<T> parentsMaker) {
+    return new Builder<T>(childrenMaker, parentsMaker);
+  }
+
   /**
    * Creates a copy of the specified tree, by creating a new tree with a copy of the associations in the specified tree and the
    * same root node.
@@ -261,19 +401,19 @@ public final class ImmutableMultimapTree<T> extends AbstractMultimapTree<T> impl
       return new ImmutableMultimapTree<T>(immutableMultimapTree.childrenMaker, immutableMultimapTree.parentsMaker, children,
           parents, immutableMultimapTree.root);
     } else {
-      ImmutableMultimapTree<T> immutableMultimapTree = create();
+      final Builder<T> builder = builder();
 
       final T root = tree.getRoot();
       if (root != null) {
-        immutableMultimapTree = immutableMultimapTree.withRoot(root);
+        builder.setRoot(root);
       }
 
-      final Collection<Map.Entry<T, T>> associations = Trees.getAssociationsDepthFirst(tree);
+      final Iterable<Map.Entry<T, T>> associations = Trees.getAssociationsPreOrder(tree);
       for (final Map.Entry<T, T> association : associations) {
-        immutableMultimapTree = immutableMultimapTree.added(association.getKey(), association.getValue());
+        builder.add(association.getKey(), association.getValue());
       }
 
-      return immutableMultimapTree;
+      return builder.build();
     }
   }
 
@@ -339,6 +479,99 @@ public final class ImmutableMultimapTree<T> extends AbstractMultimapTree<T> impl
     parentsBuilder.put(child, parent);
   }
 
+  @Override
+  public ImmutableMultimapTree<T> moved(final T node, final T newParent) {
+    final T parent = Trees.checkMovable(this, node, newParent);
+    if (parent.equals(newParent)) {
+      return this;
+    }
+
+    final ImmutableSetMultimap.Builder<T, T> childrenBuilder = childrenMaker.get();
+    final ImmutableMap.Builder<T, T> parentsBuilder = parentsMaker.get();
+
+    for (final Map.Entry<T, T> association : children.entries()) {
+      if (!association.getValue().equals(node)) {
+        addInternal(association.getKey(), association.getValue(), childrenBuilder, parentsBuilder);
+      }
+    }
+    addInternal(newParent, node, childrenBuilder, parentsBuilder);
+
+    final ImmutableSetMultimap<T, T> newChildren = childrenBuilder.build();
+    final ImmutableMap<T, T> newParents = parentsBuilder.build();
+
+    return new ImmutableMultimapTree<T>(childrenMaker, parentsMaker, newChildren, newParents, root);
+  }
+
+  @Override
+  public ImmutableMultimapTree<T> addedAll(final Iterable<Map.Entry<T, T>> associations) {
+    checkNotNull(associations);
+
+    // The new child-parent associations, validated against the tree and the preceding new associations
+    final Map<T, T> newAssociations = Maps.newLinkedHashMap();
+    for (final Map.Entry<T, T> association : associations) {
+      final T parent = checkNotNull(association.getKey());
+      final T child = checkNotNull(association.getValue());
+      checkArgument(contains(parent) || newAssociations.containsKey(parent),
+          "The tree doesn't contain the specified parent node: %s", parent);
+
+      final T existingParent = parents.get(child);
+      final T childParent = existingParent == null ? newAssociations.get(child) : existingParent;
+      if (!parent.equals(childParent)) {
+        checkArgument(childParent == null, "The child node (%s) is already associated to another node", child);
+        newAssociations.put(child, parent);
+      }
+    }
+
+    if (newAssociations.isEmpty()) {
+      return this;
+    }
+
+    final ImmutableSetMultimap.Builder<T, T> childrenBuilder = childrenMaker.get();
+    final ImmutableMap.Builder<T, T> parentsBuilder = parentsMaker.get();
+
+    childrenBuilder.putAll(children);
+    parentsBuilder.putAll(parents);
+
+    for (final Map.Entry<T, T> newAssociation : newAssociations.entrySet()) {
+      addInternal(newAssociation.getValue(), newAssociation.getKey(), childrenBuilder, parentsBuilder);
+    }
+
+    final ImmutableSetMultimap<T, T> newChildren = childrenBuilder.build();
+    final ImmutableMap<T, T> newParents = parentsBuilder.build();
+
+    return new ImmutableMultimapTree<T>(childrenMaker, parentsMaker, newChildren, newParents, root);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * The nodes of the subtree are checked once, and the tree is rebuilt in a single pass, with the associations of the subtree
+   * appended to those of this tree.
+   */
+  @Override
+  public ImmutableMultimapTree<T> grafted(final T parent, final Tree<T> subtree) {
+    final T subtreeRoot = Trees.checkGraftable(this, parent, subtree);
+    if (subtreeRoot == null) {
+      return this;
+    }
+
+    final ImmutableSetMultimap.Builder<T, T> childrenBuilder = childrenMaker.get();
+    final ImmutableMap.Builder<T, T> parentsBuilder = parentsMaker.get();
+
+    childrenBuilder.putAll(children);
+    parentsBuilder.putAll(parents);
+
+    addInternal(parent, subtreeRoot, childrenBuilder, parentsBuilder);
+    for (final Map.Entry<T, T> association : Trees.getAssociationsPreOrder(subtree, subtreeRoot)) {
+      addInternal(association.getKey(), association.getValue(), childrenBuilder, parentsBuilder);
+    }
+
+    final ImmutableSetMultimap<T, T> newChildren = childrenBuilder.build();
+    final ImmutableMap<T, T> newParents = parentsBuilder.build();
+
+    return new ImmutableMultimapTree<T>(childrenMaker, parentsMaker, newChildren, newParents, root);
+  }
+
   @Override
   public ImmutableMultimapTree<T> removed(final T node) {
     checkNotNull(node);
@@ -351,10 +584,39 @@ public final class ImmutableMultimapTree<T> extends AbstractMultimapTree<T> impl
       return this;
     }
 
+    return removedInternal(ImmutableSet.of(node));
+  }
+
+  @Override
+  public ImmutableMultimapTree<T> removedAll(final Iterable<T> nodes) {
+    checkNotNull(nodes);
+
+    final Set<T> excludeNodes = Sets.newHashSet();
+    for (final T node : nodes) {
+      checkNotNull(node);
+      if (node.equals(root)) { // optimisation
+        return create(childrenMaker, parentsMaker);
+      }
+      if (contains(node)) {
+        excludeNodes.add(node);
+      }
+    }
+
+    return excludeNodes.isEmpty() ? this : removedInternal(excludeNodes);
+  }
+
+  /**
+   * Creates a copy of this tree without the specified nodes, which must be contained in the tree and not be the root, and all
+   * of their children.
+   *
+   * @param excludeNodes the nodes to remove
+   * @return a modified copy of this tree
+   */
+  private ImmutableMultimapTree<T> removedInternal(final Set<T> excludeNodes) {
     final ImmutableSetMultimap.Builder<T, T> childrenBuilder = childrenMaker.get();
     final ImmutableMap.Builder<T, T> parentsBuilder = parentsMaker.get();
 
-    addRecursivelyExcludingNode(root, node, childrenBuilder, parentsBuilder);
+    addExcludingNodes(root, excludeNodes, childrenBuilder, parentsBuilder);
 
     final ImmutableSetMultimap<T, T> newChildren = childrenBuilder.build();
     final ImmutableMap<T, T> newParents = parentsBuilder.build();
@@ -363,26 +625,36 @@ public final class ImmutableMultimapTree<T> extends AbstractMultimapTree<T> impl
   }
 
   /**
-   * For each child of the specified node that <em>isn't the excluded node</em>, it adds a new association for the specified
-   * node and its child in the parent-children and child-parent builders and then invokes this method again passing the child as
-   * the specified node, propagating all other arguments.
+   * Adds the associations of the subtree of the specified node to the parent-children and child-parent builders, in
+   * pre-order, skipping the excluded nodes and all of their children.
    * <p/>
-   * The effect of this is that, after the recursion, the builders hold all the associations of this tree, except the exclude
-   * node and all of its children.
+   * The subtree is walked with an explicit stack of the iterators over the children of the nodes being walked, so it supports
+   * trees of any depth.
    *
    * @param node a node
-   * @param excludeNode the excluded node
+   * @param excludeNodes the excluded nodes
    * @param childrenBuilder a builder of parent-child associations
    * @param parentsBuilder a builder of the child-parent associations
    */
-  private void addRecursivelyExcludingNode(final T node, final T excludeNode,
-                                           final ImmutableSetMultimap.Builder<T, T> childrenBuilder,
-                                           final ImmutableMap.Builder<T, T> parentsBuilder) {
-    final Collection<T> nodeChildren = getChildren(node);
-    for (final T child : nodeChildren) {
-      if (!child.equals(excludeNode)) {
-        addInternal(node, child, childrenBuilder, parentsBuilder);
-        addRecursivelyExcludingNode(child, excludeNode, childrenBuilder, parentsBuilder);
+  private void addExcludingNodes(final T node, final Set<T> excludeNodes,
+                                 final ImmutableSetMultimap.Builder<T, T> childrenBuilder,
+                                 final ImmutableMap.Builder<T, T> parentsBuilder) {
+    final Deque<T> parents = new ArrayDeque<T>();
+    final Deque<Iterator<T>> stack = new ArrayDeque<Iterator<T>>();
+    parents.push(node);
+    stack.push(getChildren(node).iterator());
+    while (!stack.isEmpty()) {
+      final Iterator<T> nodeChildren = stack.peek();
+      if (nodeChildren.hasNext()) {
+        final T child = nodeChildren.next();
+        if (!excludeNodes.contains(child)) {
+          addInternal(parents.peek(), child, childrenBuilder, parentsBuilder);
+          parents.push(child);
+          stack.push(getChildren(child).iterator());
+        }
+      } else {
+        parents.pop();
+        stack.pop();
       }
     }
   }
@@ -1,5 +1,7 @@
 package org.dapacode.tree4j;
 
+import java.util.Map;
+
 /**
  * An extension of the {@link Tree} interface with methods for returning modified copies of the tree. It also specifies
  * immutability, and, as such it, <strong>no</strong> subclasses or sub-interface may define or implement methods that change
@@ -38,4 +40,53 @@ public interface ImmutableTree<T> extends Tree<T> {
    * @throws IllegalArgumentException if the specified node isn't contained in the tree
    */
   ImmutableTree<T> removed(T node);
+
+  /**
+   * Creates a copy of this tree with the specified node, along with all of its children nodes, moved to another parent node,
+   * unless the new parent node already is the parent of the node, in which case it returns itself.
+   *
+   * @param node a node of the tree, which isn't the root
+   * @param newParent the new parent node, an existing node of the tree which is neither the specified node nor one of its
+   * descendants
+   * @return a modified copy of this tree with the node moved to the new parent node, or itself
+   * @throws IllegalArgumentException if either node isn't contained in the tree, if the node is the root or if the new parent
+   * node is the node or one of its descendants
+   */
+  ImmutableTree<T> moved(T node, T newParent);
+
+  /**
+   * Creates a copy of this tree with all the specified parent-child associations added to it, in order, as if by calling {@link
+   * #added(Object, Object)} for each of them, but without creating the intermediate copies of the tree.
+   *
+   * @param associations parent-child associations, where each parent node is either an existing node of the tree or the child
+   * node of a preceding association
+   * @return a modified copy of this tree containing the specified parent-child associations, or itself if it already contained
+   * all of them
+   * @throws IllegalArgumentException if a parent node isn't contained in the tree or a child node is already associated to
+   * another node
+   */
+  ImmutableTree<T> addedAll(Iterable<Map.Entry<T, T>> associations);
+
+  /**
+   * Creates a copy of this tree with all the nodes of the specified tree added to it: its root becomes a child of the specified
+   * parent node, and its other nodes keep their parent. The nodes of the specified tree are checked once, and added without
+   * creating the intermediate copies of the tree.
+   *
+   * @param parent the parent node of the root of the specified tree, an existing node of the tree
+   * @param subtree a tree, none of whose nodes is contained in this tree
+   * @return a modified copy of this tree containing the nodes of the specified tree, or itself if the specified tree is empty
+   * @throws IllegalArgumentException if the specified parent node isn't contained in the tree or if a node of the specified
+   * tree is already contained in this tree
+   */
+  ImmutableTree<T> grafted(T parent, Tree<T> subtree);
+
+  /**
+   * Creates a copy of this tree with all the specified nodes and, recursively, all of their children nodes removed from it, as
+   * if by calling {@link #removed(Object)} for each of them, but without creating the intermediate copies of the tree. Nodes
+   * which aren't contained in the tree are ignored.
+   *
+   * @param nodes nodes of the tree
+   * @return a modified copy of this tree without the specified nodes and their children, or itself if it contains none of them
+   */
+  ImmutableTree<T> removedAll(Iterable<T> nodes);
 }
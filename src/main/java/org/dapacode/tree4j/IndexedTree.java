@@ -0,0 +1,245 @@
+package org.dapacode.tree4j;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * A mutable tree backed by another mutable tree, which maintains the size of the subtree and the depth of every node, so that
+ * {@link #getSubtreeSize(Object)} and {@link #getDepth(Object)} are O(1). The number of nodes at each depth is counted too,
+ * so that {@link #getMaxDepth()} is O(1).
+ * <p/>
+ * Adding a node updates the subtree sizes of its ancestors, and removing a node updates them and forgets the nodes of its
+ * subtree, so the modifications cost an extra O(depth) and O(depth + size of the subtree), respectively. Adding a whole subtree
+ * indexes it and updates the subtree sizes of the ancestors once. Moving a node updates the subtree sizes of its previous and
+ * new ancestors, and the depths of its subtree unless its depth is unchanged. The index is kept in one record per node, linked
+ * to the record of its parent, so the ancestors are updated without looking them up.
+ * <p/>
+ * The backing tree must only be modified through this tree.
+ *
+ * @param <T> the type of the nodes in the tree
+ * @see Trees#indexedTree(MutableTree)
+ */
+public final class IndexedTree<T> extends DelegatingMutableTree<T> {
+  /** The number of depths whose nodes are counted initially. */
+  private static final int INITIAL_LEVELS = 16;
+
+  private final MutableTree<T> delegate;
+
+  /** The index records, by node. */
+  private final Map<T, Counts> index;
+
+  /** The number of nodes at each depth, by depth, which may be followed by zeros. */
+  private int[] levelSizes = new int[INITIAL_LEVELS];
+
+  /** The depth of the deepest node, {@code -1} if the tree is empty. */
+  private int maxDepth = -1;
+
+  IndexedTree(final MutableTree<T> delegate) {
+    this.delegate = checkNotNull(delegate);
+    this.index = Maps.newHashMapWithExpectedSize(delegate.size());
+    final T root = delegate.getRoot();
+    if (root != null) {
+      indexSubtree(root);
+    }
+  }
+
+  /**
+   * Indexes the nodes of the subtree of the specified node, whose parent, if any, is already indexed, without updating the
+   * subtree sizes of its ancestors.
+   *
+   * @return the index record of the node
+   */
+  private Counts indexSubtree(final T node) {
+    for (final T descendant : Trees.getNodesPreOrder(delegate, node)) {
+      final T parent = delegate.getParent(descendant);
+      final Counts descendantCounts = new Counts(parent == null ? null : index.get(parent));
+      index.put(descendant, descendantCounts);
+      countDepth(descendantCounts.depth);
+    }
+    final Counts counts = index.get(node);
+    for (final T descendant : Trees.getNodesPostOrder(delegate, node)) {
+      final Counts descendantCounts = index.get(descendant);
+      if (descendantCounts != counts) {
+        descendantCounts.parent.subtreeSize += descendantCounts.subtreeSize;
+      }
+    }
+    return counts;
+  }
+
+  @Override
+  protected MutableTree<T> delegate() {
+    return delegate;
+  }
+
+  /**
+   * Returns the number of nodes in the subtree whose root is the specified node, the node itself included: one more than the
+   * number of its descendants.
+   *
+   * @param node a node of the tree
+   * @return the size of the subtree of the specified node
+   * @throws IllegalArgumentException if the specified node isn't contained in the tree
+   */
+  public int getSubtreeSize(final T node) {
+    return counts(node).subtreeSize;
+  }
+
+  /**
+   * Returns the depth of the specified node: the number of associations between the root and the node, zero for the root.
+   *
+   * @param node a node of the tree
+   * @return the depth of the specified node
+   * @throws IllegalArgumentException if the specified node isn't contained in the tree
+   */
+  public int getDepth(final T node) {
+    return counts(node).depth;
+  }
+
+  /**
+   * Returns the depth of the deepest node of the tree.
+   *
+   * @return the maximum depth of the tree, or {@code -1} if the tree is empty
+   */
+  public int getMaxDepth() {
+    return maxDepth;
+  }
+
+  /** Counts a node indexed at the specified depth. */
+  private void countDepth(final int depth) {
+    if (depth == levelSizes.length) {
+      levelSizes = Arrays.copyOf(levelSizes, 2 * levelSizes.length);
+    }
+    levelSizes[depth]++;
+    maxDepth = Math.max(maxDepth, depth);
+  }
+
+  /** Stops counting a node which was indexed at the specified depth. */
+  private void uncountDepth(final int depth) {
+    levelSizes[depth]--;
+    while (maxDepth >= 0 && levelSizes[maxDepth] == 0) {
+      maxDepth--;
+    }
+  }
+
+  /** Forgets all the nodes of the index. */
+  private void clearIndex() {
+    index.clear();
+    Arrays.fill(levelSizes, 0);
+    maxDepth = -1;
+  }
+
+  private Counts counts(final T node) {
+    checkNotNull(node);
+    final Counts counts = index.get(node);
+    checkArgument(counts != null, "The tree doesn't contain the specified node: %s", node);
+    return counts;
+  }
+
+  @Override
+  public boolean setRoot(final T node) {
+    final boolean changed = delegate.setRoot(node);
+    if (changed) {
+      clearIndex();
+      index.put(node, new Counts(null));
+      countDepth(0);
+    }
+    return changed;
+  }
+
+  @Override
+  public boolean add(final T parent, final T child) {
+    final boolean changed = delegate.add(parent, child);
+    if (changed) {
+      final Counts counts = new Counts(index.get(parent));
+      index.put(child, counts);
+      countDepth(counts.depth);
+      for (Counts ancestor = counts.parent; ancestor != null; ancestor = ancestor.parent) {
+        ancestor.subtreeSize++;
+      }
+    }
+    return changed;
+  }
+
+  @Override
+  public boolean move(final T node, final T newParent) {
+    final boolean changed = delegate.move(node, newParent);
+    if (changed) {
+      final Counts counts = index.get(node);
+      for (Counts ancestor = counts.parent; ancestor != null; ancestor = ancestor.parent) {
+        ancestor.subtreeSize -= counts.subtreeSize;
+      }
+      counts.parent = index.get(newParent);
+      for (Counts ancestor = counts.parent; ancestor != null; ancestor = ancestor.parent) {
+        ancestor.subtreeSize += counts.subtreeSize;
+      }
+
+      final int depthDelta = counts.parent.depth + 1 - counts.depth;
+      if (depthDelta != 0) {
+        for (final T descendant : Trees.getNodesPreOrder(delegate, node)) {
+          final Counts descendantCounts = index.get(descendant);
+          uncountDepth(descendantCounts.depth);
+          descendantCounts.depth += depthDelta;
+          countDepth(descendantCounts.depth);
+        }
+      }
+    }
+    return changed;
+  }
+
+  @Override
+  public boolean addAll(final T parent, final Tree<T> subtree) {
+    final boolean changed = delegate.addAll(parent, subtree);
+    if (changed) {
+      final Counts counts = indexSubtree(subtree.getRoot());
+      for (Counts ancestor = counts.parent; ancestor != null; ancestor = ancestor.parent) {
+        ancestor.subtreeSize += counts.subtreeSize;
+      }
+    }
+    return changed;
+  }
+
+  @Override
+  public void clear() {
+    delegate.clear();
+    clearIndex();
+  }
+
+  @Override
+  public boolean remove(final T node) {
+    final Counts counts = counts(node);
+    final List<T> subtree = Lists.newArrayList(Trees.getNodesPreOrder(delegate, node));
+
+    final boolean changed = delegate.remove(node);
+    if (changed) {
+      for (Counts ancestor = counts.parent; ancestor != null; ancestor = ancestor.parent) {
+        ancestor.subtreeSize -= counts.subtreeSize;
+      }
+      for (final T removed : subtree) {
+        uncountDepth(index.remove(removed).depth);
+      }
+    }
+    return changed;
+  }
+
+  /** The index record of a node. */
+  private static final class Counts {
+    /** The record of the parent of the node, or {@code null} for the root. */
+    @Nullable
+    private Counts parent;
+
+    private int depth;
+
+    private int subtreeSize = 1;
+
+    Counts(@Nullable final Counts parent) {
+      this.parent = parent;
+      this.depth = parent == null ? 0 : parent.depth + 1;
+    }
+  }
+}
@@ -0,0 +1,170 @@
+package org.dapacode.tree4j;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * A mutable tree backed by another mutable tree, which records the number of calls, the number of failed calls and the
+ * latencies of its operations, modifications included, in its {@link TreeMetrics metrics}. The maximum depth gauge is cached
+ * between modifications, so the backing tree must only be modified through this tree.
+ *
+ * @param <T> the type of the nodes in the tree
+ * @see Trees#instrumentedMutableTree(MutableTree)
+ * @see InstrumentedTree
+ */
+public final class InstrumentedMutableTree<T> extends DelegatingMutableTree<T> {
+  private final MutableTree<T> delegate;
+
+  private final TreeMetrics metrics;
+
+  /** The instrumented reads of the backing tree, recorded in the same metrics. */
+  private final InstrumentedTree<T> reads;
+
+  InstrumentedMutableTree(final MutableTree<T> delegate) {
+    this.delegate = checkNotNull(delegate);
+    this.metrics = new TreeMetrics(delegate, true);
+    this.reads = new InstrumentedTree<T>(delegate, metrics);
+  }
+
+  @Override
+  protected MutableTree<T> delegate() {
+    return delegate;
+  }
+
+  /**
+   * Returns the metrics of this tree.
+   *
+   * @return the metrics of this tree
+   */
+  public TreeMetrics getMetrics() {
+    return metrics;
+  }
+
+  @Override
+  public int size() {
+    return reads.size();
+  }
+
+  @Override
+  public boolean contains(final T node) {
+    return reads.contains(node);
+  }
+
+  @Override
+  public T getParent(final T node) {
+    return reads.getParent(node);
+  }
+
+  @Override
+  public Collection<T> getChildren(final T node) {
+    return reads.getChildren(node);
+  }
+
+  @Override
+  @Nullable
+  public T getRoot() {
+    return reads.getRoot();
+  }
+
+  @Override
+  public Iterator<Map.Entry<T, T>> iterator() {
+    return reads.iterator();
+  }
+
+  @Override
+  public boolean setRoot(final T node) {
+    final long start = TreeMetrics.start();
+    try {
+      final boolean changed = delegate.setRoot(node);
+      if (changed) {
+        metrics.modified();
+      }
+      metrics.succeeded(TreeMetrics.Operation.SET_ROOT, start);
+      return changed;
+    } catch (RuntimeException e) {
+      metrics.failed(TreeMetrics.Operation.SET_ROOT, start);
+      throw e;
+    }
+  }
+
+  @Override
+  public boolean add(final T parent, final T child) {
+    final long start = TreeMetrics.start();
+    try {
+      final boolean changed = delegate.add(parent, child);
+      if (changed) {
+        metrics.modified();
+      }
+      metrics.succeeded(TreeMetrics.Operation.ADD, start);
+      return changed;
+    } catch (RuntimeException e) {
+      metrics.failed(TreeMetrics.Operation.ADD, start);
+      throw e;
+    }
+  }
+
+  @Override
+  public boolean move(final T node, final T newParent) {
+    final long start = TreeMetrics.start();
+    try {
+      final boolean changed = delegate.move(node, newParent);
+      if (changed) {
+        metrics.modified();
+      }
+      metrics.succeeded(TreeMetrics.Operation.MOVE, start);
+      return changed;
+    } catch (RuntimeException e) {
+      metrics.failed(TreeMetrics.Operation.MOVE, start);
+      throw e;
+    }
+  }
+
+  @Override
+  public boolean addAll(final T parent, final Tree<T> subtree) {
+    final long start = TreeMetrics.start();
+    try {
+      final boolean changed = delegate.addAll(parent, subtree);
+      if (changed) {
+        metrics.modified();
+      }
+      metrics.succeeded(TreeMetrics.Operation.ADD_ALL, start);
+      return changed;
+    } catch (RuntimeException e) {
+      metrics.failed(TreeMetrics.Operation.ADD_ALL, start);
+      throw e;
+    }
+  }
+
+  @Override
+  public void clear() {
+    final long start = TreeMetrics.start();
+    try {
+      delegate.clear();
+      metrics.modified();
+      metrics.succeeded(TreeMetrics.Operation.CLEAR, start);
+    } catch (RuntimeException e) {
+      metrics.failed(TreeMetrics.Operation.CLEAR, start);
+      throw e;
+    }
+  }
+
+  @Override
+  public boolean remove(final T node) {
+    final long start = TreeMetrics.start();
+    try {
+      final boolean changed = delegate.remove(node);
+      if (changed) {
+        metrics.modified();
+      }
+      metrics.succeeded(TreeMetrics.Operation.REMOVE, start);
+      return changed;
+    } catch (RuntimeException e) {
+      metrics.failed(TreeMetrics.Operation.REMOVE, start);
+      throw e;
+    }
+  }
+}
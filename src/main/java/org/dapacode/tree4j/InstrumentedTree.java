@@ -0,0 +1,125 @@
+package org.dapacode.tree4j;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * A tree backed by another tree, which records the number of calls, the number of failed calls and the latencies of its
+ * operations in its {@link TreeMetrics metrics}. Creating an iterator is recorded, but not iterating.
+ *
+ * @param <T> the type of the nodes in the tree
+ * @see Trees#instrumentedTree(Tree)
+ * @see InstrumentedMutableTree
+ */
+public final class InstrumentedTree<T> extends DelegatingTree<T> {
+  private final Tree<T> delegate;
+
+  private final TreeMetrics metrics;
+
+  InstrumentedTree(final Tree<T> delegate) {
+    this(delegate, new TreeMetrics(delegate, delegate instanceof ImmutableTree || delegate instanceof FrozenTree));
+  }
+
+  /** Creates a tree recording its reads in the specified metrics, which an instrumented mutable tree shares. */
+  InstrumentedTree(final Tree<T> delegate, final TreeMetrics metrics) {
+    this.delegate = checkNotNull(delegate);
+    this.metrics = checkNotNull(metrics);
+  }
+
+  @Override
+  protected Tree<T> delegate() {
+    return delegate;
+  }
+
+  /**
+   * Returns the metrics of this tree.
+   *
+   * @return the metrics of this tree
+   */
+  public TreeMetrics getMetrics() {
+    return metrics;
+  }
+
+  @Override
+  public int size() {
+    final long start = TreeMetrics.start();
+    try {
+      final int size = delegate.size();
+      metrics.succeeded(TreeMetrics.Operation.SIZE, start);
+      return size;
+    } catch (RuntimeException e) {
+      metrics.failed(TreeMetrics.Operation.SIZE, start);
+      throw e;
+    }
+  }
+
+  @Override
+  public boolean contains(final T node) {
+    final long start = TreeMetrics.start();
+    try {
+      final boolean contains = delegate.contains(node);
+      metrics.succeeded(TreeMetrics.Operation.CONTAINS, start);
+      return contains;
+    } catch (RuntimeException e) {
+      metrics.failed(TreeMetrics.Operation.CONTAINS, start);
+      throw e;
+    }
+  }
+
+  @Override
+  public T getParent(final T node) {
+    final long start = TreeMetrics.start();
+    try {
+      final T parent = delegate.getParent(node);
+      metrics.succeeded(TreeMetrics.Operation.GET_PARENT, start);
+      return parent;
+    } catch (RuntimeException e) {
+      metrics.failed(TreeMetrics.Operation.GET_PARENT, start);
+      throw e;
+    }
+  }
+
+  @Override
+  public Collection<T> getChildren(final T node) {
+    final long start = TreeMetrics.start();
+    try {
+      final Collection<T> children = delegate.getChildren(node);
+      metrics.succeeded(TreeMetrics.Operation.GET_CHILDREN, start);
+      return children;
+    } catch (RuntimeException e) {
+      metrics.failed(TreeMetrics.Operation.GET_CHILDREN, start);
+      throw e;
+    }
+  }
+
+  @Override
+  @Nullable
+  public T getRoot() {
+    final long start = TreeMetrics.start();
+    try {
+      final T root = delegate.getRoot();
+      metrics.succeeded(TreeMetrics.Operation.GET_ROOT, start);
+      return root;
+    } catch (RuntimeException e) {
+      metrics.failed(TreeMetrics.Operation.GET_ROOT, start);
+      throw e;
+    }
+  }
+
+  @Override
+  public Iterator<Map.Entry<T, T>> iterator() {
+    final long start = TreeMetrics.start();
+    try {
+      final Iterator<Map.Entry<T, T>> iterator = delegate.iterator();
+      metrics.succeeded(TreeMetrics.Operation.ITERATOR, start);
+      return iterator;
+    } catch (RuntimeException e) {
+      metrics.failed(TreeMetrics.Operation.ITERATOR, start);
+      throw e;
+    }
+  }
+}
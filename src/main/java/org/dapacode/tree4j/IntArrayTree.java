@@ -0,0 +1,311 @@
+package org.dapacode.tree4j;
+
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * A {@link MutableIntTree} implementation which stores the links between the nodes in parallel, growable, {@code int} arrays
+ * indexed by node, costing 24 bytes per node id up to the highest id in the tree. The children of a node are kept in a doubly
+ * linked list, in insertion order, so adding and unlinking a node are O(1), and moving a node is O(depth), to check that the
+ * new parent doesn't descend from it.
+ * <p/>
+ * As the arrays are indexed by node, this implementation is meant for dense ids: the memory used is proportional to the highest
+ * node id rather than to the number of nodes.
+ */
+public final class IntArrayTree implements MutableIntTree {
+  private static final int DEFAULT_CAPACITY = 16;
+
+  /** The parent of each node, {@link #NO_NODE} for the root and for the ids which aren't nodes of the tree. */
+  private int[] parent;
+
+  private int[] firstChild;
+  private int[] lastChild;
+  private int[] nextSibling;
+  private int[] prevSibling;
+  private int[] childCount;
+
+  private int root = NO_NODE;
+  private int size;
+
+  /** One more than the highest id which was ever added since the last clear, the range of the arrays in use. */
+  private int used;
+
+  private IntArrayTree(final int capacity) {
+    parent = newLinks(capacity);
+    firstChild = newLinks(capacity);
+    lastChild = newLinks(capacity);
+    nextSibling = newLinks(capacity);
+    prevSibling = newLinks(capacity);
+    childCount = new int[capacity];
+  }
+
+  /**
+   * Creates a new, empty, int array tree.
+   *
+   * @return a new int array tree
+   */
+  public static IntArrayTree create() {
+    return new IntArrayTree(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates a new, empty, int array tree with room for the node ids below the specified capacity without growing its arrays.
+   *
+   * @param expectedMaxId the highest node id expected, plus one
+   * @return a new int array tree
+   */
+  public static IntArrayTree createWithExpectedMaxId(final int expectedMaxId) {
+    checkArgument(expectedMaxId >= 0, "The expected maximum id is negative: %s", expectedMaxId);
+    return new IntArrayTree(expectedMaxId);
+  }
+
+  /**
+   * Creates a copy of the specified tree.
+   *
+   * @param tree an int tree
+   * @return a new copy of the specified tree
+   */
+  public static IntArrayTree copyOf(final IntTree tree) {
+    checkNotNull(tree);
+
+    if (tree instanceof IntArrayTree) { // Optimisation
+      final IntArrayTree original = (IntArrayTree) tree;
+      final IntArrayTree copy = new IntArrayTree(0);
+      copy.parent = Arrays.copyOf(original.parent, original.used);
+      copy.firstChild = Arrays.copyOf(original.firstChild, original.used);
+      copy.lastChild = Arrays.copyOf(original.lastChild, original.used);
+      copy.nextSibling = Arrays.copyOf(original.nextSibling, original.used);
+      copy.prevSibling = Arrays.copyOf(original.prevSibling, original.used);
+      copy.childCount = Arrays.copyOf(original.childCount, original.used);
+      copy.root = original.root;
+      copy.size = original.size;
+      copy.used = original.used;
+      return copy;
+    }
+
+    final IntArrayTree copy = create();
+    final int treeRoot = tree.getRoot();
+    if (treeRoot != NO_NODE) {
+      copy.setRoot(treeRoot);
+      for (int node = IntTrees.nextPreOrder(tree, treeRoot, treeRoot); node != NO_NODE;
+           node = IntTrees.nextPreOrder(tree, node, treeRoot)) {
+        copy.add(tree.getParent(node), node);
+      }
+    }
+    return copy;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean contains(final int node) {
+    return node >= 0 && (node == root || node < used && parent[node] != NO_NODE);
+  }
+
+  @Override
+  public int getParent(final int node) {
+    checkContains(node);
+    return parent[node];
+  }
+
+  @Override
+  public int getFirstChild(final int node) {
+    checkContains(node);
+    return firstChild[node];
+  }
+
+  @Override
+  public int getNextSibling(final int node) {
+    checkContains(node);
+    return nextSibling[node];
+  }
+
+  @Override
+  public int getChildCount(final int node) {
+    checkContains(node);
+    return childCount[node];
+  }
+
+  @Override
+  public int[] getChildren(final int node) {
+    checkContains(node);
+    final int[] children = new int[childCount[node]];
+    int i = 0;
+    for (int child = firstChild[node]; child != NO_NODE; child = nextSibling[child]) {
+      children[i++] = child;
+    }
+    return children;
+  }
+
+  @Override
+  public int getRoot() {
+    return root;
+  }
+
+  @Override
+  public boolean setRoot(final int node) {
+    checkArgument(node >= 0, "The node is negative: %s", node);
+    if (node == root) {
+      return false;
+    } else {
+      // clear first, then set the root, otherwise the root is cleared too
+      clear();
+      ensureCapacity(node);
+      root = node;
+      size = 1;
+      return true;
+    }
+  }
+
+  @Override
+  public boolean add(final int parentNode, final int child) {
+    checkArgument(contains(parentNode), "The tree doesn't contain the specified parent node: %s", parentNode);
+    checkArgument(child >= 0, "The child node is negative: %s", child);
+
+    if (contains(child)) {
+      checkArgument(parent[child] == parentNode, "The child node (%s) is already associated to another node", child);
+      return false;
+    }
+
+    ensureCapacity(child);
+    link(parentNode, child);
+    size++;
+
+    return true;
+  }
+
+  @Override
+  public boolean move(final int node, final int newParent) {
+    checkContains(node);
+    checkArgument(contains(newParent), "The tree doesn't contain the specified parent node: %s", newParent);
+    checkArgument(node != root, "The root node can't be moved: %s", node);
+
+    if (parent[node] == newParent) {
+      return false;
+    }
+    for (int ancestor = newParent; ancestor != NO_NODE; ancestor = parent[ancestor]) {
+      checkArgument(ancestor != node, "The node (%s) can't be moved under itself or its descendant: %s", node, newParent);
+    }
+
+    unlink(node);
+    link(newParent, node);
+    return true;
+  }
+
+  /** Links the specified child after the last child of the specified parent. */
+  private void link(final int parentNode, final int child) {
+    parent[child] = parentNode;
+    final int last = lastChild[parentNode];
+    if (last == NO_NODE) {
+      firstChild[parentNode] = child;
+    } else {
+      nextSibling[last] = child;
+      prevSibling[child] = last;
+    }
+    lastChild[parentNode] = child;
+    childCount[parentNode]++;
+  }
+
+  /** Unlinks the specified node from its parent and siblings, leaving its children linked to it. */
+  private void unlink(final int node) {
+    final int nodeParent = parent[node];
+    final int prev = prevSibling[node];
+    final int next = nextSibling[node];
+    if (prev == NO_NODE) {
+      firstChild[nodeParent] = next;
+    } else {
+      nextSibling[prev] = next;
+    }
+    if (next == NO_NODE) {
+      lastChild[nodeParent] = prev;
+    } else {
+      prevSibling[next] = prev;
+    }
+    childCount[nodeParent]--;
+    parent[node] = NO_NODE;
+    prevSibling[node] = NO_NODE;
+    nextSibling[node] = NO_NODE;
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(parent, 0, used, NO_NODE);
+    Arrays.fill(firstChild, 0, used, NO_NODE);
+    Arrays.fill(lastChild, 0, used, NO_NODE);
+    Arrays.fill(nextSibling, 0, used, NO_NODE);
+    Arrays.fill(prevSibling, 0, used, NO_NODE);
+    Arrays.fill(childCount, 0, used, 0);
+    root = NO_NODE;
+    size = 0;
+    used = 0;
+  }
+
+  @Override
+  public boolean remove(final int node) {
+    checkContains(node);
+
+    if (node == root) { // optimisation
+      clear();
+      return true;
+    }
+
+    unlink(node);
+
+    // Reset the subtree, without allocating: descend through the first child, detaching it, until a leaf is reached, reset the
+    // leaf and climb back to its parent.
+    int current = node;
+    while (true) {
+      final int child = firstChild[current];
+      if (child == NO_NODE) {
+        final int currentParent = parent[current];
+        parent[current] = NO_NODE;
+        lastChild[current] = NO_NODE;
+        nextSibling[current] = NO_NODE;
+        prevSibling[current] = NO_NODE;
+        childCount[current] = 0;
+        size--;
+        if (current == node) {
+          return true;
+        }
+        current = currentParent;
+      } else {
+        firstChild[current] = nextSibling[child];
+        current = child;
+      }
+    }
+  }
+
+  private void checkContains(final int node) {
+    checkArgument(contains(node), "The tree doesn't contain the specified node: %s", node);
+  }
+
+  private void ensureCapacity(final int node) {
+    if (node >= parent.length) {
+      final int oldLength = parent.length;
+      final int newLength = Math.max(node + 1, oldLength + (oldLength >> 1));
+      parent = grow(parent, newLength, NO_NODE);
+      firstChild = grow(firstChild, newLength, NO_NODE);
+      lastChild = grow(lastChild, newLength, NO_NODE);
+      nextSibling = grow(nextSibling, newLength, NO_NODE);
+      prevSibling = grow(prevSibling, newLength, NO_NODE);
+      childCount = grow(childCount, newLength, 0);
+    }
+    used = Math.max(used, node + 1);
+  }
+
+  private static int[] newLinks(final int capacity) {
+    final int[] links = new int[capacity];
+    Arrays.fill(links, NO_NODE);
+    return links;
+  }
+
+  private static int[] grow(final int[] array, final int newLength, final int fill) {
+    final int[] newArray = Arrays.copyOf(array, newLength);
+    Arrays.fill(newArray, array.length, newLength, fill);
+    return newArray;
+  }
+}
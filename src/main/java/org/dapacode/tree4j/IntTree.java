@@ -0,0 +1,89 @@
+package org.dapacode.tree4j;
+
+/**
+ * A primitive specialisation of the {@link Tree} interface, for trees whose nodes are dense, non-negative, integer ids.
+ * <p/>
+ * The children of a node are navigated with the {@link #getFirstChild(int)} and {@link #getNextSibling(int)} cursor methods,
+ * which, like all the other methods of this interface except {@link #getChildren(int)}, allocate nothing:
+ * <pre>
+ *   for (int child = tree.getFirstChild(node); child != IntTree.NO_NODE; child = tree.getNextSibling(child)) {
+ *     ...
+ *   }
+ * </pre>
+ * See {@link IntTrees} for allocation-free traversals and for adapters to the {@link Tree} interface.
+ *
+ * @see MutableIntTree
+ * @see IntTrees
+ */
+public interface IntTree {
+  /** The value returned in place of a node when there is no such node, for example by {@link #getRoot()} on an empty tree. */
+  int NO_NODE = -1;
+
+  /**
+   * Returns the number of nodes in the tree.
+   *
+   * @return the number of nodes in the tree
+   */
+  int size();
+
+  /**
+   * Tests whether the specified node is in the tree.
+   *
+   * @param node a node
+   * @return {@code true} if the tree contains the specified node
+   */
+  boolean contains(int node);
+
+  /**
+   * Retrieves the parent of the specified node.
+   *
+   * @param node a node of the tree
+   * @return the parent of the specified node, or {@link #NO_NODE} if the node is the root
+   * @throws IllegalArgumentException if the specified node isn't contained in the tree
+   */
+  int getParent(int node);
+
+  /**
+   * Retrieves the first child of the specified node.
+   *
+   * @param node a node of the tree
+   * @return the first child of the specified node, or {@link #NO_NODE} if it has no children
+   * @throws IllegalArgumentException if the specified node isn't contained in the tree
+   */
+  int getFirstChild(int node);
+
+  /**
+   * Retrieves the sibling following the specified node among the children of its parent.
+   *
+   * @param node a node of the tree
+   * @return the next sibling of the specified node, or {@link #NO_NODE} if it's the last child or the root
+   * @throws IllegalArgumentException if the specified node isn't contained in the tree
+   */
+  int getNextSibling(int node);
+
+  /**
+   * Returns the number of children of the specified node.
+   *
+   * @param node a node of the tree
+   * @return the number of children of the specified node
+   * @throws IllegalArgumentException if the specified node isn't contained in the tree
+   */
+  int getChildCount(int node);
+
+  /**
+   * Retrieves a copy of the children of the specified node, in the order of the {@link #getFirstChild(int)} and {@link
+   * #getNextSibling(int)} cursor.
+   *
+   * @param node a node of the tree
+   * @return a new array of the children nodes, empty if none found
+   * @throws IllegalArgumentException if the specified node isn't contained in the tree
+   */
+  int[] getChildren(int node);
+
+  /**
+   * Retrieves the root.
+   *
+   * @return the root, or {@link #NO_NODE} if no root is set
+   */
+  int getRoot();
+}
@@ -0,0 +1,205 @@
+package org.dapacode.tree4j;
+
+import com.google.common.collect.UnmodifiableIterator;
+
+import javax.annotation.Nullable;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static com.google.common.base.Preconditions.*;
+
+/** Static utility methods pertaining to {@link IntTree} instances. */
+public final class IntTrees {
+  private IntTrees() { /* Utility class */ }
+
+  /**
+   * Returns the node following the specified node in the pre-order traversal of a subtree. The traversal only follows the
+   * links of the nodes, so it allocates nothing and needs O(1) memory:
+   * <pre>
+   *   for (int node = subtreeRoot; node != IntTree.NO_NODE; node = IntTrees.nextPreOrder(tree, node, subtreeRoot)) {
+   *     ...
+   *   }
+   * </pre>
+   *
+   * @param tree an int tree
+   * @param node a node of the subtree
+   * @param subtreeRoot the root of the subtree being traversed
+   * @return the next node in pre-order, or {@link IntTree#NO_NODE} if the specified node is the last node of the subtree
+   */
+  public static int nextPreOrder(final IntTree tree, final int node, final int subtreeRoot) {
+    final int firstChild = tree.getFirstChild(node);
+    if (firstChild != IntTree.NO_NODE) {
+      return firstChild;
+    }
+    int current = node;
+    while (current != subtreeRoot) {
+      final int nextSibling = tree.getNextSibling(current);
+      if (nextSibling != IntTree.NO_NODE) {
+        return nextSibling;
+      }
+      current = tree.getParent(current);
+    }
+    return IntTree.NO_NODE;
+  }
+
+  /**
+   * Returns a {@link Tree} view of the specified int tree, which boxes the nodes as they are accessed. A {@code null} parent
+   * stands for {@link IntTree#NO_NODE}, as in the other tree implementations. The view is equal to any tree with the same
+   * structure.
+   *
+   * @param tree an int tree
+   * @return a tree view of the specified int tree
+   */
+  public static Tree<Integer> asTree(final IntTree tree) {
+    return new IntTreeAsTree<IntTree>(checkNotNull(tree));
+  }
+
+  /**
+   * Returns a {@link MutableTree} view of the specified mutable int tree, which writes through to it. See {@link
+   * #asTree(IntTree)} for details.
+   *
+   * @param tree a mutable int tree
+   * @return a mutable tree view of the specified mutable int tree
+   */
+  public static MutableTree<Integer> asMutableTree(final MutableIntTree tree) {
+    return new IntTreeAsMutableTree(checkNotNull(tree));
+  }
+
+  private static class IntTreeAsTree<I extends IntTree> implements Tree<Integer> {
+    final I tree;
+
+    IntTreeAsTree(final I tree) {
+      this.tree = tree;
+    }
+
+    @Override
+    public final int size() {
+      return tree.size();
+    }
+
+    @Override
+    public final boolean contains(final Integer node) {
+      return tree.contains(node);
+    }
+
+    @Override
+    @Nullable
+    public final Integer getParent(final Integer node) {
+      final int parent = tree.getParent(node);
+      return parent == IntTree.NO_NODE ? null : parent;
+    }
+
+    @Override
+    public final Collection<Integer> getChildren(final Integer node) {
+      checkArgument(tree.contains(node), "The tree doesn't contain the specified node: %s", node);
+      final int parent = node;
+      return new AbstractSet<Integer>() {
+        @Override
+        public Iterator<Integer> iterator() {
+          return new UnmodifiableIterator<Integer>() {
+            private int next = tree.getFirstChild(parent);
+
+            @Override
+            public boolean hasNext() {
+              return next != IntTree.NO_NODE;
+            }
+
+            @Override
+            public Integer next() {
+              if (next == IntTree.NO_NODE) {
+                throw new NoSuchElementException();
+              }
+              final int child = next;
+              next = tree.getNextSibling(child);
+              return child;
+            }
+          };
+        }
+
+        @Override
+        public int size() {
+          return tree.getChildCount(parent);
+        }
+
+        @Override
+        public boolean contains(final Object o) {
+          return o instanceof Integer && tree.contains((Integer) o) && tree.getParent((Integer) o) == parent;
+        }
+      };
+    }
+
+    @Override
+    @Nullable
+    public final Integer getRoot() {
+      final int root = tree.getRoot();
+      return root == IntTree.NO_NODE ? null : root;
+    }
+
+    @Override
+    public final Iterator<Map.Entry<Integer, Integer>> iterator() {
+      return Trees.getAssociationsPreOrder(this).iterator();
+    }
+
+    @Override
+    public final boolean equals(final Object obj) {
+      return this == obj || obj instanceof Tree && Trees.deepEquals(this, (Tree<?>) obj);
+    }
+
+    @Override
+    public final int hashCode() {
+      return Trees.hashCode(this);
+    }
+  }
+
+  private static final class IntTreeAsMutableTree extends IntTreeAsTree<MutableIntTree> implements MutableTree<Integer> {
+    IntTreeAsMutableTree(final MutableIntTree tree) {
+      super(tree);
+    }
+
+    @Override
+    public boolean setRoot(final Integer node) {
+      return tree.setRoot(node);
+    }
+
+    @Override
+    public boolean add(final Integer parent, final Integer child) {
+      return tree.add(parent, child);
+    }
+
+    @Override
+    public boolean move(final Integer node, final Integer newParent) {
+      return tree.move(node, newParent);
+    }
+
+    @Override
+    public boolean addAll(final Integer parent, final Tree<Integer> subtree) {
+      final Integer subtreeRoot = Trees.checkGraftable(this, parent, subtree);
+      if (subtreeRoot == null) {
+        return false;
+      }
+      // The int tree would only reject a negative node once its ancestors are added, leaving the tree partially modified
+      for (final Integer node : Trees.getNodesPreOrder(subtree, subtreeRoot)) {
+        checkArgument(node >= 0, "The node (%s) of the subtree is negative", node);
+      }
+
+      tree.add(parent, subtreeRoot);
+      for (final Map.Entry<Integer, Integer> association : Trees.getAssociationsPreOrder(subtree, subtreeRoot)) {
+        tree.add(association.getKey(), association.getValue());
+      }
+      return true;
+    }
+
+    @Override
+    public void clear() {
+      tree.clear();
+    }
+
+    @Override
+    public boolean remove(final Integer node) {
+      return tree.remove(node);
+    }
+  }
+}
@@ -0,0 +1,346 @@
+package org.dapacode.tree4j;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * A thread-safe, read-only, {@link Tree} implementation which loads the children of a node on demand, for trees backed by a
+ * slow store and too large to be loaded at once.
+ * <p/>
+ * The children of a node are loaded the first time they are requested, by a loader function, and kept in a cache bounded to a
+ * maximum number of nodes, which evicts the nodes least recently used. The children of an evicted node are loaded again when
+ * they are requested next. When several threads request the children of the same node, they are loaded once, and the other
+ * threads wait for them. The loader must return the same children for a node every time it's called.
+ * <p/>
+ * The tree remembers the nodes it has reached from the root, the nodes whose parent's children were loaded, with their parent,
+ * even once the children of the parent are evicted, so that a traversal never loses the nodes it has yet to visit, whatever
+ * the size of the cache. {@link #contains(Object)}, {@link #getParent(Object)} and {@link #getChildren(Object)} find the
+ * reached nodes in O(1), and search for the other nodes breadth-first from the root, loading the children of the nodes on
+ * the way: finding a node not reached yet loads the levels of the tree above it, and looking up a node the tree doesn't
+ * contain loads the whole tree.
+ * <p/>
+ * <em>Remembering the parents costs one map entry per node reached, which the cache doesn't bound</em>: the memory used grows
+ * with the part of the tree traversed or searched, up to the whole tree for {@link #size()}, {@link #iterator()}, {@link
+ * #equals(Object)} and {@link #hashCode()}, which traverse, and so load, the whole tree. {@link #evictAll()} forgets the
+ * reached nodes along with the cached children, to release that memory.
+ * <p/>
+ * When the children of a node are loaded by {@link #getChildren(Object)}, the descendants of the node are prefetched
+ * asynchronously to the configured depth, if any, and {@link #prefetch(Object, int)} prefetches the descendants of a node
+ * explicitly.
+ *
+ * @param <T> the type of the nodes in the tree
+ */
+public final class LazyTree<T> implements Tree<T> {
+  /** The maximum number of nodes whose children are cached, by default. */
+  private static final long DEFAULT_MAXIMUM_SIZE = 10000;
+
+  private final T root;
+
+  private final Function<? super T, ? extends Iterable<? extends T>> loader;
+
+  private final long maximumSize;
+
+  /** The nodes reached so far, replaced as a whole by {@link #evictAll()}. */
+  private volatile Reached reached;
+
+  /** The number of levels of descendants prefetched when the children of a node are loaded on demand. */
+  private final int prefetchDepth;
+
+  private final Executor executor;
+
+  private LazyTree(final Builder<T> builder) {
+    this.root = builder.root;
+    this.loader = builder.loader;
+    this.maximumSize = builder.maximumSize;
+    this.prefetchDepth = builder.prefetchDepth;
+    this.executor = builder.executor;
+    this.reached = new Reached();
+  }
+
+  /**
+   * The nodes reached from the root: the cached children of the nodes loaded so far, and the parent of every child loaded,
+   * which is registered when its parent's children are loaded.
+   */
+  private final class Reached {
+    /** The children of the nodes loaded so far, by node, evicting the nodes least recently used. */
+    private final LoadingCache<T, Set<T>> children = CacheBuilder.newBuilder().maximumSize(maximumSize)
+        .build(new CacheLoader<T, Set<T>>() {
+          @Override
+          public Set<T> load(final T node) {
+            final Set<T> nodeChildren = ImmutableSet.copyOf(loader.apply(node));
+            for (final T child : nodeChildren) {
+              final T childParent = parents.putIfAbsent(child, node);
+              checkState(childParent == null || childParent.equals(node),
+                  "The child node (%s) of %s is already associated to another node: %s", child, node, childParent);
+            }
+            return nodeChildren;
+          }
+        });
+
+    /** The child-parent associations of the nodes reached so far, which are never evicted, one entry per node. */
+    private final ConcurrentMap<T, T> parents = new ConcurrentHashMap<T, T>();
+
+    boolean contains(final T node) {
+      return node.equals(root) || parents.containsKey(node);
+    }
+
+    /**
+     * Tests whether the specified node is in the tree, searching for it breadth-first from the root, loading the children of
+     * the nodes on the way, if it isn't reached yet.
+     */
+    boolean reach(final T node) {
+      if (contains(node)) {
+        return true;
+      }
+      final Deque<T> queue = new ArrayDeque<T>();
+      queue.add(root);
+      while (!queue.isEmpty()) {
+        for (final T child : load(queue.remove())) {
+          if (child.equals(node)) {
+            return true;
+          }
+          queue.add(child);
+        }
+      }
+      return false;
+    }
+
+    /** Loads the children of the specified node, or returns them if they are cached, propagating the failures of the loader. */
+    Set<T> load(final T node) {
+      try {
+        return children.getUnchecked(node);
+      } catch (UncheckedExecutionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * Creates a new lazy tree with the specified root, which loads the children of its nodes with the specified function, caches
+   * the children of up to 10000 nodes and prefetches nothing.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @param root the root node
+   * @param loader the function loading the children of a node
+   * @return a new lazy tree
+   */
+  public static <T> LazyTree<T> create(final T root, final Function<? super T, ? extends Iterable<? extends T>> loader) {
+    return LazyTree.<T>builder(root, loader).build();
+  }
+
+  /**
+   * Returns a new builder of a lazy tree with the specified root, which loads the children of its nodes with the specified
+   * function.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @param root the root node
+   * @param loader the function loading the children of a node
+   * @return a new builder
+   */
+  public static <T> Builder<T> builder(final T root, final Function<? super T, ? extends Iterable<? extends T>> loader) {
+    return new Builder<T>(root, loader);
+  }
+
+  /**
+   * A builder of lazy trees.
+   *
+   * @param <T> the type of the nodes in the tree
+   */
+  public static final class Builder<T> {
+    private final T root;
+
+    private final Function<? super T, ? extends Iterable<? extends T>> loader;
+
+    private long maximumSize = DEFAULT_MAXIMUM_SIZE;
+
+    private int prefetchDepth;
+
+    private Executor executor = ForkJoinPool.commonPool();
+
+    private Builder(final T root, final Function<? super T, ? extends Iterable<? extends T>> loader) {
+      this.root = checkNotNull(root);
+      this.loader = checkNotNull(loader);
+    }
+
+    /**
+     * Sets the maximum number of nodes whose children are cached, 10000 by default. The size of the cache doesn't bound the
+     * parents of the reached nodes, which the tree keeps until {@link #evictAll()}, one entry per node.
+     *
+     * @param size the maximum number of nodes
+     * @return this builder
+     * @throws IllegalArgumentException if the size is negative
+     */
+    public Builder<T> maximumSize(final long size) {
+      checkArgument(size >= 0, "The maximum size is negative: %s", size);
+      maximumSize = size;
+      return this;
+    }
+
+    /**
+     * Sets the number of levels of descendants prefetched when the children of a node are loaded on demand, none by default.
+     *
+     * @param depth the number of levels of descendants, {@code 1} to prefetch the children of the children of the node
+     * @return this builder
+     * @throws IllegalArgumentException if the depth is negative
+     */
+    public Builder<T> prefetchDepth(final int depth) {
+      checkArgument(depth >= 0, "The prefetch depth is negative: %s", depth);
+      prefetchDepth = depth;
+      return this;
+    }
+
+    /**
+     * Sets the executor which runs the prefetches, the common fork-join pool by default.
+     *
+     * @param prefetchExecutor an executor
+     * @return this builder
+     */
+    public Builder<T> executor(final Executor prefetchExecutor) {
+      executor = checkNotNull(prefetchExecutor);
+      return this;
+    }
+
+    /**
+     * Builds a new lazy tree with the settings of this builder.
+     *
+     * @return a new lazy tree
+     */
+    public LazyTree<T> build() {
+      return new LazyTree<T>(this);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * The whole tree is traversed, and so loaded.
+   */
+  @Override
+  public int size() {
+    return Trees.getNodesPreOrder(this).size();
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * The nodes reached so far are found in O(1). The other nodes are searched for from the root, loading the children of the
+   * nodes on the way, and the whole tree if the node isn't contained in the tree.
+   */
+  @Override
+  public boolean contains(final T node) {
+    checkNotNull(node);
+    return reached.reach(node);
+  }
+
+  @Override
+  public T getParent(final T node) {
+    checkNotNull(node);
+    final Reached currentReached = reached;
+    checkArgument(currentReached.reach(node), "The tree doesn't contain the specified node: %s", node);
+    return currentReached.parents.get(node);
+  }
+
+  @Override
+  public Set<T> getChildren(final T node) {
+    checkNotNull(node);
+    final Reached currentReached = reached;
+    checkArgument(currentReached.reach(node), "The tree doesn't contain the specified node: %s", node);
+    final boolean cached = currentReached.children.getIfPresent(node) != null;
+    final Set<T> nodeChildren = currentReached.load(node);
+    if (!cached && prefetchDepth > 0) {
+      prefetchLevels(currentReached, nodeChildren, prefetchDepth);
+    }
+    return nodeChildren;
+  }
+
+  @Override
+  public T getRoot() {
+    return root;
+  }
+
+  /**
+   * Loads the descendants of the specified node asynchronously, level by level, to the specified depth. The children of the
+   * nodes which are already cached aren't loaded again. Prefetching the siblings of a node is prefetching the descendants of
+   * its parent.
+   *
+   * @param node a node of the tree
+   * @param depth the number of levels of descendants to load, {@code 1} to load the children of the node
+   * @return a future completed once the descendants are loaded, or completed exceptionally if the loader fails
+   * @throws IllegalArgumentException if the specified node isn't contained in the tree or if the depth is negative
+   */
+  public CompletableFuture<Void> prefetch(final T node, final int depth) {
+    checkNotNull(node);
+    checkArgument(contains(node), "The tree doesn't contain the specified node: %s", node);
+    checkArgument(depth >= 0, "The prefetch depth is negative: %s", depth);
+    return prefetchLevels(reached, ImmutableList.of(node), depth);
+  }
+
+  /** Loads the descendants of the specified nodes asynchronously, the nodes themselves included, to the specified depth. */
+  private CompletableFuture<Void> prefetchLevels(final Reached into, final Collection<T> nodes, final int depth) {
+    return CompletableFuture.runAsync(new Runnable() {
+      @Override
+      public void run() {
+        Collection<T> level = nodes;
+        for (int i = 0; i < depth && !level.isEmpty(); i++) {
+          final ImmutableList.Builder<T> nextLevel = ImmutableList.builder();
+          for (final T node : level) {
+            nextLevel.addAll(into.load(node));
+          }
+          level = nextLevel.build();
+        }
+      }
+    }, executor);
+  }
+
+  /**
+   * Evicts the children of all the nodes from the cache, and forgets the nodes reached so far, releasing the memory they use.
+   * The tree then only knows its root, and the other nodes are reached again, and their children loaded again, as the tree is
+   * traversed or searched from the root: the nodes reached before are still contained in the tree, but finding them again
+   * loads the levels of the tree above them. The loads and prefetches in progress don't add their nodes back.
+   */
+  public void evictAll() {
+    reached = new Reached();
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * The associations are iterated in pre-order, loading the children of each node as it's reached.
+   */
+  @Override
+  public Iterator<Map.Entry<T, T>> iterator() {
+    return Trees.getAssociationsPreOrder(this).iterator();
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    return this == obj || obj instanceof Tree && Trees.deepEquals(this, (Tree<?>) obj);
+  }
+
+  @Override
+  public int hashCode() {
+    return Trees.hashCode(this);
+  }
+}
@@ -0,0 +1,419 @@
+package org.dapacode.tree4j;
+
+import com.google.common.base.Function;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
+
+import javax.annotation.Nullable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * A {@link MutableTree} and {@link OrderedTree} implementation which keeps the children of each node in a list, in the order in
+ * which they were added, unless {@link #add(Object, int, Object)} adds them at another position.
+ * <p/>
+ * The children of a node are kept in a tiered vector, so {@link #getChild(Object, int)} and {@link #indexOf(Object)} are O(1)
+ * whatever the number of children of the node, and adding or removing a child at a position is O(b + n / b) for a node with n
+ * children, where b is a block capacity of 1024 children. Adding a child at the end is O(1). The collections returned by {@link
+ * #getChildren(Object)} are unmodifiable set views of the children, in order.
+ *
+ * @param <T> the type of the nodes in the tree
+ */
+public final class ListTree<T> implements MutableTree<T>, OrderedTree<T> {
+  /** The nodes of the tree, root included, by value. */
+  private final Map<T, Node<T>> nodes = Maps.newLinkedHashMap();
+
+  /** The root of the tree. */
+  @Nullable
+  private Node<T> root;
+
+  /**
+   * The hash code of the parent-children associations, as defined by {@link AbstractMultimapTree}, maintained incrementally.
+   */
+  private int childrenHash;
+
+  /** The hash code of the child-parent associations, as defined by {@link AbstractMultimapTree}, maintained incrementally. */
+  private int parentsHash;
+
+  private ListTree() {}
+
+  /**
+   * Creates a new, empty, list tree.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @return a new list tree
+   */
+  public static <T> ListTree<T> create() {
+    return new ListTree<T>();
+  }
+
+  /**
+   * Creates a copy of the specified tree, by creating a new tree with a copy of the associations in the specified tree and the
+   * same root node. The children of each node are kept in the order in which the specified tree iterates over them.
+   *
+   * @param <T> the type of the nodes in the trees
+   * @param tree a tree
+   * @return a new copy of the specified tree
+   */
+  public static <T> ListTree<T> copyOf(final Tree<T> tree) {
+    checkNotNull(tree);
+
+    final ListTree<T> listTree = create();
+    final T root = tree.getRoot();
+    if (root != null) {
+      listTree.setRoot(root);
+    }
+
+    final Iterable<Map.Entry<T, T>> associations = Trees.getAssociationsPreOrder(tree);
+    for (final Map.Entry<T, T> association : associations) {
+      listTree.add(association.getKey(), association.getValue());
+    }
+
+    return listTree;
+  }
+
+  @Override
+  public int size() {
+    return nodes.size();
+  }
+
+  @Override
+  public boolean contains(final T node) {
+    checkNotNull(node);
+    return nodes.containsKey(node);
+  }
+
+  @Override
+  public T getParent(final T node) {
+    final Node<T> parent = getNode(node).parent;
+    return parent == null ? null : parent.value;
+  }
+
+  @Override
+  public Set<T> getChildren(final T node) {
+    return new Children<T>(nodes, getNode(node));
+  }
+
+  @Override
+  public T getChild(final T node, final int index) {
+    final Node<T> parentNode = getNode(node);
+    checkElementIndex(index, childCount(parentNode));
+    return parentNode.children.get(index).value;
+  }
+
+  @Override
+  public int indexOf(final T node) {
+    final Node<T> childNode = getNode(node);
+    return childNode.parent == null ? -1 : childNode.parent.children.indexOf(childNode);
+  }
+
+  @Override
+  @Nullable
+  public T getRoot() {
+    return root == null ? null : root.value;
+  }
+
+  @Override
+  public boolean setRoot(final T node) {
+    checkNotNull(node);
+    if (root != null && node.equals(root.value)) {
+      return false;
+    } else {
+      // clear first, then set the root, otherwise the root is cleared too
+      clear();
+      root = new Node<T>(node, null);
+      nodes.put(node, root);
+      return true;
+    }
+  }
+
+  @Override
+  public boolean add(final T parent, final T child) {
+    checkNotNull(parent);
+    checkNotNull(child);
+    final Node<T> parentNode = getParentNode(parent);
+    return add(parentNode, childCount(parentNode), child);
+  }
+
+  /**
+   * Adds a new parent/child association to the tree, with the child node at the specified position among the children of the
+   * parent node, shifting the children at or after that position.
+   *
+   * @param parent the parent node, an existing node of the tree
+   * @param index the position of the child node, from {@code 0} to the number of children of the parent node, inclusive
+   * @param child the child node, a node not already associated to another node, which isn't the specified parent node
+   * @return {@code true} if the tree was modified (new association was added), or {@code false} if the child node already was
+   * a child of the parent node, in which case it isn't moved
+   * @throws IllegalArgumentException if the specified parent node isn't contained in the tree
+   * @throws IndexOutOfBoundsException if the position is negative or greater than the number of children of the parent node
+   */
+  public boolean add(final T parent, final int index, final T child) {
+    checkNotNull(parent);
+    checkNotNull(child);
+    final Node<T> parentNode = getParentNode(parent);
+    checkPositionIndex(index, childCount(parentNode));
+    return add(parentNode, index, child);
+  }
+
+  private boolean add(final Node<T> parentNode, final int index, final T child) {
+    final Node<T> existing = nodes.get(child);
+    if (existing != null && existing.parent == parentNode) {
+      return false;
+    }
+
+    checkArgument(existing == null, "The child node (%s) is already associated to another node", child);
+
+    final Node<T> childNode = new Node<T>(child, parentNode);
+    attach(parentNode, index, childNode);
+    nodes.put(child, childNode);
+
+    return true;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * The root of the subtree is added after the last child of the parent node, and the children of the other nodes keep the
+   * order in which the subtree iterates over them. Once the nodes of the subtree are checked, they are added without checking
+   * them one by one.
+   */
+  @Override
+  public boolean addAll(final T parent, final Tree<T> subtree) {
+    final T subtreeRoot = Trees.checkGraftable(this, parent, subtree);
+    if (subtreeRoot == null) {
+      return false;
+    }
+
+    final Node<T> parentNode = nodes.get(parent);
+    addInternal(parentNode, subtreeRoot);
+    for (final Map.Entry<T, T> association : Trees.getAssociationsPreOrder(subtree, subtreeRoot)) {
+      addInternal(nodes.get(association.getKey()), association.getValue());
+    }
+
+    return true;
+  }
+
+  /** Adds a new parent/child association, which was checked, to the tree, after the last child of the parent node. */
+  private void addInternal(final Node<T> parentNode, final T child) {
+    final Node<T> childNode = new Node<T>(child, parentNode);
+    attach(parentNode, childCount(parentNode), childNode);
+    nodes.put(child, childNode);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * The node is moved after the last child of the new parent node. Only the ancestors of the new parent node are walked, so
+   * moving a node is O(depth), plus the cost of removing it from the children of its parent, whatever the size of its subtree.
+   */
+  @Override
+  public boolean move(final T node, final T newParent) {
+    final T parent = Trees.checkMovable(this, node, newParent);
+    if (parent.equals(newParent)) {
+      return false;
+    }
+
+    final Node<T> movedNode = nodes.get(node);
+    final Node<T> newParentNode = nodes.get(newParent);
+    detach(movedNode);
+    movedNode.parent = newParentNode;
+    attach(newParentNode, childCount(newParentNode), movedNode);
+
+    return true;
+  }
+
+  /** Adds the specified node to the children of its parent node, at the specified position, updating the hash codes. */
+  private void attach(final Node<T> parentNode, final int index, final Node<T> childNode) {
+    childrenHash -= entryHash(parentNode);
+    if (parentNode.children == null) {
+      parentNode.children = new TieredList<Node<T>>();
+    }
+    parentNode.children.add(index, childNode);
+    parentNode.childrenHashSum += childNode.value.hashCode();
+    childrenHash += entryHash(parentNode);
+    parentsHash += childNode.value.hashCode() ^ parentNode.value.hashCode();
+  }
+
+  /** Removes the specified node from the children of its parent node, updating the hash codes. */
+  private void detach(final Node<T> childNode) {
+    final Node<T> parentNode = childNode.parent;
+    childrenHash -= entryHash(parentNode);
+    parentNode.children.remove(childNode);
+    parentNode.childrenHashSum -= childNode.value.hashCode();
+    if (parentNode.children.isEmpty()) {
+      parentNode.children = null;
+    }
+    childrenHash += entryHash(parentNode);
+    parentsHash -= childNode.value.hashCode() ^ parentNode.value.hashCode();
+  }
+
+  @Override
+  public void clear() {
+    nodes.clear();
+    root = null;
+    childrenHash = 0;
+    parentsHash = 0;
+  }
+
+  @Override
+  public boolean remove(final T node) {
+    final Node<T> removed = getNode(node);
+
+    if (removed == root) { // optimisation
+      clear();
+      return true;
+    }
+
+    detach(removed);
+    nodes.remove(node);
+
+    // Remove the descendants of the node, with an explicit stack to support deep trees
+    final Deque<Node<T>> stack = new ArrayDeque<Node<T>>();
+    stack.push(removed);
+    while (!stack.isEmpty()) {
+      final Node<T> current = stack.pop();
+      if (current.children != null) {
+        childrenHash -= entryHash(current);
+        for (final Node<T> child : current.children) {
+          nodes.remove(child.value);
+          parentsHash -= child.value.hashCode() ^ current.value.hashCode();
+          stack.push(child);
+        }
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Returns the hash code of an entry of the parent-children associations, or {@code 0} if the node has no children, as there
+   * isn't an entry then.
+   */
+  private static int entryHash(final Node<?> node) {
+    return node.children == null ? 0 : node.value.hashCode() ^ node.childrenHashSum;
+  }
+
+  private Node<T> getNode(final T node) {
+    checkNotNull(node);
+    final Node<T> treeNode = nodes.get(node);
+    checkArgument(treeNode != null, "The tree doesn't contain the specified node: %s", node);
+    return treeNode;
+  }
+
+  private Node<T> getParentNode(final T parent) {
+    final Node<T> parentNode = nodes.get(parent);
+    checkArgument(parentNode != null, "The tree doesn't contain the specified parent node: %s", parent);
+    return parentNode;
+  }
+
+  private static int childCount(final Node<?> node) {
+    return node.children == null ? 0 : node.children.size();
+  }
+
+  @Override
+  public Iterator<Map.Entry<T, T>> iterator() {
+    final Iterator<Node<T>> nodeIter = nodes.values().iterator();
+    return new AbstractIterator<Map.Entry<T, T>>() {
+      @Override
+      protected Map.Entry<T, T> computeNext() {
+        while (nodeIter.hasNext()) {
+          final Node<T> node = nodeIter.next();
+          if (node.parent != null) {
+            return new AbstractMap.SimpleImmutableEntry<T, T>(node.parent.value, node.value);
+          }
+        }
+        return endOfData();
+      }
+    };
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    return this == obj || obj instanceof Tree && Trees.deepEquals(this, (Tree<?>) obj);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * The hash code is consistent with the other tree implementations of this package, whatever the order of the children, and
+   * is maintained incrementally, so this method is O(1).
+   */
+  @Override
+  public int hashCode() {
+    int result = root == null ? 0 : root.value.hashCode();
+    result = 31 * result + childrenHash;
+    result = 31 * result + parentsHash;
+    return result;
+  }
+
+  /** A node of the tree, with its parent node and its children nodes, in order. */
+  private static final class Node<T> extends TieredList.Element {
+    private final T value;
+
+    /** The parent node, or {@code null} for the root. */
+    @Nullable
+    private Node<T> parent;
+
+    /** The children nodes, or {@code null} if the node has no children. */
+    @Nullable
+    private TieredList<Node<T>> children;
+
+    /** The sum of the hash codes of the children. */
+    private int childrenHashSum;
+
+    private Node(final T value, @Nullable final Node<T> parent) {
+      this.value = value;
+      this.parent = parent;
+    }
+
+    @Override
+    public String toString() {
+      return String.valueOf(value);
+    }
+  }
+
+  /** An unmodifiable set view of the children of a node, in order. */
+  private static final class Children<T> extends AbstractSet<T> {
+    private final Map<T, Node<T>> nodes;
+
+    private final Node<T> node;
+
+    private Children(final Map<T, Node<T>> nodes, final Node<T> node) {
+      this.nodes = nodes;
+      this.node = node;
+    }
+
+    @Override
+    public int size() {
+      return childCount(node);
+    }
+
+    @Override
+    public boolean contains(final Object obj) {
+      final Node<T> child = nodes.get(obj);
+      return child != null && child.parent == node;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+      if (node.children == null) {
+        return Collections.<T>emptyIterator();
+      }
+      return Iterators.unmodifiableIterator(Iterators.transform(node.children.iterator(), new Function<Node<T>, T>() {
+        @Override
+        public T apply(final Node<T> child) {
+          return child.value;
+        }
+      }));
+    }
+  }
+}
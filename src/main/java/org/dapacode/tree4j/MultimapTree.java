@@ -5,7 +5,9 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.SetMultimap;
 
 import javax.annotation.Nullable;
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.Map;
 
 import static com.google.common.base.Preconditions.*;
@@ -21,6 +23,12 @@ public final class MultimapTree<T> extends AbstractMultimapTree<T> implements Mu
   @Nullable
   private T root;
 
+  /**
+   * The sums of the hash codes of the children of each node which has children, from which the hash code of the
+   * parent-children associations is updated when a child is added or removed, without going through the other children.
+   */
+  private final Map<T, Integer> childrenHashSums;
+
   /**
    * Creates a new multimap tree. This constructor is used directly by {@link #create(SetMultimap, Map)} so look there for
    * details.
@@ -30,6 +38,8 @@ public final class MultimapTree<T> extends AbstractMultimapTree<T> implements Mu
    */
   private MultimapTree(final SetMultimap<T, T> children, final Map<T, T> parents) {
     super(checkNotNull(children), checkNotNull(parents));
+    checkArgument(children.isEmpty() && parents.isEmpty(), "The associations to be used aren't empty");
+    childrenHashSums = Maps.newHashMap();
   }
 
   /**
@@ -51,9 +61,10 @@ public final class MultimapTree<T> extends AbstractMultimapTree<T> implements Mu
    * a new instance of the tree, and, therefore, require a new multimap and map.
    *
    * @param <T> the type of the nodes in the tree
-   * @param children the parent-children associations to be used
-   * @param parents the child-parent associations to be used
+   * @param children the parent-children associations to be used, which must be empty
+   * @param parents the child-parent associations to be used, which must be empty
    * @return a new multimap tree
+   * @throws IllegalArgumentException if the multimap or the map isn't empty
    */
   public static <T> MultimapTree<T> create(final SetMultimap<T, T> children, final Map<T, T> parents) {
     return new MultimapTree<T>(children, parents);
@@ -77,13 +88,15 @@ public final class MultimapTree<T> extends AbstractMultimapTree<T> implements Mu
       multimapTree.root = original.root;
       multimapTree.children.putAll(original.children);
       multimapTree.parents.putAll(original.parents);
+      multimapTree.childrenHashSums.putAll(original.childrenHashSums);
+      multimapTree.resetHashes();
     } else {
       final T root = tree.getRoot();
       if (root != null) {
         multimapTree.setRoot(root);
       }
 
-      final Collection<Map.Entry<T, T>> associations = Trees.getAssociationsDepthFirst(tree);
+      final Iterable<Map.Entry<T, T>> associations = Trees.getAssociationsPreOrder(tree);
       for (final Map.Entry<T, T> association : associations) {
         multimapTree.add(association.getKey(), association.getValue());
       }
@@ -129,16 +142,86 @@ public final class MultimapTree<T> extends AbstractMultimapTree<T> implements Mu
 
     checkArgument(childParent == null, "The child node (%s) is already associated to another node", child);
 
+    addInternal(parent, child);
+
+    return true;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * Once the nodes of the subtree are checked, its associations are added without checking them one by one.
+   */
+  @Override
+  public boolean addAll(final T parent, final Tree<T> subtree) {
+    final T subtreeRoot = Trees.checkGraftable(this, parent, subtree);
+    if (subtreeRoot == null) {
+      return false;
+    }
+
+    addInternal(parent, subtreeRoot);
+    for (final Map.Entry<T, T> association : Trees.getAssociationsPreOrder(subtree, subtreeRoot)) {
+      addInternal(association.getKey(), association.getValue());
+    }
+
+    return true;
+  }
+
+  /** Adds a new parent/child association, which was checked, to the tree. */
+  private void addInternal(final T parent, final T child) {
     children.put(parent, child);
     parents.put(child, parent);
+    updateChildrenHashSum(parent, child.hashCode());
+    updateHashes(0, child.hashCode() ^ parent.hashCode());
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * Only the association of the node with its parent is rewritten, and only the ancestors of the new parent node are walked,
+   * so moving a node is O(depth), whatever the size of its subtree.
+   */
+  @Override
+  public boolean move(final T node, final T newParent) {
+    final T parent = Trees.checkMovable(this, node, newParent);
+    if (parent.equals(newParent)) {
+      return false;
+    }
+
+    children.remove(parent, node);
+    updateChildrenHashSum(parent, -node.hashCode());
+    children.put(newParent, node);
+    updateChildrenHashSum(newParent, node.hashCode());
+    parents.put(node, newParent);
+    updateHashes(0, (node.hashCode() ^ newParent.hashCode()) - (node.hashCode() ^ parent.hashCode()));
 
     return true;
   }
 
+  /**
+   * Adds the specified difference to the sum of the hash codes of the children of the specified node, after a child was added
+   * to or removed from it, and updates the hash code of the parent-children associations accordingly.
+   */
+  private void updateChildrenHashSum(final T parent, final int childHashDelta) {
+    final int parentHash = parent.hashCode();
+    final Integer oldSum = childrenHashSums.get(parent);
+    int childrenHashDelta = oldSum == null ? 0 : -(parentHash ^ oldSum);
+    if (children.containsKey(parent)) {
+      final int newSum = (oldSum == null ? 0 : oldSum) + childHashDelta;
+      childrenHashSums.put(parent, newSum);
+      childrenHashDelta += parentHash ^ newSum;
+    } else {
+      childrenHashSums.remove(parent);
+    }
+    updateHashes(childrenHashDelta, 0);
+  }
+
   @Override
   public void clear() {
     children.clear();
     parents.clear();
+    childrenHashSums.clear();
+    resetHashes();
     root = null;
   }
 
@@ -151,19 +234,25 @@ public final class MultimapTree<T> extends AbstractMultimapTree<T> implements Mu
     } else {
       final T parent = getParent(node); // Handles throwing the IAE
       children.get(parent).remove(node);
+      updateChildrenHashSum(parent, -node.hashCode());
       removeInternal(node);
     }
 
     return true;
   }
 
+  /** Removes the specified node and its descendants, with an explicit stack, so it supports trees of any depth. */
   private void removeInternal(final T node) {
-    final Collection<T> nodeChildren = children.get(node);
-    for (final T child : nodeChildren) {
-      removeInternal(child);
+    final Deque<T> stack = new ArrayDeque<T>();
+    stack.push(node);
+    while (!stack.isEmpty()) {
+      final T current = stack.pop();
+      final Integer childrenHashSum = childrenHashSums.remove(current);
+      final int childrenHashDelta = childrenHashSum == null ? 0 : -(current.hashCode() ^ childrenHashSum);
+      updateHashes(childrenHashDelta, -(current.hashCode() ^ parents.remove(current).hashCode()));
+      for (final T child : children.removeAll(current)) {
+        stack.push(child);
+      }
     }
-
-    children.removeAll(node);
-    parents.remove(node);
   }
 }
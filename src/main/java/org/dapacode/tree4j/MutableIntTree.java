@@ -0,0 +1,54 @@
+package org.dapacode.tree4j;
+
+/**
+ * An extension of the {@link IntTree} interface with added state-mutating methods, mirroring {@link MutableTree}.
+ * <p/>
+ * <strong>Note:</strong> An {@link IllegalArgumentException} will <em>always</em> be thrown if a negative number is passed
+ * where a new node is expected.
+ */
+public interface MutableIntTree extends IntTree {
+  /**
+   * Sets the specified node as the root of the tree, removing all previous nodes unless the specified node already was the root
+   * node.
+   *
+   * @param node a node
+   * @return {@code true} if the tree was modified (the root node was changed)
+   */
+  boolean setRoot(int node);
+
+  /**
+   * Adds a new parent/child association to the tree.
+   *
+   * @param parent the parent node, an existing node of the tree
+   * @param child the child node, a node not already contained in the tree
+   * @return {@code true} if the tree was modified (new association was added)
+   * @throws IllegalArgumentException if the specified parent node isn't contained in the tree or if the child node is already
+   * associated to another node
+   */
+  boolean add(int parent, int child);
+
+  /**
+   * Moves the specified node, along with all of its children nodes, to another parent node.
+   *
+   * @param node a node of the tree, which isn't the root
+   * @param newParent the new parent node, an existing node of the tree which is neither the specified node nor one of its
+   * descendants
+   * @return {@code true} if the tree was modified (the node was moved), or {@code false} if the new parent node already was the
+   * parent of the node
+   * @throws IllegalArgumentException if either node isn't contained in the tree, if the node is the root or if the new parent
+   * node is the node or one of its descendants
+   */
+  boolean move(int node, int newParent);
+
+  /** Removes all the nodes in the tree. */
+  void clear();
+
+  /**
+   * Removes the specified node and all of its children nodes from the tree.
+   *
+   * @param node a node of the tree
+   * @return {@code true} if the tree was modified (the node and its children nodes were removed)
+   * @throws IllegalArgumentException if the specified node isn't contained in the tree
+   */
+  boolean remove(int node);
+}
@@ -28,6 +28,33 @@ public interface MutableTree<T> extends Tree<T> {
    */
   boolean add(T parent, T child);
 
+  /**
+   * Moves the specified node, along with all of its children nodes, to another parent node. Only the association between the
+   * node and its parent is changed: the descendants of the node aren't walked.
+   *
+   * @param node a node of the tree, which isn't the root
+   * @param newParent the new parent node, an existing node of the tree which is neither the specified node nor one of its
+   * descendants
+   * @return {@code true} if the tree was modified (the node was moved), or {@code false} if the new parent node already was the
+   * parent of the node
+   * @throws IllegalArgumentException if either node isn't contained in the tree, if the node is the root or if the new parent
+   * node is the node or one of its descendants
+   */
+  boolean move(T node, T newParent);
+
+  /**
+   * Adds all the nodes of the specified tree to this tree: its root becomes a child of the specified parent node, and its other
+   * nodes keep their parent. The nodes of the specified tree are checked once, before any of them is added, so the tree isn't
+   * modified if one of them is already contained in it.
+   *
+   * @param parent the parent node of the root of the specified tree, an existing node of the tree
+   * @param subtree a tree, none of whose nodes is contained in this tree
+   * @return {@code true} if the tree was modified (the nodes were added), or {@code false} if the specified tree is empty
+   * @throws IllegalArgumentException if the specified parent node isn't contained in the tree or if a node of the specified
+   * tree is already contained in this tree
+   */
+  boolean addAll(T parent, Tree<T> subtree);
+
   /** Removes all the nodes in the tree. */
   void clear();
 
@@ -0,0 +1,325 @@
+package org.dapacode.tree4j;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * A mutable tree backed by another mutable tree, which labels every node with a nested set interval: an enter and an exit
+ * label, such that the interval of each node strictly contains the intervals of its descendants and the labels of the nodes
+ * are in pre-order. Testing whether a node descends from another is then two comparisons, and the descendants of a node are a
+ * contiguous range of the nodes sorted by enter label, returned without walking through the children.
+ * <p/>
+ * The labels are spread over the range of {@code long} values, leaving gaps between them, and a new node is labelled in the
+ * gap following the last child of its parent. Only when there's no room left is a part of the tree relabelled: the subtree of
+ * the lowest ancestor of the parent whose interval has room for the evenly spread labels of its whole subtree, so most
+ * insertions relabel nothing and the others relabel a subtree rather than the whole tree. A moved or added subtree is labelled
+ * in the gap following the last child of its new parent if it fits there, and as part of the subtree of such an ancestor
+ * otherwise.
+ * <p/>
+ * The backing tree must only be modified through this tree.
+ *
+ * @param <T> the type of the nodes in the tree
+ * @see Trees#nestedSetTree(MutableTree)
+ */
+public final class NestedSetTree<T> extends DelegatingMutableTree<T> {
+  /** The minimum spacing between labels a subtree is relabelled with, to leave room for a few insertions. */
+  private static final long MIN_SPACING = 64;
+
+  /** The minimum width of a gap for a node to be labelled in it: the enter and exit labels, and one more for the next node. */
+  private static final long MIN_GAP = 3;
+
+  private final MutableTree<T> delegate;
+
+  /** The intervals, by node. */
+  private final Map<T, Interval> intervals = Maps.newHashMap();
+
+  /** The nodes, by enter label. */
+  private final NavigableMap<Long, T> byEnter = Maps.newTreeMap();
+
+  /** The nodes, by exit label. */
+  private final NavigableMap<Long, T> byExit = Maps.newTreeMap();
+
+  NestedSetTree(final MutableTree<T> delegate) {
+    this.delegate = checkNotNull(delegate);
+    final T root = delegate.getRoot();
+    if (root != null) {
+      label(root, new Interval(0L, Long.MAX_VALUE));
+      relabelDescendants(root, delegate.size() - 1, null);
+    }
+  }
+
+  @Override
+  protected MutableTree<T> delegate() {
+    return delegate;
+  }
+
+  /**
+   * Returns the enter label of the specified node, which is greater than the enter labels of its ancestors and lower than the
+   * labels of its descendants. The labels change when the tree is relabelled, so they should only be compared with each other
+   * between two modifications.
+   *
+   * @param node a node of the tree
+   * @return the enter label of the node
+   * @throws IllegalArgumentException if the specified node isn't contained in the tree
+   */
+  public long getEnter(final T node) {
+    return interval(node).enter;
+  }
+
+  /**
+   * Returns the exit label of the specified node, which is greater than the labels of its descendants and lower than the exit
+   * labels of its ancestors. See {@link #getEnter(Object)}.
+   *
+   * @param node a node of the tree
+   * @return the exit label of the node
+   * @throws IllegalArgumentException if the specified node isn't contained in the tree
+   */
+  public long getExit(final T node) {
+    return interval(node).exit;
+  }
+
+  /**
+   * Tests whether a node is a descendant of another node, by comparing their labels.
+   *
+   * @param node a node of the tree
+   * @param ancestor a node of the tree
+   * @return {@code true} if the first node is a descendant of the second node, {@code false} if it isn't, including if it's the
+   * same node
+   * @throws IllegalArgumentException if either node isn't contained in the tree
+   */
+  public boolean isDescendant(final T node, final T ancestor) {
+    final Interval nodeInterval = interval(node);
+    final Interval ancestorInterval = interval(ancestor);
+    return ancestorInterval.enter < nodeInterval.enter && nodeInterval.exit < ancestorInterval.exit;
+  }
+
+  /**
+   * Retrieves a copy of the descendants of the specified node, in pre-order: the nodes whose enter label is within the
+   * interval of the node. The descendants are copied, in O(size of the subtree), rather than viewed, as relabelling the nodes
+   * on a later modification would move them out of the interval.
+   *
+   * @param node a node of the tree
+   * @return an immutable list of the descendants of the node
+   * @throws IllegalArgumentException if the specified node isn't contained in the tree
+   */
+  public Collection<T> getDescendants(final T node) {
+    final Interval interval = interval(node);
+    return ImmutableList.copyOf(byEnter.subMap(interval.enter, false, interval.exit, false).values());
+  }
+
+  private Interval interval(final T node) {
+    checkNotNull(node);
+    final Interval interval = intervals.get(node);
+    checkArgument(interval != null, "The tree doesn't contain the specified node: %s", node);
+    return interval;
+  }
+
+  private void label(final T node, final Interval interval) {
+    intervals.put(node, interval);
+    byEnter.put(interval.enter, node);
+    byExit.put(interval.exit, node);
+  }
+
+  @Override
+  public boolean setRoot(final T node) {
+    final boolean changed = delegate.setRoot(node);
+    if (changed) {
+      clearLabels();
+      label(node, new Interval(0L, Long.MAX_VALUE));
+    }
+    return changed;
+  }
+
+  @Override
+  public boolean add(final T parent, final T child) {
+    final boolean changed = delegate.add(parent, child);
+    if (changed) {
+      Interval parentInterval = intervals.get(parent);
+      long after = lastLabelBeforeExit(parentInterval);
+      if (parentInterval.exit - after < MIN_GAP) {
+        makeRoom(parent, child);
+        parentInterval = intervals.get(parent);
+        after = lastLabelBeforeExit(parentInterval);
+      }
+      // Leave half the room for the descendants of the child, and half for its next siblings
+      final long enter = after + 1;
+      label(child, new Interval(enter, enter + (parentInterval.exit - enter) / 2));
+    }
+    return changed;
+  }
+
+  /** Returns the exit label of the last child of the node with the specified interval, or its enter label if it has none. */
+  private long lastLabelBeforeExit(final Interval interval) {
+    final Long lastChildExit = byExit.lowerKey(interval.exit);
+    return lastChildExit == null || lastChildExit < interval.enter ? interval.enter : lastChildExit;
+  }
+
+  /**
+   * Relabels the subtree of the lowest ancestor of the specified node, the node included, whose interval has room for the
+   * labels of its subtree, new child included, at the minimum spacing. The root is relabelled in any case, as its interval
+   * covers all the labels.
+   *
+   * @param newChild the child being added, which is labelled afterwards, or {@code null} to relabel all the descendants
+   */
+  private void makeRoom(final T node, @Nullable final T newChild) {
+    // The new child, already in the backing tree, is counted in the size of the subtree
+    T ancestor = node;
+    T counted = null;
+    int descendantCount = 0;
+    while (true) {
+      for (final T child : delegate.getChildren(ancestor)) {
+        if (!child.equals(counted)) {
+          descendantCount += Trees.getNodesPreOrder(delegate, child).size();
+        }
+      }
+      if (counted != null) {
+        descendantCount++;
+      }
+
+      final Interval interval = intervals.get(ancestor);
+      final T parent = delegate.getParent(ancestor);
+      if (parent == null || (interval.exit - interval.enter) / (2L * descendantCount + 1) >= MIN_SPACING) {
+        relabelDescendants(ancestor, descendantCount, newChild);
+        return;
+      }
+      counted = ancestor;
+      ancestor = parent;
+    }
+  }
+
+  /**
+   * Relabels the descendants of the specified node, spreading their labels evenly over the interval of the node, with room for
+   * the specified number of descendants.
+   *
+   * @param skipped the node being added, which is labelled afterwards, or {@code null}
+   */
+  private void relabelDescendants(final T node, final int descendantCount, @Nullable final T skipped) {
+    final Interval interval = intervals.get(node);
+    final long spacing = (interval.exit - interval.enter) / (2L * descendantCount + 1);
+    checkState(spacing > 0, "The tree is too large to be labelled: %s", descendantCount);
+
+    // Forget the current labels first, so that they don't collide with the new ones
+    final NavigableMap<Long, T> descendants = byEnter.subMap(interval.enter, false, interval.exit, false);
+    for (final T descendant : descendants.values()) {
+      byExit.remove(intervals.remove(descendant).exit);
+    }
+    descendants.clear();
+
+    // Label the nodes in pre-order, with an explicit stack of the iterators over the children of the nodes being labelled
+    long label = interval.enter;
+    final Deque<Iterator<T>> stack = new ArrayDeque<Iterator<T>>();
+    final Deque<T> labelled = new ArrayDeque<T>();
+    stack.push(delegate.getChildren(node).iterator());
+    while (!stack.isEmpty()) {
+      final Iterator<T> children = stack.peek();
+      if (children.hasNext()) {
+        final T child = children.next();
+        if (!child.equals(skipped)) {
+          label += spacing;
+          intervals.put(child, new Interval(label, label));
+          byEnter.put(label, child);
+          labelled.push(child);
+          stack.push(delegate.getChildren(child).iterator());
+        }
+      } else {
+        stack.pop();
+        if (!stack.isEmpty()) {
+          final T child = labelled.pop();
+          label += spacing;
+          intervals.get(child).exit = label;
+          byExit.put(label, child);
+        }
+      }
+    }
+  }
+
+  @Override
+  public boolean move(final T node, final T newParent) {
+    final Interval interval = interval(node);
+    final boolean changed = delegate.move(node, newParent);
+    if (changed) {
+      forgetSubtree(interval);
+      labelSubtree(newParent, node);
+    }
+    return changed;
+  }
+
+  @Override
+  public boolean addAll(final T parent, final Tree<T> subtree) {
+    final boolean changed = delegate.addAll(parent, subtree);
+    if (changed) {
+      labelSubtree(parent, subtree.getRoot());
+    }
+    return changed;
+  }
+
+  /**
+   * Labels the subtree of the specified node, whose labels are unset, after the last child of its parent, the specified node,
+   * or relabels the subtree of an ancestor of the parent if there's no room for it there.
+   */
+  private void labelSubtree(final T parent, final T node) {
+    final int subtreeSize = Trees.getNodesPreOrder(delegate, node).size();
+    final Interval parentInterval = intervals.get(parent);
+    final long after = lastLabelBeforeExit(parentInterval);
+    if ((parentInterval.exit - after) / (2L * subtreeSize + 1) >= MIN_SPACING) {
+      // Leave half the room for the subtree, as for an added child, and spread its labels over its interval
+      final long enter = after + 1;
+      label(node, new Interval(enter, enter + (parentInterval.exit - enter) / 2));
+      relabelDescendants(node, subtreeSize - 1, null);
+    } else {
+      makeRoom(parent, null);
+    }
+  }
+
+  @Override
+  public void clear() {
+    delegate.clear();
+    clearLabels();
+  }
+
+  private void clearLabels() {
+    intervals.clear();
+    byEnter.clear();
+    byExit.clear();
+  }
+
+  @Override
+  public boolean remove(final T node) {
+    final Interval interval = interval(node);
+    final boolean changed = delegate.remove(node);
+    if (changed) {
+      forgetSubtree(interval);
+    }
+    return changed;
+  }
+
+  /** Forgets the labels of the node with the specified interval and of its descendants. */
+  private void forgetSubtree(final Interval interval) {
+    final NavigableMap<Long, T> subtree = byEnter.subMap(interval.enter, true, interval.exit, false);
+    for (final T node : subtree.values()) {
+      byExit.remove(intervals.remove(node).exit);
+    }
+    subtree.clear();
+  }
+
+  /** The nested set interval of a node. */
+  private static final class Interval {
+    private final long enter;
+    private long exit;
+
+    Interval(final long enter, final long exit) {
+      this.enter = enter;
+      this.exit = exit;
+    }
+  }
+}
@@ -0,0 +1,283 @@
+package org.dapacode.tree4j;
+
+import com.google.common.collect.Lists;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * A mutable tree backed by another mutable tree, which publishes an event to its listeners for every modification, so that
+ * structures derived from the tree can be updated with the changes rather than by comparing whole trees. Only the
+ * modifications which change the tree are published.
+ * <p/>
+ * A {@link Listener} receives each event synchronously, on the thread modifying the tree, once the modification is done. A
+ * {@link BatchListener} receives the events in batches, on the executor it was added with: the events published while a batch
+ * is pending are added to it, and the batches of a listener are delivered one at a time, in order. As setting the root or
+ * clearing the tree discards all its nodes, the events pending before them are dropped from the batch.
+ * <p/>
+ * The backing tree must only be modified through this tree. Like the backing tree, this tree isn't thread-safe, but its
+ * listeners can be added and removed concurrently with the modifications.
+ *
+ * @param <T> the type of the nodes in the tree
+ * @see Trees#observableTree(MutableTree)
+ */
+public final class ObservableMutableTree<T> extends DelegatingMutableTree<T> {
+  private final MutableTree<T> delegate;
+
+  private final List<Listener<T>> listeners = new CopyOnWriteArrayList<Listener<T>>();
+
+  private final List<Batcher<T>> batchers = new CopyOnWriteArrayList<Batcher<T>>();
+
+  ObservableMutableTree(final MutableTree<T> delegate) {
+    this.delegate = checkNotNull(delegate);
+  }
+
+  @Override
+  protected MutableTree<T> delegate() {
+    return delegate;
+  }
+
+  /**
+   * Adds a listener which receives every event synchronously, on the thread modifying the tree. An exception thrown by the
+   * listener is propagated to the caller of the modification, which is done by then, and the remaining listeners don't receive
+   * the event.
+   *
+   * @param listener a listener
+   */
+  public void addListener(final Listener<T> listener) {
+    listeners.add(checkNotNull(listener));
+  }
+
+  /**
+   * Adds a listener which receives the events in batches, run by the specified executor.
+   *
+   * @param listener a listener
+   * @param executor the executor delivering the batches
+   */
+  public void addBatchListener(final BatchListener<T> listener, final Executor executor) {
+    batchers.add(new Batcher<T>(checkNotNull(listener), checkNotNull(executor)));
+  }
+
+  /**
+   * Removes a listener added with {@link #addListener(Listener)}.
+   *
+   * @param listener a listener
+   * @return {@code true} if the listener was removed, {@code false} if it wasn't added to this tree
+   */
+  public boolean removeListener(final Listener<T> listener) {
+    return listeners.remove(checkNotNull(listener));
+  }
+
+  /**
+   * Removes a listener added with {@link #addBatchListener(BatchListener, Executor)}. A batch which is already pending may
+   * still be delivered to it.
+   *
+   * @param listener a listener
+   * @return {@code true} if the listener was removed, {@code false} if it wasn't added to this tree
+   */
+  public boolean removeBatchListener(final BatchListener<T> listener) {
+    checkNotNull(listener);
+    for (final Batcher<T> batcher : batchers) {
+      if (batcher.listener.equals(listener)) {
+        return batchers.remove(batcher);
+      }
+    }
+    return false;
+  }
+
+  /** Tests whether the tree has listeners, so that the events which are costly to build are only built to be received. */
+  private boolean isObserved() {
+    return !listeners.isEmpty() || !batchers.isEmpty();
+  }
+
+  private void publish(final TreeEvent<T> event) {
+    for (final Batcher<T> batcher : batchers) {
+      batcher.publish(event);
+    }
+    for (final Listener<T> listener : listeners) {
+      listener.treeChanged(event);
+    }
+  }
+
+  @Override
+  public boolean setRoot(final T node) {
+    final boolean changed = delegate.setRoot(node);
+    if (changed) {
+      publish(TreeEvent.rootSet(node));
+    }
+    return changed;
+  }
+
+  @Override
+  public boolean add(final T parent, final T child) {
+    final boolean changed = delegate.add(parent, child);
+    if (changed) {
+      publish(TreeEvent.added(parent, child));
+    }
+    return changed;
+  }
+
+  @Override
+  public boolean move(final T node, final T newParent) {
+    final T parent = delegate.getParent(node);
+    final boolean changed = delegate.move(node, newParent);
+    if (changed) {
+      publish(TreeEvent.moved(parent, newParent, node));
+    }
+    return changed;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * An {@link TreeEvent.Type#ADDED} event is published for each added association, in pre-order, starting with the association
+   * of the root of the specified tree with the parent node.
+   */
+  @Override
+  public boolean addAll(final T parent, final Tree<T> subtree) {
+    final boolean changed = delegate.addAll(parent, subtree);
+    if (changed && isObserved()) {
+      final T subtreeRoot = subtree.getRoot();
+      publish(TreeEvent.added(parent, subtreeRoot));
+      for (final Map.Entry<T, T> association : Trees.getAssociationsPreOrder(delegate, subtreeRoot)) {
+        publish(TreeEvent.added(association.getKey(), association.getValue()));
+      }
+    }
+    return changed;
+  }
+
+  @Override
+  public void clear() {
+    final boolean changed = delegate.getRoot() != null;
+    delegate.clear();
+    if (changed) {
+      publish(TreeEvent.<T>cleared());
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * If the tree has listeners, the subtree of the node is copied, for the {@link TreeEvent.Type#REMOVED} event, before it's
+   * removed.
+   */
+  @Override
+  public boolean remove(final T node) {
+    if (!isObserved()) {
+      return delegate.remove(node);
+    }
+    // The subtree is copied before it's removed, which walks it as the removal does
+    final ImmutableTree<T> subtree = ImmutableMultimapTree.<T>create().withRoot(node)
+        .addedAll(Trees.getAssociationsPreOrder(delegate, node));
+    final T parent = delegate.getParent(node);
+    final boolean changed = delegate.remove(node);
+    if (changed) {
+      publish(TreeEvent.removed(parent, subtree));
+    }
+    return changed;
+  }
+
+  /**
+   * A listener receiving the events of an {@link ObservableMutableTree} one by one.
+   *
+   * @param <T> the type of the nodes in the tree
+   */
+  public interface Listener<T> {
+    /**
+     * Called once the tree was modified.
+     *
+     * @param event the modification
+     */
+    void treeChanged(TreeEvent<T> event);
+  }
+
+  /**
+   * A listener receiving the events of an {@link ObservableMutableTree} in batches.
+   *
+   * @param <T> the type of the nodes in the tree
+   */
+  public interface BatchListener<T> {
+    /**
+     * Called with the modifications made to the tree since the previous batch, in order.
+     *
+     * @param events the modifications, an unmodifiable list which is never empty
+     */
+    void treeChanged(List<TreeEvent<T>> events);
+  }
+
+  /** The pending batch of a batch listener, delivered by the executor of the listener. */
+  private static final class Batcher<T> implements Runnable {
+    private final BatchListener<T> listener;
+
+    private final Executor executor;
+
+    /** The events of the pending batch. Guarded by this. */
+    private List<TreeEvent<T>> pending = Lists.newArrayList();
+
+    /** Whether a delivery is either submitted to the executor or running. Guarded by this. */
+    private boolean scheduled;
+
+    Batcher(final BatchListener<T> listener, final Executor executor) {
+      this.listener = listener;
+      this.executor = executor;
+    }
+
+    void publish(final TreeEvent<T> event) {
+      synchronized (this) {
+        if (event.getType() == TreeEvent.Type.ROOT_SET || event.getType() == TreeEvent.Type.CLEARED) {
+          pending.clear();
+        }
+        pending.add(event);
+        if (scheduled) {
+          return;
+        }
+        scheduled = true;
+      }
+
+      boolean submitted = false;
+      try {
+        executor.execute(this);
+        submitted = true;
+      } finally {
+        if (!submitted) {
+          synchronized (this) {
+            scheduled = false;
+          }
+        }
+      }
+    }
+
+    /** Delivers the pending batches until there are none left, so that the batches are delivered one at a time, in order. */
+    @Override
+    public void run() {
+      boolean done = false;
+      try {
+        while (true) {
+          final List<TreeEvent<T>> batch;
+          synchronized (this) {
+            if (pending.isEmpty()) {
+              scheduled = false;
+              done = true;
+              return;
+            }
+            batch = pending;
+            pending = Lists.newArrayList();
+          }
+          listener.treeChanged(Collections.unmodifiableList(batch));
+        }
+      } finally {
+        if (!done) {
+          // The listener failed: the next event schedules a new delivery, with the events published in the meantime
+          synchronized (this) {
+            scheduled = false;
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package org.dapacode.tree4j;
+
+/**
+ * An extension of the {@link Tree} interface for trees which keep the children of each node in a defined order, and give
+ * positional access to them. The collections returned by {@link #getChildren(Object)} iterate over the children in that order.
+ * <p/>
+ * <strong>Note:</strong> A {@link NullPointerException} will <em>always</em> by thrown if {@code null} is passed were a node is
+ * expected.
+ *
+ * @param <T> the type of the nodes in the tree
+ * @see ListTree
+ */
+public interface OrderedTree<T> extends Tree<T> {
+  /**
+   * Retrieves the child of the specified node at the specified position.
+   *
+   * @param node a node of the tree
+   * @param index the position of the child, from {@code 0} to the number of children of the node, exclusive
+   * @return the child of the specified node at the specified position
+   * @throws IllegalArgumentException if the specified node isn't contained in the tree
+   * @throws IndexOutOfBoundsException if the specified node has no child at the specified position
+   */
+  T getChild(T node, int index);
+
+  /**
+   * Retrieves the position of the specified node among the children of its parent.
+   *
+   * @param node a node of the tree
+   * @return the position of the specified node, or {@code -1} if it is the root
+   * @throws IllegalArgumentException if the specified node isn't contained in the tree
+   */
+  int indexOf(T node);
+}
@@ -0,0 +1,388 @@
+package org.dapacode.tree4j;
+
+import com.google.common.collect.UnmodifiableIterator;
+
+import javax.annotation.Nullable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A persistent map implemented as a hash array mapped trie. Every "modifying" method returns a new map that shares all the
+ * unchanged parts of the trie with this map, so that {@link #plus(Object, Object)} and {@link #minus(Object)} cost
+ * O(log<sub>32</sub> n) time and allocation, and old versions stay valid.
+ * <p/>
+ * Neither {@code null} keys nor {@code null} values are permitted. The mutating methods of {@link Map} throw an {@link
+ * UnsupportedOperationException}.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+final class PersistentHashMap<K, V> extends AbstractMap<K, V> {
+  /** The number of hash bits consumed per level of the trie. */
+  private static final int BITS = 5;
+
+  /** The mask for extracting the index of a level from a hash. */
+  private static final int MASK = (1 << BITS) - 1;
+
+  /** The maximum depth of the trie: the bitmap levels plus one level for collision nodes. */
+  private static final int MAX_DEPTH = (Integer.SIZE + BITS - 1) / BITS + 1;
+
+  private static final PersistentHashMap<Object, Object> EMPTY = new PersistentHashMap<Object, Object>(null, 0);
+
+  /** The root node of the trie, or {@code null} if the map is empty. */
+  @Nullable
+  private final Node root;
+
+  private final int size;
+
+  private PersistentHashMap(@Nullable final Node root, final int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  /**
+   * Returns the empty persistent map.
+   *
+   * @param <K> the type of the keys
+   * @param <V> the type of the values
+   * @return the empty persistent map
+   */
+  @SuppressWarnings("unchecked")
+  static <K, V> PersistentHashMap<K, V> of() {
+    return (PersistentHashMap<K, V>) EMPTY;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean containsKey(final Object key) {
+    return get(key) != null;
+  }
+
+  @Override
+  @Nullable
+  @SuppressWarnings("unchecked")
+  public V get(final Object key) {
+    return root == null || key == null ? null : (V) root.get(hash(key), key, 0);
+  }
+
+  /**
+   * Returns a map with the specified association added, replacing any previous value of the key.
+   *
+   * @param key a key
+   * @param value a value
+   * @return a map containing the association, or this map if it already contains it
+   */
+  PersistentHashMap<K, V> plus(final K key, final V value) {
+    checkNotNull(key);
+    checkNotNull(value);
+    final boolean[] addedLeaf = new boolean[1];
+    final Node newRoot = (root == null ? BitmapNode.EMPTY : root).put(hash(key), key, value, 0, addedLeaf);
+    return newRoot == root ? this : new PersistentHashMap<K, V>(newRoot, addedLeaf[0] ? size + 1 : size);
+  }
+
+  /**
+   * Returns a map without the association of the specified key.
+   *
+   * @param key a key
+   * @return a map not containing the key, or this map if it doesn't contain it
+   */
+  PersistentHashMap<K, V> minus(final Object key) {
+    checkNotNull(key);
+    if (root == null) {
+      return this;
+    }
+    final Node newRoot = root.remove(hash(key), key, 0);
+    if (newRoot == root) {
+      return this;
+    }
+    return newRoot == null ? PersistentHashMap.<K, V>of() : new PersistentHashMap<K, V>(newRoot, size - 1);
+  }
+
+  @Override
+  public Set<Entry<K, V>> entrySet() {
+    return new AbstractSet<Entry<K, V>>() {
+      @Override
+      public Iterator<Entry<K, V>> iterator() {
+        return new EntryIterator<K, V>(root);
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  private static int hash(final Object key) {
+    final int h = key.hashCode();
+    return h ^ (h >>> (Integer.SIZE / 2));
+  }
+
+  private static int bit(final int hash, final int shift) {
+    return 1 << ((hash >>> shift) & MASK);
+  }
+
+  /**
+   * A node of the trie. Both kinds of nodes store their content as a flat array of key/value pairs, where a {@code null} key
+   * denotes that the value is a sub-node.
+   */
+  private abstract static class Node {
+    abstract Object[] array();
+
+    @Nullable
+    abstract Object get(int hash, Object key, int shift);
+
+    abstract Node put(int hash, Object key, Object value, int shift, boolean[] addedLeaf);
+
+    /** Returns the node without the key, this node if the key is absent or {@code null} if the node became empty. */
+    @Nullable
+    abstract Node remove(int hash, Object key, int shift);
+  }
+
+  private static final class BitmapNode extends Node {
+    static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+    private final int bitmap;
+    private final Object[] array;
+
+    BitmapNode(final int bitmap, final Object[] array) {
+      this.bitmap = bitmap;
+      this.array = array;
+    }
+
+    @Override
+    Object[] array() {
+      return array;
+    }
+
+    private int index(final int bit) {
+      return Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    @Override
+    @Nullable
+    Object get(final int hash, final Object key, final int shift) {
+      final int bit = bit(hash, shift);
+      if ((bitmap & bit) == 0) {
+        return null;
+      }
+      final int idx = index(bit);
+      final Object k = array[2 * idx];
+      final Object v = array[2 * idx + 1];
+      if (k == null) {
+        return ((Node) v).get(hash, key, shift + BITS);
+      }
+      return key.equals(k) ? v : null;
+    }
+
+    @Override
+    Node put(final int hash, final Object key, final Object value, final int shift, final boolean[] addedLeaf) {
+      final int bit = bit(hash, shift);
+      final int idx = index(bit);
+      if ((bitmap & bit) == 0) {
+        final Object[] newArray = new Object[array.length + 2];
+        System.arraycopy(array, 0, newArray, 0, 2 * idx);
+        newArray[2 * idx] = key;
+        newArray[2 * idx + 1] = value;
+        System.arraycopy(array, 2 * idx, newArray, 2 * idx + 2, array.length - 2 * idx);
+        addedLeaf[0] = true;
+        return new BitmapNode(bitmap | bit, newArray);
+      }
+
+      final Object k = array[2 * idx];
+      final Object v = array[2 * idx + 1];
+      if (k == null) {
+        final Node node = (Node) v;
+        final Node newNode = node.put(hash, key, value, shift + BITS, addedLeaf);
+        return newNode == node ? this : with(idx, null, newNode);
+      }
+      if (key.equals(k)) {
+        return value == v ? this : with(idx, k, value);
+      }
+      addedLeaf[0] = true;
+      return with(idx, null, createNode(shift + BITS, k, v, hash, key, value));
+    }
+
+    private BitmapNode with(final int idx, @Nullable final Object key, final Object value) {
+      final Object[] newArray = array.clone();
+      newArray[2 * idx] = key;
+      newArray[2 * idx + 1] = value;
+      return new BitmapNode(bitmap, newArray);
+    }
+
+    @Override
+    @Nullable
+    Node remove(final int hash, final Object key, final int shift) {
+      final int bit = bit(hash, shift);
+      if ((bitmap & bit) == 0) {
+        return this;
+      }
+      final int idx = index(bit);
+      final Object k = array[2 * idx];
+      final Object v = array[2 * idx + 1];
+      if (k == null) {
+        final Node node = (Node) v;
+        final Node newNode = node.remove(hash, key, shift + BITS);
+        if (newNode == node) {
+          return this;
+        }
+        return newNode == null ? without(bit, idx) : with(idx, null, newNode);
+      }
+      return key.equals(k) ? without(bit, idx) : this;
+    }
+
+    @Nullable
+    private BitmapNode without(final int bit, final int idx) {
+      if (bitmap == bit) {
+        return null;
+      }
+      final Object[] newArray = new Object[array.length - 2];
+      System.arraycopy(array, 0, newArray, 0, 2 * idx);
+      System.arraycopy(array, 2 * idx + 2, newArray, 2 * idx, newArray.length - 2 * idx);
+      return new BitmapNode(bitmap ^ bit, newArray);
+    }
+
+    private static Node createNode(final int shift, final Object key1, final Object value1, final int hash2,
+                                   final Object key2, final Object value2) {
+      final int hash1 = hash(key1);
+      if (hash1 == hash2) {
+        return new CollisionNode(hash1, new Object[]{key1, value1, key2, value2});
+      }
+      final boolean[] addedLeaf = new boolean[1];
+      return EMPTY.put(hash1, key1, value1, shift, addedLeaf).put(hash2, key2, value2, shift, addedLeaf);
+    }
+  }
+
+  /** A node holding the keys which have the same hash, which are scanned linearly. */
+  private static final class CollisionNode extends Node {
+    private final int hash;
+    private final Object[] array;
+
+    CollisionNode(final int hash, final Object[] array) {
+      this.hash = hash;
+      this.array = array;
+    }
+
+    @Override
+    Object[] array() {
+      return array;
+    }
+
+    private int find(final Object key) {
+      for (int i = 0; i < array.length; i += 2) {
+        if (key.equals(array[i])) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    @Override
+    @Nullable
+    Object get(final int keyHash, final Object key, final int shift) {
+      final int i = find(key);
+      return i < 0 ? null : array[i + 1];
+    }
+
+    @Override
+    Node put(final int keyHash, final Object key, final Object value, final int shift, final boolean[] addedLeaf) {
+      if (keyHash != hash) {
+        // Nest this node in a bitmap node, which will branch off the new key
+        return new BitmapNode(bit(hash, shift), new Object[]{null, this}).put(keyHash, key, value, shift, addedLeaf);
+      }
+      final int i = find(key);
+      if (i >= 0) {
+        if (array[i + 1] == value) {
+          return this;
+        }
+        final Object[] newArray = array.clone();
+        newArray[i + 1] = value;
+        return new CollisionNode(hash, newArray);
+      }
+      final Object[] newArray = new Object[array.length + 2];
+      System.arraycopy(array, 0, newArray, 0, array.length);
+      newArray[array.length] = key;
+      newArray[array.length + 1] = value;
+      addedLeaf[0] = true;
+      return new CollisionNode(hash, newArray);
+    }
+
+    @Override
+    @Nullable
+    Node remove(final int keyHash, final Object key, final int shift) {
+      final int i = find(key);
+      if (i < 0) {
+        return this;
+      }
+      if (array.length == 2) {
+        return null;
+      }
+      final Object[] newArray = new Object[array.length - 2];
+      System.arraycopy(array, 0, newArray, 0, i);
+      System.arraycopy(array, i + 2, newArray, i, newArray.length - i);
+      return new CollisionNode(hash, newArray);
+    }
+  }
+
+  /** Iterates the entries of the trie depth-first, using an explicit stack bounded by the depth of the trie. */
+  private static final class EntryIterator<K, V> extends UnmodifiableIterator<Entry<K, V>> {
+    private final Object[][] arrays = new Object[MAX_DEPTH][];
+    private final int[] positions = new int[MAX_DEPTH];
+    private int depth;
+
+    EntryIterator(@Nullable final Node root) {
+      if (root == null) {
+        depth = -1;
+      } else {
+        arrays[0] = root.array();
+        advance();
+      }
+    }
+
+    /** Moves to the next key/value pair, descending into sub-nodes and ascending from exhausted nodes as needed. */
+    private void advance() {
+      while (depth >= 0) {
+        final Object[] array = arrays[depth];
+        final int pos = positions[depth];
+        if (pos >= array.length) {
+          depth--;
+        } else if (array[pos] == null) {
+          positions[depth] += 2;
+          depth++;
+          arrays[depth] = ((Node) array[pos + 1]).array();
+          positions[depth] = 0;
+        } else {
+          return;
+        }
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return depth >= 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Entry<K, V> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      final Object[] array = arrays[depth];
+      final int pos = positions[depth];
+      positions[depth] += 2;
+      advance();
+      return new SimpleImmutableEntry<K, V>((K) array[pos], (V) array[pos + 1]);
+    }
+  }
+}
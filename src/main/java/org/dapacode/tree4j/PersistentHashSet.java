@@ -0,0 +1,83 @@
+package org.dapacode.tree4j;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+
+/**
+ * A persistent set backed by a {@link PersistentHashMap}. Its hash code is maintained incrementally, so {@link #hashCode()}
+ * is O(1).
+ *
+ * @param <E> the type of the elements
+ */
+final class PersistentHashSet<E> extends AbstractSet<E> {
+  private static final PersistentHashSet<Object> EMPTY =
+      new PersistentHashSet<Object>(PersistentHashMap.<Object, Boolean>of(), 0);
+
+  private final PersistentHashMap<E, Boolean> map;
+
+  /** The sum of the hash codes of the elements, as defined by {@link java.util.Set#hashCode()}. */
+  private final int hash;
+
+  private PersistentHashSet(final PersistentHashMap<E, Boolean> map, final int hash) {
+    this.map = map;
+    this.hash = hash;
+  }
+
+  /**
+   * Returns the empty persistent set.
+   *
+   * @param <E> the type of the elements
+   * @return the empty persistent set
+   */
+  @SuppressWarnings("unchecked")
+  static <E> PersistentHashSet<E> of() {
+    return (PersistentHashSet<E>) EMPTY;
+  }
+
+  @Override
+  public int size() {
+    return map.size();
+  }
+
+  @Override
+  public boolean contains(final Object o) {
+    return map.containsKey(o);
+  }
+
+  @Override
+  public Iterator<E> iterator() {
+    return map.keySet().iterator();
+  }
+
+  /**
+   * Returns a set with the specified element added.
+   *
+   * @param element an element
+   * @return a set containing the element, or this set if it already contains it
+   */
+  PersistentHashSet<E> plus(final E element) {
+    final PersistentHashMap<E, Boolean> newMap = map.plus(element, Boolean.TRUE);
+    return newMap == map ? this : new PersistentHashSet<E>(newMap, hash + element.hashCode());
+  }
+
+  /**
+   * Returns a set without the specified element.
+   *
+   * @param element an element
+   * @return a set not containing the element, or this set if it doesn't contain it
+   */
+  PersistentHashSet<E> minus(final E element) {
+    final PersistentHashMap<E, Boolean> newMap = map.minus(element);
+    return newMap == map ? this : new PersistentHashSet<E>(newMap, hash - element.hashCode());
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    return o == this || super.equals(o);
+  }
+}
@@ -0,0 +1,335 @@
+package org.dapacode.tree4j;
+
+import com.google.common.collect.AbstractIterator;
+
+import javax.annotation.Nullable;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * A <strong>guaranteed</strong> {@link ImmutableTree}-compliant implementation that uses persistent hash array mapped tries.
+ * <p/>
+ * Unlike {@link ImmutableMultimapTree}, which copies all of its associations on every modification, the trees returned by
+ * {@link #added(Object, Object)} and {@link #removed(Object)} share all the unchanged parts of their structure with the tree
+ * they are derived from. Adding an association costs O(log n) time and allocation, removing a node costs O(log n) per removed
+ * node and {@link #withRoot(Object)} is O(1). Previous versions of the tree remain valid and cheap to keep around.
+ * <p/>
+ * The order of the children of a node is unspecified.
+ *
+ * @param <T> the type of the nodes in the tree
+ */
+public final class PersistentTree<T> implements ImmutableTree<T> {
+  /** The parent-children associations of the tree, only containing the nodes which have children. */
+  private final PersistentHashMap<T, PersistentHashSet<T>> children;
+
+  /** The child-parent associations of the tree. */
+  private final PersistentHashMap<T, T> parents;
+
+  /** The root of the tree. */
+  @Nullable
+  private final T root;
+
+  /**
+   * The hash code of the parent-children associations, as defined by {@link com.google.common.collect.Multimap#hashCode()}
+   * for the equivalent set multimap, maintained incrementally.
+   */
+  private final int childrenHash;
+
+  /** The hash code of the child-parent associations, as defined by {@link Map#hashCode()}, maintained incrementally. */
+  private final int parentsHash;
+
+  private PersistentTree(final PersistentHashMap<T, PersistentHashSet<T>> children, final PersistentHashMap<T, T> parents,
+                         @Nullable final T root, final int childrenHash, final int parentsHash) {
+    this.children = children;
+    this.parents = parents;
+    this.root = root;
+    this.childrenHash = childrenHash;
+    this.parentsHash = parentsHash;
+  }
+
+  /**
+   * Creates a new, empty, persistent tree.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @return a new persistent tree
+   */
+  public static <T> PersistentTree<T> create() {
+    return new PersistentTree<T>(PersistentHashMap.<T, PersistentHashSet<T>>of(), PersistentHashMap.<T, T>of(), null, 0, 0);
+  }
+
+  /**
+   * Creates a copy of the specified tree, by creating a new tree with a copy of the associations in the specified tree and the
+   * same root node. Copying another persistent tree is O(1), as the structure is shared.
+   *
+   * @param <T> the type of the nodes in the trees
+   * @param tree a tree
+   * @return a new copy of the specified tree
+   */
+  public static <T> PersistentTree<T> copyOf(final Tree<T> tree) {
+    checkNotNull(tree);
+
+    if (tree instanceof PersistentTree) {
+      final PersistentTree<T> original = (PersistentTree<T>) tree;
+      return new PersistentTree<T>(original.children, original.parents, original.root, original.childrenHash,
+          original.parentsHash);
+    }
+
+    PersistentTree<T> persistentTree = create();
+
+    final T root = tree.getRoot();
+    if (root != null) {
+      persistentTree = persistentTree.withRoot(root);
+    }
+
+    final Iterable<Map.Entry<T, T>> associations = Trees.getAssociationsPreOrder(tree);
+    for (final Map.Entry<T, T> association : associations) {
+      persistentTree = persistentTree.added(association.getKey(), association.getValue());
+    }
+
+    return persistentTree;
+  }
+
+  @Override
+  public int size() {
+    return root == null ? 0 : 1 + parents.size();
+  }
+
+  @Override
+  public boolean contains(final T node) {
+    checkNotNull(node);
+    return node.equals(root) || parents.containsKey(node);
+  }
+
+  @Override
+  public T getParent(final T node) {
+    checkNotNull(node);
+    checkArgument(contains(node), "The tree doesn't contain the specified node: %s", node);
+    return parents.get(node);
+  }
+
+  @Override
+  public Collection<T> getChildren(final T node) {
+    checkNotNull(node);
+    checkArgument(contains(node), "The tree doesn't contain the specified node: %s", node);
+    return getChildren0(node);
+  }
+
+  private PersistentHashSet<T> getChildren0(final T node) {
+    final PersistentHashSet<T> nodeChildren = children.get(node);
+    return nodeChildren == null ? PersistentHashSet.<T>of() : nodeChildren;
+  }
+
+  @Override
+  @Nullable
+  public T getRoot() {
+    return root;
+  }
+
+  @Override
+  public PersistentTree<T> withRoot(final T node) {
+    checkNotNull(node);
+
+    if (node.equals(root)) {
+      return this;
+    }
+
+    return new PersistentTree<T>(PersistentHashMap.<T, PersistentHashSet<T>>of(), PersistentHashMap.<T, T>of(), node, 0, 0);
+  }
+
+  @Override
+  public PersistentTree<T> added(final T parent, final T child) {
+    checkNotNull(parent);
+    checkNotNull(child);
+    checkArgument(contains(parent), "The tree doesn't contain the specified parent node: %s", parent);
+
+    final T childParent = parents.get(child);
+    if (parent.equals(childParent)) {
+      return this;
+    }
+
+    checkArgument(childParent == null, "The child node (%s) is already associated to another node", child);
+
+    return addedInternal(parent, child);
+  }
+
+  /** Creates a copy of this tree with the specified parent/child association, which was checked, added to it. */
+  private PersistentTree<T> addedInternal(final T parent, final T child) {
+    final PersistentHashSet<T> parentChildren = getChildren0(parent);
+    final PersistentHashSet<T> newParentChildren = parentChildren.plus(child);
+
+    final int newChildrenHash = childrenHash - entryHash(parent, parentChildren) + entryHash(parent, newParentChildren);
+    final int newParentsHash = parentsHash + (child.hashCode() ^ parent.hashCode());
+
+    return new PersistentTree<T>(children.plus(parent, newParentChildren), parents.plus(child, parent), root,
+        newChildrenHash, newParentsHash);
+  }
+
+  @Override
+  public PersistentTree<T> removed(final T node) {
+    checkNotNull(node);
+
+    if (node.equals(root)) { // optimisation
+      return create();
+    }
+
+    if (!contains(node)) {
+      return this;
+    }
+
+    final T parent = parents.get(node);
+    final PersistentHashSet<T> parentChildren = getChildren0(parent);
+    final PersistentHashSet<T> newParentChildren = parentChildren.minus(node);
+
+    PersistentHashMap<T, PersistentHashSet<T>> newChildren = newParentChildren.isEmpty()
+        ? children.minus(parent)
+        : children.plus(parent, newParentChildren);
+    PersistentHashMap<T, T> newParents = parents.minus(node);
+    int newChildrenHash = childrenHash - entryHash(parent, parentChildren) + entryHash(parent, newParentChildren);
+    int newParentsHash = parentsHash - (node.hashCode() ^ parent.hashCode());
+
+    // Remove the descendants of the node, with an explicit stack to support deep trees
+    final Deque<T> stack = new ArrayDeque<T>();
+    stack.push(node);
+    while (!stack.isEmpty()) {
+      final T current = stack.pop();
+      final PersistentHashSet<T> currentChildren = getChildren0(current);
+      if (!currentChildren.isEmpty()) {
+        newChildren = newChildren.minus(current);
+        newChildrenHash -= entryHash(current, currentChildren);
+        for (final T child : currentChildren) {
+          newParents = newParents.minus(child);
+          newParentsHash -= child.hashCode() ^ current.hashCode();
+          stack.push(child);
+        }
+      }
+    }
+
+    return new PersistentTree<T>(newChildren, newParents, root, newChildrenHash, newParentsHash);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * Only the association of the node with its parent is replaced and only the ancestors of the new parent node are walked, so
+   * the subtree of the node is shared with this tree, and moving a node costs O(depth + log n).
+   */
+  @Override
+  public PersistentTree<T> moved(final T node, final T newParent) {
+    final T parent = Trees.checkMovable(this, node, newParent);
+    if (parent.equals(newParent)) {
+      return this;
+    }
+
+    final PersistentHashSet<T> parentChildren = getChildren0(parent);
+    final PersistentHashSet<T> parentChildrenAfter = parentChildren.minus(node);
+    final PersistentHashSet<T> newParentChildren = getChildren0(newParent);
+    final PersistentHashSet<T> newParentChildrenAfter = newParentChildren.plus(node);
+
+    final PersistentHashMap<T, PersistentHashSet<T>> withoutNode = parentChildrenAfter.isEmpty()
+        ? children.minus(parent)
+        : children.plus(parent, parentChildrenAfter);
+    final int newChildrenHash = childrenHash - entryHash(parent, parentChildren) + entryHash(parent, parentChildrenAfter)
+        - entryHash(newParent, newParentChildren) + entryHash(newParent, newParentChildrenAfter);
+    final int newParentsHash = parentsHash - (node.hashCode() ^ parent.hashCode()) + (node.hashCode() ^ newParent.hashCode());
+
+    return new PersistentTree<T>(withoutNode.plus(newParent, newParentChildrenAfter), parents.plus(node, newParent), root,
+        newChildrenHash, newParentsHash);
+  }
+
+  @Override
+  public PersistentTree<T> addedAll(final Iterable<Map.Entry<T, T>> associations) {
+    checkNotNull(associations);
+
+    PersistentTree<T> tree = this;
+    for (final Map.Entry<T, T> association : associations) {
+      tree = tree.added(association.getKey(), association.getValue());
+    }
+    return tree;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * The nodes of the subtree are checked once, and its associations are then added one at a time, each costing O(log n) and
+   * sharing the rest of the tree.
+   */
+  @Override
+  public PersistentTree<T> grafted(final T parent, final Tree<T> subtree) {
+    final T subtreeRoot = Trees.checkGraftable(this, parent, subtree);
+    if (subtreeRoot == null) {
+      return this;
+    }
+
+    PersistentTree<T> tree = addedInternal(parent, subtreeRoot);
+    for (final Map.Entry<T, T> association : Trees.getAssociationsPreOrder(subtree, subtreeRoot)) {
+      tree = tree.addedInternal(association.getKey(), association.getValue());
+    }
+    return tree;
+  }
+
+  @Override
+  public PersistentTree<T> removedAll(final Iterable<T> nodes) {
+    checkNotNull(nodes);
+
+    PersistentTree<T> tree = this;
+    for (final T node : nodes) {
+      tree = tree.removed(node);
+    }
+    return tree;
+  }
+
+  /**
+   * Returns the hash code of an entry of the parent-children map, or {@code 0} if the node has no children, as there isn't an
+   * entry then.
+   */
+  private static <T> int entryHash(final T node, final PersistentHashSet<T> nodeChildren) {
+    return nodeChildren.isEmpty() ? 0 : node.hashCode() ^ nodeChildren.hashCode();
+  }
+
+  @Override
+  public Iterator<Map.Entry<T, T>> iterator() {
+    final Iterator<Map.Entry<T, PersistentHashSet<T>>> parentIter = children.entrySet().iterator();
+    return new AbstractIterator<Map.Entry<T, T>>() {
+      private T parent;
+      private Iterator<T> childIter = PersistentHashSet.<T>of().iterator();
+
+      @Override
+      protected Map.Entry<T, T> computeNext() {
+        while (!childIter.hasNext()) {
+          if (!parentIter.hasNext()) {
+            return endOfData();
+          }
+          final Map.Entry<T, PersistentHashSet<T>> entry = parentIter.next();
+          parent = entry.getKey();
+          childIter = entry.getValue().iterator();
+        }
+        return new AbstractMap.SimpleImmutableEntry<T, T>(parent, childIter.next());
+      }
+    };
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    return this == obj || obj instanceof Tree && Trees.deepEquals(this, (Tree<?>) obj);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * The hash code is consistent with the other tree implementations of this package and is maintained incrementally, so this
+   * method is O(1).
+   */
+  @Override
+  public int hashCode() {
+    int result = root == null ? 0 : root.hashCode();
+    result = 31 * result + childrenHash;
+    result = 31 * result + parentsHash;
+    return result;
+  }
+}
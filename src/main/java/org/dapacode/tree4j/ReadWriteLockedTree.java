@@ -0,0 +1,260 @@
+package org.dapacode.tree4j;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableSet;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * A thread-safe mutable tree backed by another, not necessarily thread-safe, mutable tree, for read-mostly workloads.
+ * <p/>
+ * The modifications lock the backing tree exclusively, while the reads lock it in shared mode, so readers don't wait for each
+ * other. {@link #getChildren(Object)} returns a copy of the children, read under the shared lock.
+ * <p/>
+ * When the backing tree is a {@link ConcurrentMultimapTree}, which tolerates reads concurrent with its modifications, {@link
+ * #size()}, {@link #contains(Object)}, {@link #getParent(Object)} and {@link #getRoot()} first read it optimistically, without
+ * locking at all, and only fall back to the shared lock if a modification happened during the read. Other backing trees are
+ * always read under the shared lock, as reading them while they are modified may fail in any way, or never return.
+ * <p/>
+ * Long-running readers should use {@link #snapshot()}, an immutable copy of the tree which can be traversed without holding
+ * any lock. The snapshot is cached until the next modification, so taking it is free for as long as the tree isn't modified.
+ * {@link #iterator()} iterates over the snapshot.
+ * <p/>
+ * The backing tree must only be accessed through this tree.
+ *
+ * @param <T> the type of the nodes in the tree
+ * @see Trees#readWriteLockedTree(MutableTree)
+ */
+public final class ReadWriteLockedTree<T> extends DelegatingMutableTree<T> {
+  private final MutableTree<T> delegate;
+
+  private final StampedLock lock = new StampedLock();
+
+  /** Whether the backing tree can be read optimistically, while it may be modified. */
+  private final boolean optimisticReads;
+
+  /** The snapshot of the current state of the tree, or {@code null} if the tree was modified since the last snapshot. */
+  @Nullable
+  private volatile ImmutableTree<T> snapshot;
+
+  ReadWriteLockedTree(final MutableTree<T> delegate) {
+    this.delegate = checkNotNull(delegate);
+    this.optimisticReads = delegate instanceof ConcurrentMultimapTree;
+  }
+
+  @Override
+  protected MutableTree<T> delegate() {
+    return delegate;
+  }
+
+  /**
+   * Returns an immutable copy of the current state of the tree. The copy is taken under the shared lock and then kept until
+   * the tree is next modified.
+   *
+   * @return an immutable copy of the tree
+   */
+  public ImmutableTree<T> snapshot() {
+    final ImmutableTree<T> cachedSnapshot = snapshot;
+    if (cachedSnapshot != null) {
+      return cachedSnapshot;
+    }
+
+    final long stamp = lock.readLock();
+    try {
+      // The modifications, which discard the snapshot, are excluded by the lock, so the copy can be cached
+      ImmutableTree<T> newSnapshot = snapshot;
+      if (newSnapshot == null) {
+        newSnapshot = ImmutableMultimapTree.copyOf(delegate);
+        snapshot = newSnapshot;
+      }
+      return newSnapshot;
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  /**
+   * Runs the specified read on the backing tree, first optimistically, without locking, if the backing tree supports it, then,
+   * if the tree was modified in the meantime, under the shared lock. Anything thrown by an invalidated optimistic read is
+   * discarded, as the read may have observed the tree in an inconsistent state.
+   */
+  private <R> R read(final Supplier<R> reader) {
+    final long stamp = optimisticReads ? lock.tryOptimisticRead() : 0L;
+    if (stamp != 0L) {
+      try {
+        final R result = reader.get();
+        if (lock.validate(stamp)) {
+          return result;
+        }
+      } catch (Throwable t) {
+        if (lock.validate(stamp)) {
+          throw Throwables.propagate(t);
+        }
+      }
+    }
+
+    final long readStamp = lock.readLock();
+    try {
+      return reader.get();
+    } finally {
+      lock.unlockRead(readStamp);
+    }
+  }
+
+  @Override
+  public int size() {
+    return read(new Supplier<Integer>() {
+      @Override
+      public Integer get() {
+        return delegate.size();
+      }
+    });
+  }
+
+  @Override
+  public boolean contains(final T node) {
+    checkNotNull(node);
+    return read(new Supplier<Boolean>() {
+      @Override
+      public Boolean get() {
+        return delegate.contains(node);
+      }
+    });
+  }
+
+  @Override
+  @Nullable
+  public T getParent(final T node) {
+    checkNotNull(node);
+    return read(new Supplier<T>() {
+      @Override
+      public T get() {
+        return delegate.getParent(node);
+      }
+    });
+  }
+
+  @Override
+  public Collection<T> getChildren(final T node) {
+    final long stamp = lock.readLock();
+    try {
+      return ImmutableSet.copyOf(delegate.getChildren(node));
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  @Override
+  @Nullable
+  public T getRoot() {
+    return read(new Supplier<T>() {
+      @Override
+      public T get() {
+        return delegate.getRoot();
+      }
+    });
+  }
+
+  @Override
+  public Iterator<Map.Entry<T, T>> iterator() {
+    return snapshot().iterator();
+  }
+
+  @Override
+  public boolean setRoot(final T node) {
+    final long stamp = lock.writeLock();
+    try {
+      final boolean changed = delegate.setRoot(node);
+      if (changed) {
+        snapshot = null;
+      }
+      return changed;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  @Override
+  public boolean add(final T parent, final T child) {
+    final long stamp = lock.writeLock();
+    try {
+      final boolean changed = delegate.add(parent, child);
+      if (changed) {
+        snapshot = null;
+      }
+      return changed;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  @Override
+  public boolean move(final T node, final T newParent) {
+    final long stamp = lock.writeLock();
+    try {
+      final boolean changed = delegate.move(node, newParent);
+      if (changed) {
+        snapshot = null;
+      }
+      return changed;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  @Override
+  public boolean addAll(final T parent, final Tree<T> subtree) {
+    final long stamp = lock.writeLock();
+    try {
+      final boolean changed = delegate.addAll(parent, subtree);
+      if (changed) {
+        snapshot = null;
+      }
+      return changed;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  @Override
+  public void clear() {
+    final long stamp = lock.writeLock();
+    try {
+      delegate.clear();
+      snapshot = null;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  @Override
+  public boolean remove(final T node) {
+    final long stamp = lock.writeLock();
+    try {
+      final boolean changed = delegate.remove(node);
+      if (changed) {
+        snapshot = null;
+      }
+      return changed;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    return obj == this || snapshot().equals(obj);
+  }
+
+  @Override
+  public int hashCode() {
+    return snapshot().hashCode();
+  }
+}
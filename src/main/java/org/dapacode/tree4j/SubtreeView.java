@@ -0,0 +1,178 @@
+package org.dapacode.tree4j;
+
+import com.google.common.collect.Iterators;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * A live view of the subtree of a node of a backing tree, rooted at that node, which copies nothing: the queries are delegated
+ * to the backing tree, once the node they are about is known to be in the subtree.
+ * <p/>
+ * A node is in the subtree if the root of the view is one of its ancestors, or the node itself, which is tested in O(1) on a
+ * {@link NestedSetTree} and by walking up the ancestors of the node, up to the root of the view, otherwise. The size and the
+ * associations are computed from the backing tree when requested, the size in O(1) on an {@link IndexedTree} and by traversing
+ * the subtree otherwise. Once the root of the view is removed from the backing tree, the view is empty.
+ *
+ * @param <T> the type of the nodes in the tree
+ * @see Trees#subtreeView(Tree, Object)
+ */
+class SubtreeView<T> implements Tree<T> {
+  /** The backing tree. */
+  final Tree<T> tree;
+
+  /** The root of the view, a node of the backing tree. */
+  final T root;
+
+  SubtreeView(final Tree<T> tree, final T root) {
+    checkNotNull(tree);
+    checkArgument(tree.contains(root), "The tree doesn't contain the specified node: %s", root);
+    this.tree = tree;
+    this.root = root;
+  }
+
+  /** Tests whether the root of the view is still in the backing tree. */
+  final boolean isAttached() {
+    return tree.contains(root);
+  }
+
+  @Override
+  public final int size() {
+    if (!isAttached()) {
+      return 0;
+    } else if (tree instanceof IndexedTree) {
+      return ((IndexedTree<T>) tree).getSubtreeSize(root);
+    } else {
+      return Trees.getNodesPreOrder(tree, root).size();
+    }
+  }
+
+  @Override
+  public final boolean contains(final T node) {
+    checkNotNull(node);
+    if (!tree.contains(node)) {
+      return false;
+    } else if (node.equals(root)) {
+      return true;
+    } else if (tree instanceof NestedSetTree) {
+      return ((NestedSetTree<T>) tree).isDescendant(node, root);
+    }
+
+    for (T ancestor = tree.getParent(node); ancestor != null; ancestor = tree.getParent(ancestor)) {
+      if (ancestor.equals(root)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Checks that the specified node is in the subtree. */
+  final void checkContains(final T node) {
+    checkArgument(contains(node), "The tree doesn't contain the specified node: %s", node);
+  }
+
+  @Override
+  @Nullable
+  public final T getParent(final T node) {
+    checkContains(node);
+    return node.equals(root) ? null : tree.getParent(node);
+  }
+
+  @Override
+  public final Collection<T> getChildren(final T node) {
+    checkContains(node);
+    return tree.getChildren(node);
+  }
+
+  @Override
+  @Nullable
+  public final T getRoot() {
+    return isAttached() ? root : null;
+  }
+
+  @Override
+  public final Iterator<Map.Entry<T, T>> iterator() {
+    return isAttached() ? Trees.getAssociationsPreOrder(tree, root).iterator() : Iterators.<Map.Entry<T, T>>emptyIterator();
+  }
+
+  @Override
+  public final boolean equals(final Object obj) {
+    return this == obj || obj instanceof Tree && Trees.deepEquals(this, (Tree<?>) obj);
+  }
+
+  @Override
+  public final int hashCode() {
+    return Trees.hashCode(this);
+  }
+
+  /**
+   * A live view of the subtree of a node of a backing mutable tree, which writes the modifications through to the backing tree.
+   * The root of the view can't be changed, so {@link #setRoot(Object)} is only supported with the current root, and {@link
+   * #clear()} removes the root of the view, along with the whole subtree, from the backing tree.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @see Trees#mutableSubtreeView(MutableTree, Object)
+   */
+  static final class Mutable<T> extends SubtreeView<T> implements MutableTree<T> {
+    Mutable(final MutableTree<T> tree, final T root) {
+      super(tree, root);
+    }
+
+    /** Returns the backing tree, which is mutable as the view is created with a mutable tree. */
+    private MutableTree<T> mutableTree() {
+      return (MutableTree<T>) tree;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UnsupportedOperationException if the specified node isn't the root of the view
+     */
+    @Override
+    public boolean setRoot(final T node) {
+      checkNotNull(node);
+      if (node.equals(getRoot())) {
+        return false;
+      }
+      throw new UnsupportedOperationException("The root of a subtree view can't be changed");
+    }
+
+    @Override
+    public boolean add(final T parent, final T child) {
+      checkNotNull(child);
+      checkContains(parent);
+      return mutableTree().add(parent, child);
+    }
+
+    @Override
+    public boolean move(final T node, final T newParent) {
+      checkContains(node);
+      checkContains(newParent);
+      checkArgument(!node.equals(root), "The root node can't be moved: %s", node);
+      return mutableTree().move(node, newParent);
+    }
+
+    @Override
+    public boolean addAll(final T parent, final Tree<T> subtree) {
+      checkContains(parent);
+      return mutableTree().addAll(parent, subtree);
+    }
+
+    @Override
+    public void clear() {
+      if (isAttached()) {
+        mutableTree().remove(root);
+      }
+    }
+
+    @Override
+    public boolean remove(final T node) {
+      checkContains(node);
+      return mutableTree().remove(node);
+    }
+  }
+}
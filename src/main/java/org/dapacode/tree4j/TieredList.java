@@ -0,0 +1,284 @@
+package org.dapacode.tree4j;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * A list implemented as a tiered vector: its elements are kept in a list of blocks, each a circular array of {@link
+ * #BLOCK_CAPACITY} elements, all of which are full but the last one.
+ * <p/>
+ * Getting the element at an index is O(1), and so is getting the index of an element, as each element knows its block and its
+ * slot within the block. Adding or removing an element at an index shifts the elements of its block towards the closer end of
+ * the block and moves one element between each pair of following blocks, so it is O(b + n / b) where b is the block capacity,
+ * and O(1) at the end of the list.
+ * <p/>
+ * Only the {@link Element}s of one list at a time may be added to a list, and the list doesn't support {@link #set(int,
+ * Object)}.
+ *
+ * @param <E> the type of the elements in the list
+ */
+final class TieredList<E extends TieredList.Element> extends AbstractList<E> implements RandomAccess {
+  /** The capacity of the blocks, a power of two. */
+  static final int BLOCK_CAPACITY = 1024;
+
+  /** The number of bits of an index which address an element within its block. */
+  private static final int BLOCK_SHIFT = Integer.numberOfTrailingZeros(BLOCK_CAPACITY);
+
+  /** The capacity of the last block when it is created, which is doubled up to the block capacity as it fills up. */
+  private static final int INITIAL_CAPACITY = 2;
+
+  /**
+   * An element of a tiered list, which keeps track of its position in the list.
+   */
+  abstract static class Element {
+    /** The block of the element, or {@code null} if it isn't in a list. */
+    private Block block;
+
+    /** The slot of the element in the array of its block. */
+    private int slot;
+  }
+
+  /** The blocks of the list, all of which are full but the last one. */
+  private final List<Block> blocks = new ArrayList<Block>();
+
+  /** The number of elements in the list. */
+  private int size;
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public E get(final int index) {
+    checkElementIndex(index, size);
+    @SuppressWarnings("unchecked") // Only elements of type E are added
+    final E element = (E) blocks.get(index >>> BLOCK_SHIFT).get(index & (BLOCK_CAPACITY - 1));
+    return element;
+  }
+
+  /**
+   * Returns the index of the specified element in this list, in O(1).
+   *
+   * @param obj an object
+   * @return the index of the specified object, or {@code -1} if it isn't an element of this list
+   */
+  @Override
+  public int indexOf(final Object obj) {
+    if (!(obj instanceof Element)) {
+      return -1;
+    }
+    final Element element = (Element) obj;
+    final Block block = element.block;
+    if (block == null || block.list != this) {
+      return -1;
+    }
+    return (block.index << BLOCK_SHIFT) + block.offsetOf(element.slot);
+  }
+
+  @Override
+  public int lastIndexOf(final Object obj) {
+    return indexOf(obj);
+  }
+
+  @Override
+  public boolean contains(final Object obj) {
+    return indexOf(obj) != -1;
+  }
+
+  @Override
+  public void add(final int index, final E element) {
+    checkPositionIndex(index, size);
+    checkNotNull(element);
+    checkArgument(((Element) element).block == null, "The element is already in a list: %s", element);
+
+    ensureRoomAtTheEnd();
+    final int blockIndex = index >>> BLOCK_SHIFT;
+    for (int i = blocks.size() - 1; i > blockIndex; i--) {
+      blocks.get(i).addFirst(blocks.get(i - 1).removeLast());
+    }
+    blocks.get(blockIndex).insert(index & (BLOCK_CAPACITY - 1), element);
+
+    size++;
+    modCount++;
+  }
+
+  @Override
+  public E remove(final int index) {
+    checkElementIndex(index, size);
+
+    final int blockIndex = index >>> BLOCK_SHIFT;
+    @SuppressWarnings("unchecked") // Only elements of type E are added
+    final E element = (E) blocks.get(blockIndex).delete(index & (BLOCK_CAPACITY - 1));
+    for (int i = blockIndex + 1; i < blocks.size(); i++) {
+      blocks.get(i - 1).addLast(blocks.get(i).removeFirst());
+    }
+    final Block last = blocks.get(blocks.size() - 1);
+    if (last.size == 0) {
+      blocks.remove(last.index);
+    }
+
+    size--;
+    modCount++;
+    return element;
+  }
+
+  @Override
+  public boolean remove(final Object obj) {
+    final int index = indexOf(obj);
+    if (index == -1) {
+      return false;
+    }
+    remove(index);
+    return true;
+  }
+
+  @Override
+  public void clear() {
+    for (final Block block : blocks) {
+      block.clear();
+    }
+    blocks.clear();
+    size = 0;
+    modCount++;
+  }
+
+  /** Makes sure the last block has room for another element, by growing it or by adding a new block after it. */
+  private void ensureRoomAtTheEnd() {
+    final Block last = blocks.isEmpty() ? null : blocks.get(blocks.size() - 1);
+    if (last == null || last.size == BLOCK_CAPACITY) {
+      blocks.add(new Block(this, blocks.size()));
+    } else if (last.size == last.elements.length) {
+      last.grow();
+    }
+  }
+
+  /** A block of a tiered list, a circular array of elements. */
+  private static final class Block {
+    /** The list of the block, as the elements only know their block. */
+    private final TieredList<?> list;
+
+    /** The index of the block in the list, which never changes as blocks are only added and removed at the end. */
+    private final int index;
+
+    /** The elements of the block, of a power of two length. */
+    private Element[] elements = new Element[INITIAL_CAPACITY];
+
+    /** The slot of the first element. */
+    private int head;
+
+    /** The number of elements in the block. */
+    private int size;
+
+    private Block(final TieredList<?> list, final int index) {
+      this.list = list;
+      this.index = index;
+    }
+
+    private int slotOf(final int offset) {
+      return (head + offset) & (elements.length - 1);
+    }
+
+    private int offsetOf(final int slot) {
+      return (slot - head) & (elements.length - 1);
+    }
+
+    private Element get(final int offset) {
+      return elements[slotOf(offset)];
+    }
+
+    private void place(final Element element, final int slot) {
+      elements[slot] = element;
+      element.block = this;
+      element.slot = slot;
+    }
+
+    /** Doubles the capacity of the block, laying its elements out from the first slot. */
+    private void grow() {
+      final Element[] oldElements = elements;
+      final int oldHead = head;
+      elements = new Element[oldElements.length * 2];
+      head = 0;
+      for (int i = 0; i < size; i++) {
+        place(oldElements[(oldHead + i) & (oldElements.length - 1)], i);
+      }
+    }
+
+    private void addFirst(final Element element) {
+      head = slotOf(-1);
+      place(element, head);
+      size++;
+    }
+
+    private void addLast(final Element element) {
+      place(element, slotOf(size));
+      size++;
+    }
+
+    private Element removeFirst() {
+      final Element element = detach(head);
+      head = slotOf(1);
+      size--;
+      return element;
+    }
+
+    private Element removeLast() {
+      final Element element = detach(slotOf(size - 1));
+      size--;
+      return element;
+    }
+
+    /** Inserts the element at the specified offset, shifting the elements before or after it, whichever are fewer. */
+    private void insert(final int offset, final Element element) {
+      if (offset < size - offset) {
+        head = slotOf(-1);
+        for (int i = 0; i < offset; i++) {
+          place(elements[slotOf(i + 1)], slotOf(i));
+        }
+      } else {
+        for (int i = size; i > offset; i--) {
+          place(elements[slotOf(i - 1)], slotOf(i));
+        }
+      }
+      place(element, slotOf(offset));
+      size++;
+    }
+
+    /** Deletes the element at the specified offset, shifting the elements before or after it, whichever are fewer. */
+    private Element delete(final int offset) {
+      final Element element = get(offset);
+      element.block = null;
+      if (offset < size - 1 - offset) {
+        for (int i = offset; i > 0; i--) {
+          place(elements[slotOf(i - 1)], slotOf(i));
+        }
+        elements[head] = null;
+        head = slotOf(1);
+      } else {
+        for (int i = offset; i < size - 1; i++) {
+          place(elements[slotOf(i + 1)], slotOf(i));
+        }
+        elements[slotOf(size - 1)] = null;
+      }
+      size--;
+      return element;
+    }
+
+    private Element detach(final int slot) {
+      final Element element = elements[slot];
+      elements[slot] = null;
+      element.block = null;
+      return element;
+    }
+
+    private void clear() {
+      for (int i = 0; i < size; i++) {
+        elements[slotOf(i)].block = null;
+      }
+    }
+  }
+}
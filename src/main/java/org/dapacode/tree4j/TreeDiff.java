@@ -0,0 +1,246 @@
+package org.dapacode.tree4j;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * The differences between two trees, a source tree and a target tree, as an edit script turning a tree equal to the source
+ * tree into a tree equal to the target tree: the parent-child associations to add, the nodes to move to another parent and
+ * the subtrees to remove. The nodes which keep their parent aren't part of the script, so its size is proportional to the
+ * differences between the trees rather than to their size.
+ * <p/>
+ * If the trees don't have the same root, the script sets the new root and adds all the associations of the target tree.
+ * <p/>
+ * A diff is immutable. It must only be applied to a tree equal to its source tree, the result is unspecified otherwise.
+ *
+ * @param <T> the type of the nodes in the trees
+ * @see Trees#diff(Tree, Tree)
+ */
+public final class TreeDiff<T> {
+  /** Whether the root of the target tree isn't the root of the source tree. */
+  private final boolean rootChanged;
+
+  /** The root of the target tree, if it's changed. */
+  @Nullable
+  private final T root;
+
+  /**
+   * The parent-child associations whose child is either added or moved to the parent, in the pre-order of the target tree, so
+   * that each parent is in place before its children.
+   */
+  private final List<Map.Entry<T, T>> changes;
+
+  /** The children of the changes which are moved rather than added. */
+  private final Set<T> moved;
+
+  /** The roots of the subtrees to remove. */
+  private final List<T> removed;
+
+  private TreeDiff(final boolean rootChanged, @Nullable final T root, final List<Map.Entry<T, T>> changes,
+                   final Set<T> moved, final List<T> removed) {
+    this.rootChanged = rootChanged;
+    this.root = root;
+    this.changes = changes;
+    this.moved = moved;
+    this.removed = removed;
+  }
+
+  /**
+   * Computes the differences between the specified trees, in O(n), walking each tree once.
+   *
+   * @return the differences between the trees
+   */
+  static <T> TreeDiff<T> between(final Tree<T> source, final Tree<T> target) {
+    checkNotNull(source);
+    checkNotNull(target);
+
+    final T sourceRoot = source.getRoot();
+    final T targetRoot = target.getRoot();
+    if (targetRoot == null || !targetRoot.equals(sourceRoot)) {
+      final ImmutableList<Map.Entry<T, T>> associations = targetRoot == null
+          ? ImmutableList.<Map.Entry<T, T>>of()
+          : immutableAssociations(Trees.getAssociationsPreOrder(target));
+      return new TreeDiff<T>(sourceRoot != null || targetRoot != null, targetRoot, associations, ImmutableSet.<T>of(),
+          ImmutableList.<T>of());
+    }
+
+    final ImmutableList.Builder<Map.Entry<T, T>> changes = ImmutableList.builder();
+    final ImmutableSet.Builder<T> moved = ImmutableSet.builder();
+    for (final Map.Entry<T, T> association : Trees.getAssociationsPreOrder(target)) {
+      final T parent = association.getKey();
+      final T child = association.getValue();
+      if (!source.contains(child)) {
+        changes.add(Maps.immutableEntry(parent, child));
+      } else if (!parent.equals(source.getParent(child))) {
+        changes.add(Maps.immutableEntry(parent, child));
+        moved.add(child);
+      }
+    }
+
+    // The nodes of the target tree in the removed subtrees are moved out of them first, along with their own subtrees, so the
+    // roots of the subtrees to remove are the nodes missing from the target tree whose parent is in the target tree
+    final ImmutableList.Builder<T> removed = ImmutableList.builder();
+    for (final Map.Entry<T, T> association : Trees.getAssociationsPreOrder(source)) {
+      if (!target.contains(association.getValue()) && target.contains(association.getKey())) {
+        removed.add(association.getValue());
+      }
+    }
+
+    return new TreeDiff<T>(false, null, changes.build(), moved.build(), removed.build());
+  }
+
+  private static <T> ImmutableList<Map.Entry<T, T>> immutableAssociations(final Iterable<Map.Entry<T, T>> associations) {
+    final ImmutableList.Builder<Map.Entry<T, T>> builder = ImmutableList.builder();
+    for (final Map.Entry<T, T> association : associations) {
+      builder.add(Maps.immutableEntry(association.getKey(), association.getValue()));
+    }
+    return builder.build();
+  }
+
+  /**
+   * Tests whether the source and target trees are equal, in which case applying the diff leaves a tree unchanged.
+   *
+   * @return {@code true} if the diff has no changes
+   */
+  public boolean isEmpty() {
+    return !rootChanged && changes.isEmpty() && removed.isEmpty();
+  }
+
+  /**
+   * Tests whether the target tree has another root than the source tree, in which case the diff replaces all the nodes of the
+   * tree it's applied to.
+   *
+   * @return {@code true} if the root is changed
+   */
+  public boolean isRootChanged() {
+    return rootChanged;
+  }
+
+  /**
+   * Returns the root of the target tree, if it isn't the root of the source tree.
+   *
+   * @return the new root, or {@code null} if the root isn't changed or if the target tree is empty
+   */
+  @Nullable
+  public T getRoot() {
+    return root;
+  }
+
+  /**
+   * Returns the parent-child associations to add, whose child nodes aren't contained in the source tree, in the pre-order of
+   * the target tree.
+   *
+   * @return the added associations
+   */
+  public List<Map.Entry<T, T>> getAddedAssociations() {
+    return FluentIterable.from(changes).filter(new Predicate<Map.Entry<T, T>>() {
+      @Override
+      public boolean apply(final Map.Entry<T, T> change) {
+        return !moved.contains(change.getValue());
+      }
+    }).toList();
+  }
+
+  /**
+   * Returns the nodes of the source tree moved, with their subtrees, to another parent, in the pre-order of the target tree.
+   *
+   * @return the new parent of each moved node, by node
+   */
+  public Map<T, T> getMovedNodes() {
+    final ImmutableMap.Builder<T, T> movedNodes = ImmutableMap.builder();
+    for (final Map.Entry<T, T> change : changes) {
+      if (moved.contains(change.getValue())) {
+        movedNodes.put(change.getValue(), change.getKey());
+      }
+    }
+    return movedNodes.build();
+  }
+
+  /**
+   * Returns the roots of the subtrees of the source tree to remove, once the nodes of the target tree they contain are moved
+   * out of them.
+   *
+   * @return the removed nodes
+   */
+  public List<T> getRemovedNodes() {
+    return removed;
+  }
+
+  /**
+   * Applies this diff to the specified tree, which must be equal to the source tree, making it equal to the target tree.
+   *
+   * @param tree a mutable tree equal to the source tree
+   * @throws IllegalArgumentException if the tree isn't equal to the source tree and a change can't be applied
+   */
+  public void applyTo(final MutableTree<T> tree) {
+    checkNotNull(tree);
+    if (rootChanged) {
+      if (root == null) {
+        tree.clear();
+        return;
+      }
+      tree.setRoot(root);
+    }
+
+    // As the changes are in the pre-order of the target tree, a node is never moved under one of its descendants
+    for (final Map.Entry<T, T> change : changes) {
+      final T child = change.getValue();
+      if (moved.contains(child)) {
+        tree.move(child, change.getKey());
+      } else {
+        tree.add(change.getKey(), child);
+      }
+    }
+
+    for (final T node : removed) {
+      tree.remove(node);
+    }
+  }
+
+  /**
+   * Creates a copy of the specified tree, which must be equal to the source tree, with this diff applied to it: a tree equal
+   * to the target tree. The consecutive additions are batched with {@link ImmutableTree#addedAll(Iterable)} and the removals
+   * with {@link ImmutableTree#removedAll(Iterable)}, so that few intermediate copies of the tree are created.
+   *
+   * @param tree an immutable tree equal to the source tree
+   * @return a tree equal to the target tree
+   * @throws IllegalArgumentException if the tree isn't equal to the source tree and a change can't be applied
+   */
+  public ImmutableTree<T> appliedTo(final ImmutableTree<T> tree) {
+    checkNotNull(tree);
+    ImmutableTree<T> result = tree;
+    if (rootChanged) {
+      if (root == null) {
+        final T treeRoot = tree.getRoot();
+        return treeRoot == null ? tree : tree.removed(treeRoot);
+      }
+      result = tree.withRoot(root);
+    }
+
+    final List<Map.Entry<T, T>> additions = Lists.newArrayList();
+    for (final Map.Entry<T, T> change : changes) {
+      final T child = change.getValue();
+      if (moved.contains(child)) {
+        // The pending additions may include the new parent of the node
+        result = result.addedAll(additions).moved(child, change.getKey());
+        additions.clear();
+      } else {
+        additions.add(change);
+      }
+    }
+
+    return result.addedAll(additions).removedAll(removed);
+  }
+}
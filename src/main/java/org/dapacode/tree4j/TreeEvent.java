@@ -0,0 +1,125 @@
+package org.dapacode.tree4j;
+
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * A modification of a mutable tree, published by an {@link ObservableMutableTree} to its listeners.
+ *
+ * @param <T> the type of the nodes in the tree
+ */
+public final class TreeEvent<T> {
+  /** The types of modifications. */
+  public enum Type {
+    /** The root was set, discarding all the previous nodes of the tree. */
+    ROOT_SET,
+    /** A parent-child association was added. */
+    ADDED,
+    /** A node and, with it, all of its children were moved to another parent. */
+    MOVED,
+    /** A node and, recursively, all of its children were removed. */
+    REMOVED,
+    /** All the nodes of the tree were removed. */
+    CLEARED
+  }
+
+  private final Type type;
+
+  @Nullable
+  private final T node;
+
+  @Nullable
+  private final T parent;
+
+  @Nullable
+  private final T previousParent;
+
+  @Nullable
+  private final ImmutableTree<T> subtree;
+
+  private TreeEvent(final Type type, @Nullable final T node, @Nullable final T parent, @Nullable final T previousParent,
+                    @Nullable final ImmutableTree<T> subtree) {
+    this.type = type;
+    this.node = node;
+    this.parent = parent;
+    this.previousParent = previousParent;
+    this.subtree = subtree;
+  }
+
+  static <T> TreeEvent<T> rootSet(final T root) {
+    return new TreeEvent<T>(Type.ROOT_SET, checkNotNull(root), null, null, null);
+  }
+
+  static <T> TreeEvent<T> added(final T parent, final T child) {
+    return new TreeEvent<T>(Type.ADDED, checkNotNull(child), checkNotNull(parent), null, null);
+  }
+
+  static <T> TreeEvent<T> moved(final T previousParent, final T newParent, final T node) {
+    return new TreeEvent<T>(Type.MOVED, checkNotNull(node), checkNotNull(newParent), checkNotNull(previousParent), null);
+  }
+
+  static <T> TreeEvent<T> removed(@Nullable final T parent, final ImmutableTree<T> subtree) {
+    return new TreeEvent<T>(Type.REMOVED, checkNotNull(subtree.getRoot()), parent, null, subtree);
+  }
+
+  static <T> TreeEvent<T> cleared() {
+    return new TreeEvent<T>(Type.CLEARED, null, null, null, null);
+  }
+
+  /**
+   * Returns the type of the modification.
+   *
+   * @return the type of the modification
+   */
+  public Type getType() {
+    return type;
+  }
+
+  /**
+   * Returns the node the modification is about: the new root, the added child, the moved node or the root of the removed
+   * subtree.
+   *
+   * @return the node, or {@code null} if the tree was cleared
+   */
+  @Nullable
+  public T getNode() {
+    return node;
+  }
+
+  /**
+   * Returns the parent of the node: the parent the child was added to, the parent the node was moved to, or the parent the
+   * removed subtree was removed from.
+   *
+   * @return the parent of the node, or {@code null} if the root was set, the root was removed or the tree was cleared
+   */
+  @Nullable
+  public T getParent() {
+    return parent;
+  }
+
+  /**
+   * Returns the parent the node was moved from.
+   *
+   * @return the previous parent of the node, or {@code null} if no node was moved
+   */
+  @Nullable
+  public T getPreviousParent() {
+    return previousParent;
+  }
+
+  /**
+   * Returns a copy of the subtree which was removed, whose root is the removed node.
+   *
+   * @return the removed subtree, or {@code null} if no node was removed
+   */
+  @Nullable
+  public ImmutableTree<T> getSubtree() {
+    return subtree;
+  }
+
+  @Override
+  public String toString() {
+    return type + (node == null ? "" : "(" + (parent == null ? "" : parent + ", ") + node + ")");
+  }
+}
@@ -0,0 +1,446 @@
+package org.dapacode.tree4j;
+
+import com.google.common.collect.ImmutableMap;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.beans.ConstructorProperties;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongBinaryOperator;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * The metrics of an instrumented tree: the number of calls, the number of failed calls and a histogram of the latencies of
+ * each operation, and gauges of the size and the maximum depth of the tree.
+ * <p/>
+ * The statistics are recorded with {@link LongAdder}s, so the threads calling the tree don't contend with each other. The
+ * latencies are counted in logarithmic buckets, four per power of two, so the percentiles are estimated within 25%, and a
+ * histogram takes a fixed amount of memory whatever the latencies.
+ * <p/>
+ * The maximum depth of an {@link IndexedTree} is read from its index, in O(1). The maximum depth of the other trees is only
+ * measured on demand, by {@link #snapshotMaxDepth()}, which walks the whole tree, and the gauge reports the last depth
+ * measured, so that polling it never walks the tree. The depth measured is kept until the tree is next modified through the
+ * instrumented mutable tree, or forever if the tree is immutable, so taking a snapshot of an unmodified tree doesn't walk it
+ * again.
+ *
+ * @see InstrumentedTree
+ * @see InstrumentedMutableTree
+ */
+public final class TreeMetrics implements TreeMetricsMXBean {
+  /** The domain of the JMX object names of the metrics. */
+  public static final String JMX_DOMAIN = "org.dapacode.tree4j";
+
+  /** The initial capacity of the stack of depths walking the tree. */
+  private static final int INITIAL_DEPTHS = 64;
+
+  /** The operations of the trees. */
+  public enum Operation {
+    SIZE, CONTAINS, GET_PARENT, GET_CHILDREN, GET_ROOT, ITERATOR, SET_ROOT, ADD, MOVE, ADD_ALL, CLEAR, REMOVE
+  }
+
+  private final Tree<?> tree;
+
+  /** Whether the cached maximum depth is only invalidated by {@link #modified()}. */
+  private final boolean depthCacheable;
+
+  private final Map<Operation, OperationStatistics> statistics = new EnumMap<Operation, OperationStatistics>(Operation.class);
+
+  /** The number of modifications of the tree, maintained by the instrumented mutable tree. */
+  private final AtomicLong modifications = new AtomicLong();
+
+  /** The last maximum depth measured, or {@code null} if it was never measured. */
+  private volatile DepthCache depthCache;
+
+  TreeMetrics(final Tree<?> tree, final boolean depthCacheable) {
+    this.tree = checkNotNull(tree);
+    this.depthCacheable = depthCacheable;
+    for (final Operation operation : Operation.values()) {
+      statistics.put(operation, new OperationStatistics());
+    }
+  }
+
+  /** Returns the start time of a call, to pass to {@link #succeeded(Operation, long)} or {@link #failed(Operation, long)}. */
+  static long start() {
+    return System.nanoTime();
+  }
+
+  void succeeded(final Operation operation, final long start) {
+    statistics.get(operation).record(System.nanoTime() - start, false);
+  }
+
+  void failed(final Operation operation, final long start) {
+    statistics.get(operation).record(System.nanoTime() - start, true);
+  }
+
+  /** Invalidates the last maximum depth measured, which is still reported until the next snapshot. */
+  void modified() {
+    modifications.incrementAndGet();
+  }
+
+  @Override
+  public int getSize() {
+    return tree.size();
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * The depth is read from the index of an {@link IndexedTree}. For the other trees, this is the depth measured by the last
+   * {@link #snapshotMaxDepth()}, which may be out of date, or {@code -1} if it was never measured.
+   */
+  @Override
+  public int getMaxDepth() {
+    if (tree instanceof IndexedTree) {
+      return ((IndexedTree<?>) tree).getMaxDepth();
+    }
+    final DepthCache cache = depthCache;
+    return cache == null ? -1 : cache.maxDepth;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * The tree is walked in O(n), unless it's an {@link IndexedTree} or it wasn't modified since the depth was last measured. A
+   * tree which isn't thread-safe must not be modified during the walk.
+   */
+  @Override
+  public int snapshotMaxDepth() {
+    if (tree instanceof IndexedTree) {
+      return ((IndexedTree<?>) tree).getMaxDepth();
+    }
+    final DepthCache cache = depthCache;
+    final long currentModifications = modifications.get();
+    if (cache != null && depthCacheable && cache.modifications == currentModifications) {
+      return cache.maxDepth;
+    }
+    final int maxDepth = computeMaxDepth(tree);
+    depthCache = new DepthCache(currentModifications, maxDepth);
+    return maxDepth;
+  }
+
+  /** Walks the tree depth first, with a stack of the nodes to visit and a parallel stack of their depths. */
+  private static <T> int computeMaxDepth(final Tree<T> tree) {
+    final T root = tree.getRoot();
+    if (root == null) {
+      return -1;
+    }
+    int maxDepth = 0;
+    final Deque<T> nodes = new ArrayDeque<T>();
+    int[] depths = new int[INITIAL_DEPTHS];
+    nodes.push(root);
+    depths[0] = 0;
+    while (!nodes.isEmpty()) {
+      final T node = nodes.pop();
+      final int depth = depths[nodes.size()];
+      maxDepth = Math.max(maxDepth, depth);
+      for (final T child : tree.getChildren(node)) {
+        if (nodes.size() == depths.length) {
+          depths = Arrays.copyOf(depths, 2 * depths.length);
+        }
+        depths[nodes.size()] = depth + 1;
+        nodes.push(child);
+      }
+    }
+    return maxDepth;
+  }
+
+  /**
+   * Returns a snapshot of the statistics of the specified operation.
+   *
+   * @param operation an operation
+   * @return the statistics of the operation
+   */
+  public OperationSnapshot getSnapshot(final Operation operation) {
+    return statistics.get(checkNotNull(operation)).snapshot();
+  }
+
+  @Override
+  public Map<String, OperationSnapshot> getOperations() {
+    final ImmutableMap.Builder<String, OperationSnapshot> operations = ImmutableMap.builder();
+    for (final Map.Entry<Operation, OperationStatistics> entry : statistics.entrySet()) {
+      final OperationSnapshot snapshot = entry.getValue().snapshot();
+      if (snapshot.getCalls() > 0) {
+        operations.put(entry.getKey().name(), snapshot);
+      }
+    }
+    return operations.build();
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p/>
+   * The calls in progress may be recorded either before or after the reset.
+   */
+  @Override
+  public void reset() {
+    for (final OperationStatistics operationStatistics : statistics.values()) {
+      operationStatistics.reset();
+    }
+  }
+
+  /**
+   * Registers these metrics as an MXBean of the platform MBean server, under the {@link #JMX_DOMAIN} domain, with the
+   * {@code Tree} type and the specified name.
+   *
+   * @param name the name of the tree, unique among the registered trees
+   * @return the name the MXBean was registered under
+   * @throws JMException if the name isn't a valid object name property or if it's already registered
+   */
+  public ObjectName registerMBean(final String name) throws JMException {
+    final ObjectName objectName = objectName(name);
+    ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+    return objectName;
+  }
+
+  /**
+   * Unregisters the MXBean registered under the specified name.
+   *
+   * @param name the name of the tree
+   * @throws JMException if no MXBean is registered under the name
+   */
+  public static void unregisterMBean(final String name) throws JMException {
+    ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName(name));
+  }
+
+  private static ObjectName objectName(final String name) throws JMException {
+    final Hashtable<String, String> properties = new Hashtable<String, String>();
+    properties.put("type", "Tree");
+    properties.put("name", checkNotNull(name));
+    return new ObjectName(JMX_DOMAIN, properties);
+  }
+
+  /** The maximum depth of the tree after a number of modifications. */
+  private static final class DepthCache {
+    private final long modifications;
+    private final int maxDepth;
+
+    DepthCache(final long modifications, final int maxDepth) {
+      this.modifications = modifications;
+      this.maxDepth = maxDepth;
+    }
+  }
+
+  /** The statistics of an operation, recorded concurrently. */
+  private static final class OperationStatistics {
+    private static final LongBinaryOperator MAX = new LongBinaryOperator() {
+      @Override
+      public long applyAsLong(final long left, final long right) {
+        return Math.max(left, right);
+      }
+    };
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(MAX, 0L);
+    private final LongAdder[] buckets = new LongAdder[LatencyBuckets.COUNT];
+
+    OperationStatistics() {
+      for (int i = 0; i < buckets.length; i++) {
+        buckets[i] = new LongAdder();
+      }
+    }
+
+    void record(final long nanos, final boolean failed) {
+      final long latency = Math.max(nanos, 0L);
+      calls.increment();
+      if (failed) {
+        errors.increment();
+      }
+      totalNanos.add(latency);
+      maxNanos.accumulate(latency);
+      buckets[LatencyBuckets.index(latency)].increment();
+    }
+
+    void reset() {
+      calls.reset();
+      errors.reset();
+      totalNanos.reset();
+      maxNanos.reset();
+      for (final LongAdder bucket : buckets) {
+        bucket.reset();
+      }
+    }
+
+    OperationSnapshot snapshot() {
+      final long[] counts = new long[buckets.length];
+      for (int i = 0; i < buckets.length; i++) {
+        counts[i] = buckets[i].sum();
+      }
+      return new OperationSnapshot(calls.sum(), errors.sum(), totalNanos.sum(), maxNanos.get(), counts);
+    }
+  }
+
+  /**
+   * The logarithmic buckets of the latency histograms: the latencies below four nanoseconds have a bucket each, then each
+   * power of two is split into four buckets of equal width.
+   */
+  static final class LatencyBuckets {
+    /** The base two logarithm of the number of buckets per power of two. */
+    private static final int SUB_BUCKET_BITS = 2;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    static final int COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private LatencyBuckets() { /* Utility class */ }
+
+    /** Returns the index of the bucket of the specified latency, which isn't negative. */
+    static int index(final long nanos) {
+      if (nanos < SUB_BUCKETS) {
+        return (int) nanos;
+      }
+      final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(nanos);
+      final int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+      return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /** Returns the lowest latency of the bucket with the specified index. */
+    static long lowerBound(final int index) {
+      if (index < SUB_BUCKETS) {
+        return index;
+      }
+      final int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+      return (long) (SUB_BUCKETS + index % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    /** Returns the highest latency of the bucket with the specified index. */
+    static long upperBound(final int index) {
+      return index == COUNT - 1 ? Long.MAX_VALUE : lowerBound(index + 1) - 1;
+    }
+  }
+
+  /**
+   * A snapshot of the statistics of an operation. The statistics are read one after the other while calls may be recorded,
+   * so they may be slightly inconsistent with each other.
+   */
+  public static final class OperationSnapshot {
+    private static final double MEDIAN = 0.5;
+    private static final double P90 = 0.9;
+    private static final double P99 = 0.99;
+    private static final double P999 = 0.999;
+
+    private final long calls;
+    private final long errors;
+    private final long totalNanos;
+    private final long maxNanos;
+    private final long[] bucketCounts;
+
+    /**
+     * Creates a snapshot of the statistics of an operation.
+     *
+     * @param calls the number of calls
+     * @param errors the number of calls which threw an exception
+     * @param totalNanos the sum of the latencies
+     * @param maxNanos the highest latency
+     * @param bucketCounts the number of calls in each bucket of the latency histogram
+     */
+    @ConstructorProperties({"calls", "errors", "totalNanos", "maxNanos", "bucketCounts"})
+    public OperationSnapshot(final long calls, final long errors, final long totalNanos, final long maxNanos,
+                             final long[] bucketCounts) {
+      this.calls = calls;
+      this.errors = errors;
+      this.totalNanos = totalNanos;
+      this.maxNanos = maxNanos;
+      this.bucketCounts = bucketCounts.clone();
+    }
+
+    public long getCalls() {
+      return calls;
+    }
+
+    public long getErrors() {
+      return errors;
+    }
+
+    public long getTotalNanos() {
+      return totalNanos;
+    }
+
+    public long getMaxNanos() {
+      return maxNanos;
+    }
+
+    public double getMeanNanos() {
+      return calls == 0 ? 0.0 : (double) totalNanos / calls;
+    }
+
+    public long getMedianNanos() {
+      return getPercentileNanos(MEDIAN);
+    }
+
+    public long getP90Nanos() {
+      return getPercentileNanos(P90);
+    }
+
+    public long getP99Nanos() {
+      return getPercentileNanos(P99);
+    }
+
+    public long getP999Nanos() {
+      return getPercentileNanos(P999);
+    }
+
+    /**
+     * Returns the number of calls in each bucket of the latency histogram, the latencies of bucket {@code i} being between
+     * the {@code i}-th lowest and highest bounds.
+     *
+     * @return the counts of the buckets
+     * @see #getLowerBoundNanos(int)
+     */
+    public long[] getBucketCounts() {
+      return bucketCounts.clone();
+    }
+
+    /**
+     * Returns the lowest latency of a bucket of the histogram.
+     *
+     * @param bucket the index of a bucket
+     * @return the lowest latency of the bucket
+     */
+    public static long getLowerBoundNanos(final int bucket) {
+      checkElementIndex(bucket, LatencyBuckets.COUNT);
+      return LatencyBuckets.lowerBound(bucket);
+    }
+
+    /**
+     * Estimates a percentile of the latencies, as the highest latency of the bucket containing it, capped to the highest
+     * latency recorded.
+     *
+     * @param quantile the quantile of the percentile, between {@code 0} exclusive and {@code 1} inclusive
+     * @return the estimated percentile, or {@code 0} if there were no calls
+     */
+    public long getPercentileNanos(final double quantile) {
+      checkArgument(quantile > 0.0 && quantile <= 1.0, "The quantile isn't between 0 and 1: %s", quantile);
+      long total = 0L;
+      for (final long count : bucketCounts) {
+        total += count;
+      }
+      final long rank = (long) Math.ceil(quantile * total);
+      long cumulative = 0L;
+      for (int i = 0; i < bucketCounts.length; i++) {
+        cumulative += bucketCounts[i];
+        if (cumulative >= rank && bucketCounts[i] > 0) {
+          return Math.min(LatencyBuckets.upperBound(i), maxNanos);
+        }
+      }
+      return 0L;
+    }
+
+    @Override
+    public String toString() {
+      return "calls=" + calls + ", errors=" + errors + ", mean=" + getMeanNanos() + "ns, p50=" + getMedianNanos() + "ns, p99="
+          + getP99Nanos() + "ns, max=" + maxNanos + "ns";
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package org.dapacode.tree4j;
+
+import java.util.Map;
+
+/**
+ * The management interface of the {@link TreeMetrics} of an instrumented tree, exposed through JMX.
+ *
+ * @see TreeMetrics#registerMBean(String)
+ */
+public interface TreeMetricsMXBean {
+  /**
+   * Returns the number of nodes of the tree.
+   *
+   * @return the size of the tree
+   */
+  int getSize();
+
+  /**
+   * Returns the depth of the deepest node of the tree, as last measured by {@link #snapshotMaxDepth()} unless the tree is
+   * indexed.
+   *
+   * @return the maximum depth of the tree, or {@code -1} if the tree is empty or its depth was never measured
+   */
+  int getMaxDepth();
+
+  /**
+   * Measures the depth of the deepest node of the tree, walking the tree unless it's indexed or unmodified since the last
+   * measure.
+   *
+   * @return the maximum depth of the tree, or {@code -1} if the tree is empty
+   */
+  int snapshotMaxDepth();
+
+  /**
+   * Returns a snapshot of the statistics of each operation called on the tree at least once.
+   *
+   * @return the statistics, by operation name
+   */
+  Map<String, TreeMetrics.OperationSnapshot> getOperations();
+
+  /** Resets the statistics of all the operations. */
+  void reset();
+}
@@ -0,0 +1,182 @@
+package org.dapacode.tree4j;
+
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * A {@link Spliterator} over the nodes of a set of whole subtrees of a tree, mapped to the elements it traverses. It's split
+ * along subtree boundaries: the subtrees are shared between the two halves and, when a single subtree is left, it's expanded
+ * into its root, which is kept, and the subtrees of its children, which can then be shared.
+ * <p/>
+ * The nodes are traversed depth-first, but in no specified order. The spliterator is {@link #SIZED} until it's split, when
+ * the exact number of nodes in each half is unknown without traversing them.
+ *
+ * @param <T> the type of the nodes in the tree
+ * @param <E> the type of the elements traversed
+ */
+final class TreeSpliterator<T, E> implements Spliterator<E> {
+  private final Tree<T> tree;
+
+  private final Function<? super T, ? extends E> mapper;
+
+  /** The nodes to traverse on their own, before the subtrees: the roots of the expanded subtrees. */
+  private final Deque<T> nodes;
+
+  /** The roots of the subtrees to traverse, whole. */
+  private final Deque<T> subtrees;
+
+  private long estimatedSize;
+
+  private int characteristics;
+
+  private TreeSpliterator(final Tree<T> tree, final Function<? super T, ? extends E> mapper, final Deque<T> nodes,
+      final Deque<T> subtrees, final long estimatedSize, final int characteristics) {
+    this.tree = tree;
+    this.mapper = mapper;
+    this.nodes = nodes;
+    this.subtrees = subtrees;
+    this.estimatedSize = estimatedSize;
+    this.characteristics = characteristics;
+  }
+
+  /**
+   * Creates a spliterator over the nodes of the specified tree.
+   *
+   * @return a new spliterator
+   */
+  static <T> Spliterator<T> nodes(final Tree<T> tree) {
+    checkNotNull(tree);
+    final T root = tree.getRoot();
+    final Deque<T> subtrees = new ArrayDeque<T>();
+    if (root != null) {
+      subtrees.add(root);
+    }
+    return new TreeSpliterator<T, T>(tree, Function.<T>identity(), new ArrayDeque<T>(), subtrees, tree.size(),
+        characteristics(tree, true));
+  }
+
+  /**
+   * Creates a spliterator over the nodes of the subtree of the specified tree whose root is the specified node.
+   *
+   * @return a new spliterator
+   */
+  static <T> Spliterator<T> subtreeNodes(final Tree<T> tree, final T node) {
+    checkNotNull(tree);
+    checkNotNull(node);
+    checkArgument(tree.contains(node), "The tree doesn't contain the specified node: %s", node);
+    final Deque<T> subtrees = new ArrayDeque<T>();
+    subtrees.add(node);
+    final boolean sized = node.equals(tree.getRoot());
+    return new TreeSpliterator<T, T>(tree, Function.<T>identity(), new ArrayDeque<T>(), subtrees, tree.size(),
+        characteristics(tree, sized));
+  }
+
+  /**
+   * Creates a spliterator over the parent-child associations of the specified tree.
+   *
+   * @return a new spliterator
+   */
+  static <T> Spliterator<Map.Entry<T, T>> associations(final Tree<T> tree) {
+    checkNotNull(tree);
+    final T root = tree.getRoot();
+    final Deque<T> subtrees = new ArrayDeque<T>();
+    if (root != null) {
+      subtrees.addAll(tree.getChildren(root));
+    }
+    final Function<T, Map.Entry<T, T>> toAssociation = new Function<T, Map.Entry<T, T>>() {
+      @Override
+      public Map.Entry<T, T> apply(final T child) {
+        return new AbstractMap.SimpleImmutableEntry<T, T>(tree.getParent(child), child);
+      }
+    };
+    return new TreeSpliterator<T, Map.Entry<T, T>>(tree, toAssociation, new ArrayDeque<T>(), subtrees,
+        Math.max(tree.size() - 1, 0), characteristics(tree, true));
+  }
+
+  private static int characteristics(final Tree<?> tree, final boolean sized) {
+    int characteristics = DISTINCT | NONNULL;
+    if (tree instanceof ImmutableTree || tree instanceof FrozenTree) {
+      characteristics |= IMMUTABLE;
+    } else if (tree instanceof ConcurrentMultimapTree) {
+      // The size of a concurrently modified tree isn't exact
+      return characteristics | CONCURRENT;
+    }
+    return sized ? characteristics | SIZED : characteristics;
+  }
+
+  /** Removes the next node to traverse, pushing the roots of its children's subtrees, if it's the root of a subtree. */
+  private T next() {
+    final T node = nodes.pollFirst();
+    if (node != null) {
+      return node;
+    }
+    final T subtreeRoot = subtrees.pop();
+    for (final T child : tree.getChildren(subtreeRoot)) {
+      subtrees.push(child);
+    }
+    return subtreeRoot;
+  }
+
+  @Override
+  public boolean tryAdvance(final Consumer<? super E> action) {
+    checkNotNull(action);
+    if (nodes.isEmpty() && subtrees.isEmpty()) {
+      return false;
+    }
+    if (estimatedSize > 0) {
+      estimatedSize--;
+    }
+    action.accept(mapper.apply(next()));
+    return true;
+  }
+
+  @Override
+  public void forEachRemaining(final Consumer<? super E> action) {
+    checkNotNull(action);
+    while (!nodes.isEmpty() || !subtrees.isEmpty()) {
+      action.accept(mapper.apply(next()));
+    }
+    estimatedSize = 0;
+  }
+
+  @Override
+  public Spliterator<E> trySplit() {
+    // Expand a lone subtree until there are several to share, which takes several steps down chains of single children
+    while (subtrees.size() == 1) {
+      final T subtreeRoot = subtrees.pop();
+      nodes.add(subtreeRoot);
+      subtrees.addAll(tree.getChildren(subtreeRoot));
+    }
+    if (subtrees.isEmpty()) {
+      return null;
+    }
+
+    // Hand over the subtrees which would be traversed last
+    final Deque<T> splitSubtrees = new ArrayDeque<T>();
+    for (int i = subtrees.size() / 2; i > 0; i--) {
+      splitSubtrees.push(subtrees.removeLast());
+    }
+
+    characteristics &= ~SIZED;
+    final long splitSize = estimatedSize / 2;
+    estimatedSize -= splitSize;
+    return new TreeSpliterator<T, E>(tree, mapper, new ArrayDeque<T>(), splitSubtrees, splitSize, characteristics);
+  }
+
+  @Override
+  public long estimateSize() {
+    return estimatedSize;
+  }
+
+  @Override
+  public int characteristics() {
+    return characteristics;
+  }
+}
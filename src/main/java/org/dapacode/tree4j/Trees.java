@@ -1,19 +1,37 @@
 package org.dapacode.tree4j;
 
-import com.google.common.base.Function;
+import com.google.common.base.Objects;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
+import javax.annotation.Nullable;
 import java.util.AbstractMap;
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.*;
 
 public final class Trees {
+  /** The multiplier used to combine the hash codes of the root and of the associations of a tree. */
+  static final int HASH_MULTIPLIER = 31;
+
   private Trees() { /* Utility class */ }
 
   public static <T> Collection<Map.Entry<T, T>> getAssociationsDepthFirst(final Tree<T> tree) {
@@ -22,26 +40,1027 @@ public final class Trees {
   }
 
   public static <T> Collection<Map.Entry<T, T>> getAssociationsDepthFirst(final Tree<T> tree, final T node) {
+    return Lists.newArrayList(getAssociationsPreOrder(tree, node));
+  }
+
+  /**
+   * Returns a lazy view of the nodes of the tree in pre-order: each node comes before its children.
+   * <p/>
+   * The traversal uses an explicit stack, so it needs O(depth) memory and supports trees of any depth, and it only visits as
+   * many nodes as are consumed. Modifying the tree while iterating results in undefined behaviour.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @param tree a tree
+   * @return the nodes of the tree in pre-order, or an empty iterable if the tree has no root
+   */
+  public static <T> FluentIterable<T> getNodesPreOrder(final Tree<T> tree) {
+    final T root = tree.getRoot();
+    return root == null ? FluentIterable.from(ImmutableList.<T>of()) : getNodesPreOrder(tree, root);
+  }
+
+  /**
+   * Returns a lazy view of the nodes of the subtree of the specified node in pre-order, starting with the node itself. See
+   * {@link #getNodesPreOrder(Tree)} for details.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @param tree a tree
+   * @param node a node of the tree
+   * @return the nodes of the subtree in pre-order
+   * @throws IllegalArgumentException if the specified node isn't contained in the tree
+   */
+  public static <T> FluentIterable<T> getNodesPreOrder(final Tree<T> tree, final T node) {
+    checkContains(tree, node);
+    return new FluentIterable<T>() {
+      @Override
+      public Iterator<T> iterator() {
+        return Iterators.concat(Iterators.singletonIterator(node), new PreOrderIterator<T>(tree, node));
+      }
+    };
+  }
+
+  /**
+   * Returns a lazy view of the nodes of the tree in post-order: each node comes after its children. See {@link
+   * #getNodesPreOrder(Tree)} for details.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @param tree a tree
+   * @return the nodes of the tree in post-order, or an empty iterable if the tree has no root
+   */
+  public static <T> FluentIterable<T> getNodesPostOrder(final Tree<T> tree) {
+    final T root = tree.getRoot();
+    return root == null ? FluentIterable.from(ImmutableList.<T>of()) : getNodesPostOrder(tree, root);
+  }
+
+  /**
+   * Returns a lazy view of the nodes of the subtree of the specified node in post-order, ending with the node itself. See
+   * {@link #getNodesPreOrder(Tree)} for details.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @param tree a tree
+   * @param node a node of the tree
+   * @return the nodes of the subtree in post-order
+   * @throws IllegalArgumentException if the specified node isn't contained in the tree
+   */
+  public static <T> FluentIterable<T> getNodesPostOrder(final Tree<T> tree, final T node) {
+    checkContains(tree, node);
+    return new FluentIterable<T>() {
+      @Override
+      public Iterator<T> iterator() {
+        return Iterators.concat(new PostOrderIterator<T>(tree, node), Iterators.singletonIterator(node));
+      }
+    };
+  }
+
+  /**
+   * Returns a lazy view of the nodes of the tree in breadth-first order: level by level, starting at the root.
+   * <p/>
+   * The traversal uses a queue, so it needs O(width) memory, and it only visits as many nodes as are consumed. Modifying the
+   * tree while iterating results in undefined behaviour.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @param tree a tree
+   * @return the nodes of the tree in breadth-first order, or an empty iterable if the tree has no root
+   */
+  public static <T> FluentIterable<T> getNodesBreadthFirst(final Tree<T> tree) {
+    final T root = tree.getRoot();
+    return root == null ? FluentIterable.from(ImmutableList.<T>of()) : getNodesBreadthFirst(tree, root);
+  }
+
+  /**
+   * Returns a lazy view of the nodes of the subtree of the specified node in breadth-first order, starting with the node
+   * itself. See {@link #getNodesBreadthFirst(Tree)} for details.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @param tree a tree
+   * @param node a node of the tree
+   * @return the nodes of the subtree in breadth-first order
+   * @throws IllegalArgumentException if the specified node isn't contained in the tree
+   */
+  public static <T> FluentIterable<T> getNodesBreadthFirst(final Tree<T> tree, final T node) {
+    checkContains(tree, node);
+    return new FluentIterable<T>() {
+      @Override
+      public Iterator<T> iterator() {
+        return Iterators.concat(Iterators.singletonIterator(node), new BreadthFirstIterator<T>(tree, node));
+      }
+    };
+  }
+
+  /**
+   * Returns a lazy view of the parent-child associations of the tree, in the pre-order of the child nodes. See {@link
+   * #getNodesPreOrder(Tree)} for details.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @param tree a tree
+   * @return the associations of the tree in pre-order, or an empty iterable if the tree has no root
+   */
+  public static <T> FluentIterable<Map.Entry<T, T>> getAssociationsPreOrder(final Tree<T> tree) {
+    final T root = tree.getRoot();
+    return root == null ? FluentIterable.from(ImmutableList.<Map.Entry<T, T>>of()) : getAssociationsPreOrder(tree, root);
+  }
+
+  /**
+   * Returns a lazy view of the parent-child associations of the subtree of the specified node, in the pre-order of the child
+   * nodes. See {@link #getNodesPreOrder(Tree)} for details.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @param tree a tree
+   * @param node a node of the tree
+   * @return the associations of the subtree in pre-order
+   * @throws IllegalArgumentException if the specified node isn't contained in the tree
+   */
+  public static <T> FluentIterable<Map.Entry<T, T>> getAssociationsPreOrder(final Tree<T> tree, final T node) {
+    checkContains(tree, node);
+    return new FluentIterable<Map.Entry<T, T>>() {
+      @Override
+      public Iterator<Map.Entry<T, T>> iterator() {
+        return associations(new PreOrderIterator<T>(tree, node));
+      }
+    };
+  }
+
+  /**
+   * Returns a lazy view of the parent-child associations of the tree, in the post-order of the child nodes. See {@link
+   * #getNodesPreOrder(Tree)} for details.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @param tree a tree
+   * @return the associations of the tree in post-order, or an empty iterable if the tree has no root
+   */
+  public static <T> FluentIterable<Map.Entry<T, T>> getAssociationsPostOrder(final Tree<T> tree) {
+    final T root = tree.getRoot();
+    return root == null ? FluentIterable.from(ImmutableList.<Map.Entry<T, T>>of()) : getAssociationsPostOrder(tree, root);
+  }
+
+  /**
+   * Returns a lazy view of the parent-child associations of the subtree of the specified node, in the post-order of the child
+   * nodes. See {@link #getNodesPreOrder(Tree)} for details.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @param tree a tree
+   * @param node a node of the tree
+   * @return the associations of the subtree in post-order
+   * @throws IllegalArgumentException if the specified node isn't contained in the tree
+   */
+  public static <T> FluentIterable<Map.Entry<T, T>> getAssociationsPostOrder(final Tree<T> tree, final T node) {
+    checkContains(tree, node);
+    return new FluentIterable<Map.Entry<T, T>>() {
+      @Override
+      public Iterator<Map.Entry<T, T>> iterator() {
+        return associations(new PostOrderIterator<T>(tree, node));
+      }
+    };
+  }
+
+  /**
+   * Returns a lazy view of the parent-child associations of the tree, in the breadth-first order of the child nodes. See
+   * {@link #getNodesBreadthFirst(Tree)} for details.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @param tree a tree
+   * @return the associations of the tree in breadth-first order, or an empty iterable if the tree has no root
+   */
+  public static <T> FluentIterable<Map.Entry<T, T>> getAssociationsBreadthFirst(final Tree<T> tree) {
+    final T root = tree.getRoot();
+    return root == null ? FluentIterable.from(ImmutableList.<Map.Entry<T, T>>of()) : getAssociationsBreadthFirst(tree, root);
+  }
+
+  /**
+   * Returns a lazy view of the parent-child associations of the subtree of the specified node, in the breadth-first order of
+   * the child nodes. See {@link #getNodesBreadthFirst(Tree)} for details.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @param tree a tree
+   * @param node a node of the tree
+   * @return the associations of the subtree in breadth-first order
+   * @throws IllegalArgumentException if the specified node isn't contained in the tree
+   */
+  public static <T> FluentIterable<Map.Entry<T, T>> getAssociationsBreadthFirst(final Tree<T> tree, final T node) {
+    checkContains(tree, node);
+    return new FluentIterable<Map.Entry<T, T>>() {
+      @Override
+      public Iterator<Map.Entry<T, T>> iterator() {
+        return associations(new BreadthFirstIterator<T>(tree, node));
+      }
+    };
+  }
+
+  private static <T> void checkContains(final Tree<T> tree, final T node) {
+    checkNotNull(tree);
+    checkArgument(tree.contains(node), "The tree doesn't contain the specified node: %s", node);
+  }
+
+  private static <T> Iterator<Map.Entry<T, T>> associations(final TraversalIterator<T> traversal) {
+    return new AbstractIterator<Map.Entry<T, T>>() {
+      @Override
+      protected Map.Entry<T, T> computeNext() {
+        if (!traversal.hasNext()) {
+          return endOfData();
+        }
+        final T child = traversal.next();
+        return new AbstractMap.SimpleImmutableEntry<T, T>(traversal.getParent(), child);
+      }
+    };
+  }
+
+  /**
+   * An iterator over the descendants of a node, which also exposes the parent of the last returned node.
+   *
+   * @param <T> the type of the nodes in the tree
+   */
+  private abstract static class TraversalIterator<T> extends AbstractIterator<T> {
+    final Tree<T> tree;
+    T parent;
+
+    TraversalIterator(final Tree<T> tree) {
+      this.tree = tree;
+    }
+
+    /** Returns the parent of the node last returned by {@link #next()}. */
+    final T getParent() {
+      return parent;
+    }
+  }
+
+  /**
+   * A pre-order traversal of the descendants of a node, which keeps a stack of the nodes being visited and of the iterators
+   * over their children.
+   */
+  private static final class PreOrderIterator<T> extends TraversalIterator<T> {
+    private final Deque<T> nodes = new ArrayDeque<T>();
+    private final Deque<Iterator<T>> childIters = new ArrayDeque<Iterator<T>>();
+
+    PreOrderIterator(final Tree<T> tree, final T node) {
+      super(tree);
+      nodes.push(node);
+      childIters.push(tree.getChildren(node).iterator());
+    }
+
+    @Override
+    protected T computeNext() {
+      while (!childIters.isEmpty()) {
+        final Iterator<T> childIter = childIters.peek();
+        if (childIter.hasNext()) {
+          final T child = childIter.next();
+          parent = nodes.peek();
+          nodes.push(child);
+          childIters.push(tree.getChildren(child).iterator());
+          return child;
+        }
+        nodes.pop();
+        childIters.pop();
+      }
+      return endOfData();
+    }
+  }
+
+  /**
+   * A post-order traversal of the descendants of a node, which keeps a stack of the nodes being visited and of the iterators
+   * over their children.
+   */
+  private static final class PostOrderIterator<T> extends TraversalIterator<T> {
+    private final Deque<T> nodes = new ArrayDeque<T>();
+    private final Deque<Iterator<T>> childIters = new ArrayDeque<Iterator<T>>();
+
+    PostOrderIterator(final Tree<T> tree, final T node) {
+      super(tree);
+      nodes.push(node);
+      childIters.push(tree.getChildren(node).iterator());
+    }
+
+    @Override
+    protected T computeNext() {
+      while (!childIters.isEmpty()) {
+        final Iterator<T> childIter = childIters.peek();
+        if (childIter.hasNext()) {
+          final T child = childIter.next();
+          nodes.push(child);
+          childIters.push(tree.getChildren(child).iterator());
+        } else {
+          childIters.pop();
+          final T node = nodes.pop();
+          if (!nodes.isEmpty()) { // The starting node itself isn't returned
+            parent = nodes.peek();
+            return node;
+          }
+        }
+      }
+      return endOfData();
+    }
+  }
+
+  /** A breadth-first traversal of the descendants of a node, which keeps a queue of the nodes whose children are pending. */
+  private static final class BreadthFirstIterator<T> extends TraversalIterator<T> {
+    private final Queue<T> queue = new ArrayDeque<T>();
+    private Iterator<T> childIter;
+
+    BreadthFirstIterator(final Tree<T> tree, final T node) {
+      super(tree);
+      parent = node;
+      childIter = tree.getChildren(node).iterator();
+    }
+
+    @Override
+    protected T computeNext() {
+      while (!childIter.hasNext()) {
+        if (queue.isEmpty()) {
+          return endOfData();
+        }
+        parent = queue.remove();
+        childIter = tree.getChildren(parent).iterator();
+      }
+      final T child = childIter.next();
+      queue.add(child);
+      return child;
+    }
+  }
+
+  /**
+   * Returns a sequential stream of the parent-child associations of the specified tree, in no specified order.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @param tree a tree
+   * @return a stream of the associations of the tree
+   */
+  public static <T> Stream<Map.Entry<T, T>> stream(final Tree<T> tree) {
+    return StreamSupport.stream(TreeSpliterator.associations(tree), false);
+  }
+
+  /**
+   * Returns a parallel stream of the parent-child associations of the specified tree, in no specified order. The stream is
+   * split along subtree boundaries, so that the nodes of large trees are shared among the threads regardless of their shape.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @param tree a tree
+   * @return a parallel stream of the associations of the tree
+   */
+  public static <T> Stream<Map.Entry<T, T>> parallelStream(final Tree<T> tree) {
+    return StreamSupport.stream(TreeSpliterator.associations(tree), true);
+  }
+
+  /**
+   * Returns a sequential stream of the nodes of the specified tree, in no specified order. The stream is split along subtree
+   * boundaries when made {@link Stream#parallel() parallel}.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @param tree a tree
+   * @return a stream of the nodes of the tree
+   */
+  public static <T> Stream<T> nodes(final Tree<T> tree) {
+    return StreamSupport.stream(TreeSpliterator.nodes(tree), false);
+  }
+
+  /**
+   * Returns a sequential stream of the specified node and its descendants, in no specified order. The stream is split along
+   * subtree boundaries when made {@link Stream#parallel() parallel}.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @param tree a tree
+   * @param node a node of the tree
+   * @return a stream of the nodes of the subtree
+   * @throws IllegalArgumentException if the specified node isn't contained in the tree
+   */
+  public static <T> Stream<T> subtreeStream(final Tree<T> tree, final T node) {
+    return StreamSupport.stream(TreeSpliterator.subtreeNodes(tree, node), false);
+  }
+
+  /**
+   * Builds an index of the specified tree answering ancestry queries, such as lowest common ancestors, without walking up the
+   * tree. See {@link AncestorIndex} for details.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @param tree a tree
+   * @return a new ancestor index of the tree
+   */
+  public static <T> AncestorIndex<T> ancestorIndex(final Tree<T> tree) {
+    return new AncestorIndex<T>(tree);
+  }
+
+  /**
+   * Computes a bottom-up aggregate for every node of the specified tree: the value of a node is its own value, given by the
+   * node function, combined in turn with the aggregate of each of its children, by the combiner. For instance, with the size
+   * of each file as the node function and addition as the combiner, the aggregate of a directory is its total size.
+   * <p/>
+   * The tree is traversed iteratively, so its depth isn't limited by the size of the call stack. The functions must not return
+   * {@code null}.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @param <R> the type of the aggregates
+   * @param tree a tree
+   * @param nodeFunction the function giving the own value of each node
+   * @param combiner the function combining the value of a node with the aggregate of one of its children
+   * @return the aggregates of all the nodes of the tree, by node
+   * @see #parallelFoldUp(Tree, Function, BinaryOperator)
+   */
+  public static <T, R> Map<T, R> foldUp(final Tree<T> tree, final Function<? super T, ? extends R> nodeFunction,
+      final BinaryOperator<R> combiner) {
+    checkNotNull(tree);
+    checkNotNull(nodeFunction);
+    checkNotNull(combiner);
+
+    final Map<T, R> results = Maps.newHashMapWithExpectedSize(tree.size());
+    for (final T node : getNodesPostOrder(tree)) {
+      results.put(node, foldNode(tree, node, nodeFunction, combiner, results));
+    }
+    return results;
+  }
+
+  /**
+   * Computes the same bottom-up aggregates as {@link #foldUp(Tree, Function, BinaryOperator)}, in parallel in the common
+   * {@link ForkJoinPool}.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @param <R> the type of the aggregates
+   * @param tree a tree, which must not be modified during the computation
+   * @param nodeFunction the function giving the own value of each node
+   * @param combiner the function combining the value of a node with the aggregate of one of its children
+   * @return the aggregates of all the nodes of the tree, by node
+   */
+  public static <T, R> Map<T, R> parallelFoldUp(final Tree<T> tree, final Function<? super T, ? extends R> nodeFunction,
+      final BinaryOperator<R> combiner) {
+    return parallelFoldUp(tree, nodeFunction, combiner, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Computes the same bottom-up aggregates as {@link #foldUp(Tree, Function, BinaryOperator)}, in parallel in the specified
+   * {@link ForkJoinPool}.
+   * <p/>
+   * Each task folds a part of a subtree, around a thousand nodes, sequentially and iteratively, and forks the subtrees of the
+   * remaining children as new tasks. The aggregates of the nodes which depend on forked tasks are computed when these tasks
+   * complete, without blocking, so the depth of the tree is limited neither by the call stack nor by the number of threads.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @param <R> the type of the aggregates
+   * @param tree a tree, which must not be modified during the computation
+   * @param nodeFunction the function giving the own value of each node, which must be thread-safe
+   * @param combiner the function combining the value of a node with the aggregate of one of its children, which must be
+   * thread-safe
+   * @param pool the pool running the computation
+   * @return the aggregates of all the nodes of the tree, by node
+   */
+  public static <T, R> Map<T, R> parallelFoldUp(final Tree<T> tree, final Function<? super T, ? extends R> nodeFunction,
+      final BinaryOperator<R> combiner, final ForkJoinPool pool) {
+    checkNotNull(tree);
+    checkNotNull(nodeFunction);
+    checkNotNull(combiner);
+    checkNotNull(pool);
+
+    final Map<T, R> results = new ConcurrentHashMap<T, R>(tree.size());
+    final T root = tree.getRoot();
+    if (root != null) {
+      pool.invoke(new FoldUpTask<T, R>(null, tree, nodeFunction, combiner, results, ImmutableList.of(root), 0, 1));
+    }
+    return results;
+  }
+
+  /** Folds the value of the specified node with the aggregates of its children, which must already be computed. */
+  private static <T, R> R foldNode(final Tree<T> tree, final T node, final Function<? super T, ? extends R> nodeFunction,
+      final BinaryOperator<R> combiner, final Map<T, R> results) {
+    R result = nodeFunction.apply(node);
+    for (final T child : tree.getChildren(node)) {
+      result = combiner.apply(result, results.get(child));
+    }
+    return result;
+  }
+
+  /**
+   * A task folding the subtrees of a range of sibling nodes. The nodes whose aggregate depends on the subtrees forked as
+   * separate tasks are deferred, and folded when all the forked tasks have completed.
+   */
+  private static final class FoldUpTask<T, R> extends CountedCompleter<Void> {
+    /** The number of nodes a task folds before forking the remaining subtrees. */
+    private static final int THRESHOLD = 1024;
+
+    /** The number of queued tasks above which a task stops sharing its sibling nodes upfront. */
+    private static final int MAX_SURPLUS_TASKS = 3;
+
+    private static final long serialVersionUID = 0L;
+
+    private final Tree<T> tree;
+    private final Function<? super T, ? extends R> nodeFunction;
+    private final BinaryOperator<R> combiner;
+    private final Map<T, R> results;
+    private final List<T> roots;
+    private final int from;
+    private final int to;
+
+    /** The nodes whose aggregate depends on forked tasks, in post-order. */
+    private final List<T> deferred = Lists.newArrayList();
+
+    FoldUpTask(@Nullable final CountedCompleter<?> completer, final Tree<T> tree,
+        final Function<? super T, ? extends R> nodeFunction, final BinaryOperator<R> combiner, final Map<T, R> results,
+        final List<T> roots, final int from, final int to) {
+      super(completer);
+      this.tree = tree;
+      this.nodeFunction = nodeFunction;
+      this.combiner = combiner;
+      this.results = results;
+      this.roots = roots;
+      this.from = from;
+      this.to = to;
+    }
+
+    private void fork(final List<T> subtreeRoots, final int start, final int end) {
+      addToPendingCount(1);
+      new FoldUpTask<T, R>(this, tree, nodeFunction, combiner, results, subtreeRoots, start, end).fork();
+    }
+
+    @Override
+    public void compute() {
+      int end = to;
+      while (end - from > 1 && getSurplusQueuedTaskCount() <= MAX_SURPLUS_TASKS) {
+        final int middle = (from + end) >>> 1;
+        fork(roots, middle, end);
+        end = middle;
+      }
+
+      int budget = THRESHOLD;
+      for (int i = from; i < end; i++) {
+        if (budget <= 0) {
+          fork(roots, i, end);
+          break;
+        }
+        budget = foldSubtree(roots.get(i), budget);
+      }
+
+      tryComplete();
+    }
+
+    /**
+     * Folds the subtree of the specified node in post-order, with an explicit stack, forking the remaining children of the
+     * current node once the budget is spent.
+     *
+     * @return the remaining budget
+     */
+    private int foldSubtree(final T subtreeRoot, final int initialBudget) {
+      int budget = initialBudget - 1;
+      final Deque<Frame<T>> stack = new ArrayDeque<Frame<T>>();
+      stack.push(new Frame<T>(subtreeRoot, tree.getChildren(subtreeRoot).iterator()));
+      while (!stack.isEmpty()) {
+        final Frame<T> frame = stack.peek();
+        if (frame.children.hasNext()) {
+          if (budget <= 0) {
+            final List<T> remainingChildren = Lists.newArrayList(frame.children);
+            fork(remainingChildren, 0, remainingChildren.size());
+            frame.deferred = true;
+          } else {
+            final T child = frame.children.next();
+            stack.push(new Frame<T>(child, tree.getChildren(child).iterator()));
+            budget--;
+          }
+        } else {
+          stack.pop();
+          if (frame.deferred) {
+            deferred.add(frame.node);
+            final Frame<T> parentFrame = stack.peek();
+            if (parentFrame != null) {
+              parentFrame.deferred = true;
+            }
+          } else {
+            results.put(frame.node, foldNode(tree, frame.node, nodeFunction, combiner, results));
+          }
+        }
+      }
+      return budget;
+    }
+
+    @Override
+    public void onCompletion(final CountedCompleter<?> caller) {
+      for (final T node : deferred) {
+        results.put(node, foldNode(tree, node, nodeFunction, combiner, results));
+      }
+    }
+  }
+
+  /** A node being folded, with the iterator over its children which remain to be visited. */
+  private static final class Frame<T> {
+    private final T node;
+    private final Iterator<T> children;
+
+    /** Whether the aggregate of the node depends on a forked task. */
+    private boolean deferred;
+
+    Frame(final T node, final Iterator<T> children) {
+      this.node = node;
+      this.children = children;
+    }
+  }
+
+  /**
+   * Returns a compact, read-only, copy of the specified tree, laid out in arrays. See {@link FrozenTree} for details.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @param tree a tree
+   * @return a frozen copy of the tree, or the tree itself if it's already frozen
+   */
+  public static <T> FrozenTree<T> freeze(final Tree<T> tree) {
+    return FrozenTree.copyOf(tree);
+  }
+
+  /**
+   * Returns a live, read-only, view of the subtree of the specified node, rooted at that node, backed by the specified tree, so
+   * the subtree is handed out without copying it. The view reflects the modifications of the backing tree, and is empty once
+   * the node is removed from it.
+   * <p/>
+   * Testing whether the view contains a node walks up its ancestors, up to the specified node, or compares their labels if the
+   * backing tree is a {@link NestedSetTree}. The size is computed by traversing the subtree, or looked up if the backing tree
+   * is an {@link IndexedTree}, and the associations are iterated lazily, in pre-order.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @param tree a tree
+   * @param node a node of the tree
+   * @return a view of the subtree of the node
+   * @throws IllegalArgumentException if the specified node isn't contained in the tree
+   */
+  public static <T> Tree<T> subtreeView(final Tree<T> tree, final T node) {
+    return new SubtreeView<T>(tree, node);
+  }
+
+  /**
+   * Returns a live view of the subtree of the specified node, rooted at that node, backed by the specified mutable tree, which
+   * writes the modifications through to it. See {@link #subtreeView(Tree, Object)} for details.
+   * <p/>
+   * The root of the view can't be changed: {@link MutableTree#setRoot(Object)} throws an {@link UnsupportedOperationException}
+   * unless passed the current root, and {@link MutableTree#clear()} removes the node, along with its subtree, from the backing
+   * tree.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @param tree a mutable tree
+   * @param node a node of the tree
+   * @return a mutable view of the subtree of the node
+   * @throws IllegalArgumentException if the specified node isn't contained in the tree
+   */
+  public static <T> MutableTree<T> mutableSubtreeView(final MutableTree<T> tree, final T node) {
+    return new SubtreeView.Mutable<T>(tree, node);
+  }
+
+  /**
+   * Returns a thread-safe mutable tree backed by the specified mutable tree, which synchronizes every method on itself, like
+   * {@link java.util.Collections#synchronizedCollection(Collection)}. {@link Tree#getChildren(Object)} returns a copy of the
+   * children, and the associations are iterated over a copy taken when the iterator is created, so no manual synchronization is
+   * needed to iterate. The backing tree must only be accessed through the returned tree.
+   * <p/>
+   * For read-mostly workloads, prefer {@link #readWriteLockedTree(MutableTree)}, whose readers don't contend with each other.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @param tree a mutable tree
+   * @return a synchronized view of the specified tree
+   */
+  public static <T> MutableTree<T> synchronizedTree(final MutableTree<T> tree) {
+    return new SynchronizedTree<T>(checkNotNull(tree));
+  }
+
+  /**
+   * Returns a thread-safe mutable tree backed by the specified mutable tree, which lets readers proceed without locking when
+   * the tree isn't being modified. See {@link ReadWriteLockedTree} for details.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @param tree a mutable tree
+   * @return a read-write locked view of the specified tree
+   */
+  public static <T> ReadWriteLockedTree<T> readWriteLockedTree(final MutableTree<T> tree) {
+    return new ReadWriteLockedTree<T>(tree);
+  }
+
+  /**
+   * Returns a mutable tree backed by the specified mutable tree, which maintains the size of the subtree and the depth of every
+   * node. See {@link IndexedTree} for details.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @param tree a mutable tree
+   * @return an indexed view of the specified tree
+   */
+  public static <T> IndexedTree<T> indexedTree(final MutableTree<T> tree) {
+    return new IndexedTree<T>(tree);
+  }
+
+  /**
+   * Returns a mutable tree backed by the specified mutable tree, which labels its nodes with nested set intervals. See {@link
+   * NestedSetTree} for details.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @param tree a mutable tree
+   * @return a nested set view of the specified tree
+   */
+  public static <T> NestedSetTree<T> nestedSetTree(final MutableTree<T> tree) {
+    return new NestedSetTree<T>(tree);
+  }
+
+  /**
+   * Returns a mutable tree backed by the specified mutable tree, which publishes its modifications to listeners. See {@link
+   * ObservableMutableTree} for details.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @param tree a mutable tree
+   * @return an observable view of the specified tree
+   */
+  public static <T> ObservableMutableTree<T> observableTree(final MutableTree<T> tree) {
+    return new ObservableMutableTree<T>(tree);
+  }
+
+  /**
+   * Returns a tree backed by the specified tree, which records metrics of its operations. See {@link TreeMetrics} for details.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @param tree a tree
+   * @return an instrumented view of the specified tree
+   */
+  public static <T> InstrumentedTree<T> instrumentedTree(final Tree<T> tree) {
+    return new InstrumentedTree<T>(tree);
+  }
+
+  /**
+   * Returns a mutable tree backed by the specified mutable tree, which records metrics of its operations. See {@link
+   * TreeMetrics} for details.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @param tree a mutable tree
+   * @return an instrumented view of the specified tree
+   */
+  public static <T> InstrumentedMutableTree<T> instrumentedMutableTree(final MutableTree<T> tree) {
+    return new InstrumentedMutableTree<T>(tree);
+  }
+
+  /**
+   * Returns a tree backed by the specified tree, which caches the results of its lookups, the results of up to 10000 nodes per
+   * method, without expiring them. See {@link CachingTree} for details, and {@link CachingTree#builder(Tree)} for the other
+   * settings.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @param tree a tree
+   * @return a caching view of the specified tree
+   */
+  public static <T> CachingTree<T> cachingTree(final Tree<T> tree) {
+    return CachingTree.builder(tree).build();
+  }
+
+  /**
+   * Computes the differences between two trees, as an edit script which turns a tree equal to the source tree into a tree
+   * equal to the target tree. See {@link TreeDiff} for details.
+   *
+   * @param <T> the type of the nodes in the trees
+   * @param source the source tree
+   * @param target the target tree
+   * @return the differences between the trees
+   */
+  public static <T> TreeDiff<T> diff(final Tree<T> source, final Tree<T> target) {
+    return TreeDiff.between(source, target);
+  }
+
+  /**
+   * Applies the specified diff to the specified tree, which must be equal to the source tree of the diff.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @param tree a mutable tree
+   * @param diff the differences to apply
+   * @see TreeDiff#applyTo(MutableTree)
+   */
+  public static <T> void apply(final MutableTree<T> tree, final TreeDiff<T> diff) {
+    checkNotNull(diff).applyTo(tree);
+  }
+
+  /**
+   * Creates a copy of the specified tree, which must be equal to the source tree of the specified diff, with the diff applied
+   * to it.
+   *
+   * @param <T> the type of the nodes in the tree
+   * @param tree an immutable tree
+   * @param diff the differences to apply
+   * @return a tree equal to the target tree of the diff
+   * @see TreeDiff#appliedTo(ImmutableTree)
+   */
+  public static <T> ImmutableTree<T> applied(final ImmutableTree<T> tree, final TreeDiff<T> diff) {
+    return checkNotNull(diff).appliedTo(tree);
+  }
+
+  private static final class SynchronizedTree<T> extends DelegatingMutableTree<T> {
+    private final MutableTree<T> delegate;
+
+    SynchronizedTree(final MutableTree<T> delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    protected MutableTree<T> delegate() {
+      return delegate;
+    }
+
+    @Override
+    public synchronized int size() {
+      return delegate.size();
+    }
+
+    @Override
+    public synchronized boolean contains(final T node) {
+      return delegate.contains(node);
+    }
+
+    @Override
+    public synchronized T getParent(final T node) {
+      return delegate.getParent(node);
+    }
+
+    @Override
+    public synchronized Collection<T> getChildren(final T node) {
+      return ImmutableSet.copyOf(delegate.getChildren(node));
+    }
+
+    @Override
+    @Nullable
+    public synchronized T getRoot() {
+      return delegate.getRoot();
+    }
+
+    @Override
+    public synchronized Iterator<Map.Entry<T, T>> iterator() {
+      return ImmutableList.copyOf(delegate).iterator();
+    }
+
+    @Override
+    public synchronized boolean setRoot(final T node) {
+      return delegate.setRoot(node);
+    }
+
+    @Override
+    public synchronized boolean add(final T parent, final T child) {
+      return delegate.add(parent, child);
+    }
+
+    @Override
+    public synchronized boolean move(final T node, final T newParent) {
+      return delegate.move(node, newParent);
+    }
+
+    @Override
+    public synchronized boolean addAll(final T parent, final Tree<T> subtree) {
+      return delegate.addAll(parent, subtree);
+    }
+
+    @Override
+    public synchronized void clear() {
+      delegate.clear();
+    }
+
+    @Override
+    public synchronized boolean remove(final T node) {
+      return delegate.remove(node);
+    }
+
+    /**
+     * Compares a copy of the backing tree, taken under the lock, to the specified object, so that the lock isn't held while the
+     * other tree is accessed: comparing two synchronized trees to each other from two threads would otherwise deadlock.
+     */
+    @Override
+    public boolean equals(final Object obj) {
+      if (obj == this) {
+        return true;
+      }
+      final ImmutableTree<T> copy;
+      synchronized (this) {
+        copy = ImmutableMultimapTree.copyOf(delegate);
+      }
+      return copy.equals(obj);
+    }
+
+    @Override
+    public synchronized int hashCode() {
+      return delegate.hashCode();
+    }
+  }
+
+  /**
+   * Tests whether two trees have the same root and, recursively, the same children for each node. This is the definition of
+   * equality shared by all the tree implementations. As the children of a node are compared as collections first, the order in
+   * which the trees iterate over them doesn't matter.
+   * <p/>
+   * Trees of different sizes, or whose hash codes are both cached and differ, are told apart in O(1), without comparing their
+   * nodes.
+   *
+   * @param thisTree a tree
+   * @param thatTree another tree
+   * @return {@code true} if the trees are equal
+   */
+  static <T> boolean deepEquals(final Tree<T> thisTree, final Tree<?> thatTree) {
+    if (thisTree.size() != thatTree.size()
+        || hasCachedHashCode(thisTree) && hasCachedHashCode(thatTree) && thisTree.hashCode() != thatTree.hashCode()) {
+      return false;
+    }
+
+    final T thisRoot = thisTree.getRoot();
+    final Object thatRoot = thatTree.getRoot();
+    @SuppressWarnings("unchecked") // Only nodes contained in, and therefore accepted by, both trees are passed to it
+    final Tree<Object> that = (Tree<Object>) thatTree;
+    return thisRoot == null ? thatRoot == null : thisRoot.equals(thatRoot) && deepEquals(thisTree, that, thisRoot);
+  }
+
+  /**
+   * Checks that the specified node can be moved to the specified new parent node, as specified by {@link
+   * MutableTree#move(Object, Object)}. Only the ancestors of the new parent node are walked, to check that the node isn't one
+   * of them, and not even them if the new parent node already is the parent of the node.
+   *
+   * @param tree a tree
+   * @param node the node to move
+   * @param newParent the new parent node
+   * @return the current parent of the node
+   * @throws IllegalArgumentException if the node can't be moved to the new parent node
+   */
+  static <T> T checkMovable(final Tree<T> tree, final T node, final T newParent) {
     checkNotNull(node);
-    final List<Map.Entry<T, T>> associations = Lists.newArrayList(getAssociations(tree, node));
-    final ListIterator<Map.Entry<T, T>> listIter = associations.listIterator();
-    while (listIter.hasNext()) {
-      final Map.Entry<T, T> entry = listIter.next();
-      final T child = entry.getValue();
-      final Collection<Map.Entry<T, T>> childrenAssociations = getAssociationsDepthFirst(tree, child);
-      for (final Map.Entry<T, T> childAssociation : childrenAssociations) {
-        listIter.add(childAssociation);
+    checkNotNull(newParent);
+    checkArgument(tree.contains(node), "The tree doesn't contain the specified node: %s", node);
+    checkArgument(tree.contains(newParent), "The tree doesn't contain the specified parent node: %s", newParent);
+
+    final T parent = tree.getParent(node);
+    checkArgument(parent != null, "The root node can't be moved: %s", node);
+    if (!parent.equals(newParent)) {
+      for (T ancestor = newParent; ancestor != null; ancestor = tree.getParent(ancestor)) {
+        checkArgument(!ancestor.equals(node), "The node (%s) can't be moved under itself or its descendant: %s", node,
+            newParent);
       }
     }
-    return associations;
+    return parent;
   }
 
-  private static <T> FluentIterable<Map.Entry<T, T>> getAssociations(final Tree<T> tree, final T node) {
-    return FluentIterable.from(tree.getChildren(node)).transform(new Function<T, Map.Entry<T, T>>() {
-      @Override
-      public Map.Entry<T, T> apply(final T child) {
-        return new AbstractMap.SimpleEntry<T, T>(node, child);
+  /**
+   * Checks that the specified subtree can be grafted under the specified parent node of the specified tree, as specified by
+   * {@link MutableTree#addAll(Object, Tree)}: that the tree contains the parent node and none of the nodes of the subtree. Each
+   * node of the subtree is looked up once.
+   *
+   * @param tree a tree
+   * @param parent the parent node of the root of the subtree
+   * @param subtree the subtree to graft
+   * @return the root of the subtree, or {@code null} if the subtree is empty
+   * @throws IllegalArgumentException if the subtree can't be grafted under the parent node
+   */
+  @Nullable
+  static <T> T checkGraftable(final Tree<T> tree, final T parent, final Tree<T> subtree) {
+    checkNotNull(parent);
+    checkNotNull(subtree);
+    checkArgument(tree.contains(parent), "The tree doesn't contain the specified parent node: %s", parent);
+
+    final T subtreeRoot = subtree.getRoot();
+    if (subtreeRoot != null) {
+      for (final T node : getNodesPreOrder(subtree, subtreeRoot)) {
+        checkArgument(!tree.contains(node), "The node (%s) of the subtree is already contained in the tree", node);
       }
-    });
+    }
+    return subtreeRoot;
+  }
+
+  /** Tests whether the hash code of the specified tree is computed in O(1). */
+  private static boolean hasCachedHashCode(final Tree<?> tree) {
+    return tree instanceof AbstractMultimapTree || tree instanceof PersistentTree || tree instanceof FrozenTree
+        || tree instanceof ListTree;
+  }
+
+  /** Compares the children of the nodes of the subtree of the specified node, with an explicit stack. */
+  private static <T> boolean deepEquals(final Tree<T> thisTree, final Tree<Object> thatTree, final T node) {
+    final Deque<T> stack = new ArrayDeque<T>();
+    stack.push(node);
+    while (!stack.isEmpty()) {
+      final T current = stack.pop();
+      final Collection<T> thisChildren = thisTree.getChildren(current);
+      if (!Objects.equal(thisChildren, thatTree.getChildren(current))) {
+        return false;
+      }
+      for (final T child : thisChildren) {
+        stack.push(child);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Computes the hash code of a tree by traversing it, consistently with the hash code of the multimap based implementations,
+   * for the tree implementations which don't keep their associations in a multimap and a map.
+   *
+   * @param tree a tree
+   * @return the hash code of the tree
+   */
+  static <T> int hashCode(final Tree<T> tree) {
+    final T root = tree.getRoot();
+    if (root == null) {
+      return 0;
+    }
+
+    int childrenHash = 0;
+    int parentsHash = 0;
+    for (final T node : getNodesPreOrder(tree, root)) {
+      final int nodeHash = node.hashCode();
+      int nodeChildrenHash = 0;
+      final Collection<T> nodeChildren = tree.getChildren(node);
+      for (final T child : nodeChildren) {
+        nodeChildrenHash += child.hashCode();
+        parentsHash += child.hashCode() ^ nodeHash;
+      }
+      if (!nodeChildren.isEmpty()) {
+        childrenHash += nodeHash ^ nodeChildrenHash;
+      }
+    }
+
+    int result = root.hashCode();
+    result = HASH_MULTIPLIER * result + childrenHash;
+    result = HASH_MULTIPLIER * result + parentsHash;
+    return result;
   }
 }
@@ -0,0 +1,125 @@
+package org.dapacode.tree4j;
+
+import org.dapacode.tree4j.testutils.TreeHelper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+// CSOFF: WhitespaceAroundCheck
+@SuppressWarnings({"InstanceMethodNamingConvention", "DesignForExtension", "LocalCanBeFinal"})
+// CSON: WhitespaceAroundCheck
+public class AncestorIndexTest {
+  private static final int DEEP = 200000;
+
+  @Rule
+  @SuppressWarnings("PublicField")
+  public final ExpectedException expectedException = ExpectedException.none();
+
+  private final MutableTree<String> tree = TreeHelper.setupTreeTestData(MultimapTree.<String>create());
+
+  @Test
+  public void shouldAnswerAncestryQueries() {
+    AncestorIndex<String> index = Trees.ancestorIndex(tree);
+
+    assertTrue(index.isAncestor("R", "!"));
+    assertTrue(index.isAncestor("1", "b"));
+    assertTrue(index.isAncestor("a", "a"));
+    assertFalse(index.isAncestor("2", "a"));
+    assertFalse(index.isAncestor("!", "a"));
+
+    assertEquals("1", index.lca("!", "b"));
+    assertEquals("R", index.lca("!", "c"));
+    assertEquals("a", index.lca("a", "!"));
+    assertEquals("b", index.lca("b", "b"));
+
+    assertEquals(3, index.distance("!", "b"));
+    assertEquals(4, index.distance("b", "c"));
+    assertEquals(0, index.distance("c", "c"));
+    assertEquals(5, index.distance("!", "c"));
+
+    assertEquals("!", index.kthAncestor("!", 0));
+    assertEquals("1", index.kthAncestor("!", 2));
+    assertEquals("R", index.kthAncestor("!", 3));
+    assertNull(index.kthAncestor("!", 4));
+  }
+
+  @Test
+  public void shouldThrowAnIAEOnUnknownNode() {
+    AncestorIndex<String> index = Trees.ancestorIndex(tree);
+    expectedException.expect(IllegalArgumentException.class);
+    index.lca("a", "unknown node");
+  }
+
+  @Test
+  public void rebuildShouldReflectTheModificationsOfTheTree() {
+    AncestorIndex<String> index = Trees.ancestorIndex(tree);
+    tree.add("c", "d");
+
+    index.rebuild();
+
+    assertEquals("2", index.lca("d", "2"));
+    assertEquals(3, index.distance("d", "R"));
+  }
+
+  @Test
+  public void shouldSupportEmptyAndDeepTrees() {
+    Trees.ancestorIndex(MultimapTree.<String>create());
+
+    MultimapTree<Integer> chain = MultimapTree.create();
+    chain.setRoot(0);
+    for (int i = 1; i < DEEP; i++) {
+      chain.add(i - 1, i);
+    }
+    AncestorIndex<Integer> index = Trees.ancestorIndex(chain);
+
+    assertEquals(Integer.valueOf(DEEP / 2), index.lca(DEEP / 2, DEEP - 1));
+    assertEquals(DEEP - 1, index.distance(0, DEEP - 1));
+    assertEquals(Integer.valueOf(1), index.kthAncestor(DEEP - 1, DEEP - 2));
+  }
+
+  @Test
+  public void shouldAgreeWithWalkingUpTheTree() {
+    MultimapTree<Integer> randomTree = MultimapTree.create();
+    randomTree.setRoot(0);
+    Random random = new Random(42);
+    for (int i = 1; i < 3000; i++) {
+      randomTree.add(random.nextInt(i), i);
+    }
+    AncestorIndex<Integer> index = Trees.ancestorIndex(randomTree);
+
+    for (int query = 0; query < 3000; query++) {
+      Integer node = random.nextInt(3000);
+      Integer otherNode = random.nextInt(3000);
+      Integer expectedLca = naiveLca(randomTree, node, otherNode);
+      assertEquals(expectedLca, index.lca(node, otherNode));
+      assertEquals(expectedLca.equals(node), index.isAncestor(node, otherNode));
+      assertEquals(depth(randomTree, node) + depth(randomTree, otherNode) - 2 * depth(randomTree, expectedLca),
+          index.distance(node, otherNode));
+      assertEquals(Integer.valueOf(0), index.kthAncestor(node, depth(randomTree, node)));
+      assertEquals(randomTree.getParent(node), index.kthAncestor(node, 1));
+    }
+  }
+
+  private static <T> T naiveLca(final Tree<T> tree, final T node, final T otherNode) {
+    for (T ancestor = node; ancestor != null; ancestor = tree.getParent(ancestor)) {
+      for (T otherAncestor = otherNode; otherAncestor != null; otherAncestor = tree.getParent(otherAncestor)) {
+        if (ancestor.equals(otherAncestor)) {
+          return ancestor;
+        }
+      }
+    }
+    throw new AssertionError("No common ancestor");
+  }
+
+  private static <T> int depth(final Tree<T> tree, final T node) {
+    int depth = 0;
+    for (T ancestor = tree.getParent(node); ancestor != null; ancestor = tree.getParent(ancestor)) {
+      depth++;
+    }
+    return depth;
+  }
+}
@@ -0,0 +1,149 @@
+package org.dapacode.tree4j;
+
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableSet;
+import org.dapacode.tree4j.testutils.TreeHelper;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+// CSOFF: WhitespaceAroundCheck
+@SuppressWarnings({"InstanceMethodNamingConvention", "DesignForExtension", "LocalCanBeFinal"})
+// CSON: WhitespaceAroundCheck
+public class CachingTreeTest {
+  private final MutableTree<String> backingTree = TreeHelper.setupTreeTestData(MultimapTree.<String>create());
+
+  /** The number of lookups which reached the backing tree. */
+  private int lookups;
+
+  private final Tree<String> countingTree = new DelegatingTree<String>() {
+    @Override
+    protected Tree<String> delegate() {
+      return backingTree;
+    }
+
+    @Override
+    public boolean contains(final String node) {
+      lookups++;
+      return super.contains(node);
+    }
+
+    @Override
+    public String getParent(final String node) {
+      lookups++;
+      return super.getParent(node);
+    }
+
+    @Override
+    public Collection<String> getChildren(final String node) {
+      lookups++;
+      return super.getChildren(node);
+    }
+
+    @Override
+    public String getRoot() {
+      lookups++;
+      return super.getRoot();
+    }
+  };
+
+  @Test
+  public void shouldLookUpEachResultOnce() {
+    CachingTree<String> tree = Trees.cachingTree(countingTree);
+
+    for (int i = 0; i < 3; i++) {
+      assertEquals("R", tree.getRoot());
+      assertNull(tree.getParent("R"));
+      assertEquals("1", tree.getParent("a"));
+      assertEquals(ImmutableSet.of("a", "b"), ImmutableSet.copyOf(tree.getChildren("1")));
+      assertTrue(tree.contains("!"));
+      assertFalse(tree.contains("unknown node"));
+    }
+
+    assertEquals(6, lookups);
+    CacheStats stats = tree.stats();
+    assertEquals(6, stats.missCount());
+    assertEquals(12, stats.hitCount());
+  }
+
+  @Test
+  public void shouldBeEqualToTheBackingTree() {
+    CachingTree<String> tree = Trees.cachingTree(countingTree);
+
+    assertEquals(backingTree, tree);
+    assertEquals(tree, backingTree);
+    assertEquals(backingTree.hashCode(), tree.hashCode());
+  }
+
+  @Test
+  public void shouldLookUpTheInvalidatedResultsAgain() {
+    CachingTree<String> tree = Trees.cachingTree(countingTree);
+    tree.getChildren("2");
+    tree.contains("d");
+
+    backingTree.add("2", "d");
+
+    assertFalse(tree.contains("d"));
+
+    tree.invalidate("2");
+    tree.invalidate("d");
+
+    assertTrue(tree.contains("d"));
+    assertEquals("2", tree.getParent("d"));
+    assertEquals(ImmutableSet.of("c", "d"), ImmutableSet.copyOf(tree.getChildren("2")));
+
+    backingTree.setRoot("S");
+    tree.invalidateAll();
+
+    assertEquals("S", tree.getRoot());
+    assertFalse(tree.contains("d"));
+  }
+
+  @Test
+  public void shouldEvictTheResultsOverTheMaximumSize() {
+    CachingTree<String> tree = CachingTree.builder(countingTree).maximumSize(1).build();
+
+    tree.getParent("a");
+    tree.getParent("b");
+    tree.getParent("a");
+
+    assertEquals(3, lookups);
+    assertEquals(2, tree.stats().evictionCount());
+  }
+
+  @Test
+  public void shouldExpireTheResults() {
+    CachingTree<String> tree = CachingTree.builder(countingTree).expireAfterWrite(0, TimeUnit.SECONDS).build();
+
+    tree.getParent("a");
+    tree.getParent("a");
+
+    assertEquals(2, lookups);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void getParentShouldThrowAnIAEOnUnknownNode() {
+    Trees.cachingTree(countingTree).getParent("unknown node");
+  }
+
+  @Test
+  public void shouldNotCacheTheFailedLookups() {
+    CachingTree<String> tree = Trees.cachingTree(countingTree);
+    for (int i = 0; i < 2; i++) {
+      try {
+        tree.getChildren("d");
+        fail();
+      } catch (IllegalArgumentException e) {
+        // The node isn't in the tree yet
+      }
+    }
+
+    backingTree.add("2", "d");
+
+    assertTrue(tree.getChildren("d").isEmpty());
+    assertEquals(3, lookups);
+  }
+}
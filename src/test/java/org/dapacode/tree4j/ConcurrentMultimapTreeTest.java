@@ -0,0 +1,179 @@
+package org.dapacode.tree4j;
+
+import org.junit.experimental.theories.DataPoints;
+import org.junit.experimental.theories.Theories;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+@RunWith(Theories.class)
+// CSOFF: WhitespaceAroundCheck
+@SuppressWarnings({"InstanceMethodNamingConvention", "DesignForExtension", "LocalCanBeFinal"})
+// CSON: WhitespaceAroundCheck
+public class ConcurrentMultimapTreeTest extends MutableTreeTest {
+  private static final int THREADS = 8;
+
+  @DataPoints
+  public static MutableTree<?>[] data() {
+    final ConcurrentMultimapTree<String> delegate = ConcurrentMultimapTree.create();
+    return new MutableTree<?>[]{
+        ConcurrentMultimapTree.<String>create(),
+        ConcurrentMultimapTree.<String>create(1),
+        new DelegatingMutableTree<String>() {
+          @Override
+          protected MutableTree<String> delegate() {
+            return delegate;
+          }
+        }
+    };
+  }
+
+  @org.junit.Test
+  public void hashCodeAndEqualsShouldBeConsistentWithTheMultimapTrees() {
+    ConcurrentMultimapTree<Integer> tree = ConcurrentMultimapTree.create();
+    MultimapTree<Integer> multimapTree = MultimapTree.create();
+    tree.setRoot(0);
+    multimapTree.setRoot(0);
+    for (int i = 1; i < 100; i++) {
+      tree.add(i / 3, i);
+      multimapTree.add(i / 3, i);
+    }
+
+    assertEquals(multimapTree, tree);
+    assertEquals(tree, multimapTree);
+    assertEquals(multimapTree.hashCode(), tree.hashCode());
+  }
+
+  @org.junit.Test
+  public void concurrentAddsToDisjointSubtreesShouldAllBeApplied() throws Exception {
+    final ConcurrentMultimapTree<Integer> tree = ConcurrentMultimapTree.create();
+    tree.setRoot(0);
+    final int nodesPerThread = 10000;
+
+    runConcurrently(new Task() {
+      @Override
+      public void run(final int thread) {
+        final int base = (thread + 1) * nodesPerThread;
+        tree.add(0, base);
+        for (int i = 1; i < nodesPerThread; i++) {
+          tree.add(base + i / 2, base + i);
+        }
+      }
+    });
+
+    assertEquals(1 + THREADS * nodesPerThread, tree.size());
+    assertConsistent(tree);
+  }
+
+  @org.junit.Test
+  public void concurrentAddsOfTheSameChildShouldOnlyAssociateItOnce() throws Exception {
+    final ConcurrentMultimapTree<Integer> tree = ConcurrentMultimapTree.create();
+    tree.setRoot(0);
+    for (int thread = 0; thread < THREADS; thread++) {
+      tree.add(0, thread + 1);
+    }
+    final int children = 1000;
+
+    runConcurrently(new Task() {
+      @Override
+      public void run(final int thread) {
+        for (int child = 100; child < 100 + children; child++) {
+          try {
+            tree.add(thread + 1, child);
+          } catch (IllegalArgumentException ignored) {
+            // Another thread has associated the child first
+          }
+        }
+      }
+    });
+
+    assertEquals(1 + THREADS + children, tree.size());
+    assertConsistent(tree);
+  }
+
+  @org.junit.Test
+  public void concurrentAddsAndRemovesShouldKeepTheTreeConsistent() throws Exception {
+    final ConcurrentMultimapTree<Integer> tree = ConcurrentMultimapTree.create();
+    tree.setRoot(0);
+    final int rounds = 200;
+
+    runConcurrently(new Task() {
+      @Override
+      public void run(final int thread) {
+        final int subtree = thread % 2 + 1;
+        for (int round = 0; round < rounds; round++) {
+          try {
+            tree.add(0, subtree);
+          } catch (IllegalArgumentException ignored) {
+            // Cannot happen, as the node is only ever added under the root
+          }
+          final int base = (thread + 1) * 1000;
+          try {
+            for (int i = 0; i < 100; i++) {
+              tree.add(i == 0 ? subtree : base + (i - 1) / 2, base + i);
+            }
+          } catch (IllegalArgumentException ignored) {
+            // The subtree has been removed by another thread
+          }
+          try {
+            tree.remove(subtree);
+          } catch (IllegalArgumentException ignored) {
+            // The subtree has already been removed by another thread
+          }
+        }
+      }
+    });
+
+    assertConsistent(tree);
+  }
+
+  /** Checks that every node is connected to the root, and that the parents and children agree. */
+  private static <T> void assertConsistent(final Tree<T> tree) {
+    int associations = 0;
+    for (final Map.Entry<T, T> association : tree) {
+      associations++;
+      assertTrue(tree.getChildren(association.getKey()).contains(association.getValue()));
+      T ancestor = association.getValue();
+      for (int depth = 0; ancestor != null; depth++) {
+        assertTrue("Cycle at " + association, depth <= tree.size());
+        ancestor = tree.getParent(ancestor);
+      }
+    }
+    assertEquals(tree.size() - 1, associations);
+    assertEquals(tree.size(), Trees.getNodesPreOrder(tree).size());
+  }
+
+  private interface Task {
+    void run(int thread);
+  }
+
+  private static void runConcurrently(final Task task) throws Exception {
+    final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+      for (int thread = 0; thread < THREADS; thread++) {
+        final int threadIndex = thread;
+        futures.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() {
+            task.run(threadIndex);
+            return null;
+          }
+        }));
+      }
+      for (final Future<Void> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
@@ -85,6 +85,21 @@ public class CopyOfTest {
     });
   }
 
+  @org.junit.Test
+  public void persistentTreeCopyOfShouldReturnAnEqualButNotSameTreeOnMultimapTree() {
+    testPersistentTreeCopyOf(setupTreeTestData(MultimapTree.<String>create()));
+  }
+
+  @org.junit.Test
+  public void persistentTreeCopyOfShouldReturnAnEqualButNotSameTreeOnPersistentTree() {
+    testPersistentTreeCopyOf(setupTreeTestData(PersistentTree.<String>create()));
+  }
+
+  @org.junit.Test
+  public void multimapTreeCopyOfShouldReturnAnEqualButNotSameTreeOnPersistentTree() {
+    testMultimapTreeCopyOf(setupTreeTestData(PersistentTree.<String>create()));
+  }
+
   private void testImmutableMultimapTreeCopyOf(Tree<String> tree) {
     withoutModifying(tree, new Test<Tree<String>>() {
       @Override
@@ -106,4 +121,15 @@ public class CopyOfTest {
       }
     });
   }
+
+  private void testPersistentTreeCopyOf(Tree<String> tree) {
+    withoutModifying(tree, new Test<Tree<String>>() {
+      @Override
+      public void apply(Tree<String> tree) {
+        final PersistentTree<String> copyTree = PersistentTree.copyOf(tree);
+        assertThat(copyTree, is(not(sameInstance(tree))));
+        assertThat(copyTree, is(equalTo(tree)));
+      }
+    });
+  }
 }
@@ -0,0 +1,78 @@
+package org.dapacode.tree4j;
+
+import static org.junit.Assert.*;
+
+/** Regression tests of the algorithms on degenerate trees, chains of nodes much deeper than the call stack can recurse. */
+// CSOFF: WhitespaceAroundCheck
+@SuppressWarnings({"InstanceMethodNamingConvention", "DesignForExtension", "LocalCanBeFinal"})
+// CSON: WhitespaceAroundCheck
+public class DeepTreeTest {
+  /**
+   * The depth of the chains, deep enough to overflow the call stack of a recursive algorithm. The benchmark profile runs the
+   * tests with chains of a million nodes, set with the {@code tree4j.deepTreeDepth} system property.
+   */
+  private static final int DEEP = Integer.getInteger("tree4j.deepTreeDepth", 100000);
+
+  private static MultimapTree<Integer> chain() {
+    MultimapTree<Integer> chain = MultimapTree.create();
+    chain.setRoot(0);
+    for (int i = 1; i < DEEP; i++) {
+      chain.add(i - 1, i);
+    }
+    return chain;
+  }
+
+  @org.junit.Test
+  public void multimapTreesShouldRemoveDeepSubtrees() {
+    MultimapTree<Integer> chain = chain();
+
+    chain.remove(DEEP / 2);
+
+    assertEquals(DEEP / 2, chain.size());
+    assertFalse(chain.contains(DEEP - 1));
+    assertEquals(Trees.hashCode(chain), chain.hashCode());
+  }
+
+  @org.junit.Test
+  public void immutableMultimapTreesShouldRemoveDeepSubtrees() {
+    ImmutableMultimapTree<Integer> chain = ImmutableMultimapTree.copyOf(chain());
+
+    ImmutableMultimapTree<Integer> removed = chain.removed(DEEP / 2);
+
+    assertEquals(DEEP, chain.size());
+    assertEquals(DEEP / 2, removed.size());
+    assertEquals(Integer.valueOf(DEEP / 2 - 2), removed.getParent(DEEP / 2 - 1));
+  }
+
+  @org.junit.Test
+  public void deepTreesShouldBeComparedAndHashed() {
+    MultimapTree<Integer> chain = chain();
+    ImmutableMultimapTree<Integer> copy = ImmutableMultimapTree.copyOf(chain);
+
+    assertEquals(chain, copy);
+    assertEquals(copy, chain);
+    assertEquals(chain.hashCode(), copy.hashCode());
+    assertEquals(Trees.hashCode(chain), copy.hashCode());
+    assertTrue(Trees.deepEquals(chain, Trees.freeze(chain)));
+
+    copy = copy.removed(DEEP - 1).added(DEEP - 2, -1);
+    assertFalse(chain.equals(copy));
+    assertFalse(Trees.deepEquals(chain, copy));
+  }
+
+  @org.junit.Test
+  public void deepTreesShouldBeTraversedAndDiffed() {
+    MultimapTree<Integer> chain = chain();
+
+    assertEquals(DEEP - 1, Trees.getAssociationsDepthFirst(chain).size());
+    assertEquals(Integer.valueOf(DEEP - 1), Trees.getNodesPreOrder(chain).last().get());
+    assertEquals(Integer.valueOf(0), Trees.getNodesPostOrder(chain).last().get());
+    assertEquals(Integer.valueOf(DEEP - 1), Trees.getNodesBreadthFirst(chain).last().get());
+
+    MultimapTree<Integer> target = MultimapTree.copyOf(chain);
+    target.remove(1);
+    target.add(0, DEEP - 1);
+    Trees.apply(chain, Trees.diff(chain, target));
+    assertEquals(target, chain);
+  }
+}
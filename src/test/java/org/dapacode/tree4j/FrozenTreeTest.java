@@ -0,0 +1,97 @@
+package org.dapacode.tree4j;
+
+import com.google.common.collect.ImmutableList;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.dapacode.tree4j.testutils.TreeHelper;
+import org.junit.experimental.theories.DataPoints;
+import org.junit.experimental.theories.Theories;
+import org.junit.runner.RunWith;
+
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Runs the {@link TreeTest} compliance tests against frozen trees, deriving each modified tree by thawing the frozen tree into
+ * a multimap tree and freezing it again.
+ */
+@RunWith(Theories.class)
+// CSOFF: WhitespaceAroundCheck
+@SuppressWarnings({"InstanceMethodNamingConvention", "DesignForExtension", "LocalCanBeFinal"})
+// CSON: WhitespaceAroundCheck
+public class FrozenTreeTest extends TreeTest<Tree<String>> {
+  @DataPoints
+  public static Tree<?>[] data() {
+    return new Tree<?>[]{Trees.freeze(MultimapTree.<String>create())};
+  }
+
+  @Override
+  @SuppressWarnings("ParameterNameDiffersFromOverriddenParameter")
+  public Tree<String> withRoot(Tree<String> frozenTree, String root) {
+    MultimapTree<String> multimapTree = MultimapTree.copyOf(frozenTree);
+    multimapTree.setRoot(root);
+    return Trees.freeze(multimapTree);
+  }
+
+  @Override
+  @SuppressWarnings("ParameterNameDiffersFromOverriddenParameter")
+  public Tree<String> plus(Tree<String> frozenTree, String parent, String child) {
+    MultimapTree<String> multimapTree = MultimapTree.copyOf(frozenTree);
+    multimapTree.add(parent, child);
+    return Trees.freeze(multimapTree);
+  }
+
+  @Override
+  @SuppressWarnings("ParameterNameDiffersFromOverriddenParameter")
+  public Tree<String> setupTreeTestData(Tree<String> frozenTree) {
+    return Trees.freeze(TreeHelper.setupTreeTestData(MultimapTree.copyOf(frozenTree)));
+  }
+
+  @org.junit.Test
+  public void freezeShouldReturnAnEqualTreeWithTheSameHashCode() {
+    MutableTree<String> multimapTree = TreeHelper.setupTreeTestData(MultimapTree.<String>create());
+
+    FrozenTree<String> frozenTree = Trees.freeze(multimapTree);
+
+    assertEquals(multimapTree, frozenTree);
+    assertEquals(frozenTree, multimapTree);
+    assertEquals(multimapTree.hashCode(), frozenTree.hashCode());
+    assertThat(Trees.freeze(frozenTree), is(sameInstance(frozenTree)));
+  }
+
+  @org.junit.Test
+  public void getChildrenShouldOnlyContainTheChildrenOfTheNode() {
+    FrozenTree<String> frozenTree = Trees.freeze(TreeHelper.setupTreeTestData(MultimapTree.<String>create()));
+
+    assertTrue(frozenTree.getChildren("1").contains("b"));
+    assertFalse(frozenTree.getChildren("1").contains("c"));
+    assertFalse(frozenTree.getChildren("1").contains("unknown node"));
+    assertNull(frozenTree.getParent("R"));
+  }
+
+  @org.junit.Test
+  @SuppressWarnings("unchecked")
+  public void iteratorShouldReturnTheAssociationsBreadthFirst() {
+    FrozenTree<String> frozenTree = Trees.freeze(TreeHelper.setupTreeTestData(MultimapTree.<String>create()));
+
+    assertEquals(ImmutableList.<Map.Entry<String, String>>of(
+        ImmutablePair.of("R", "1"), ImmutablePair.of("R", "2"), ImmutablePair.of("1", "a"), ImmutablePair.of("1", "b"),
+        ImmutablePair.of("2", "c"), ImmutablePair.of("a", "!")), ImmutableList.copyOf(frozenTree));
+  }
+
+  @org.junit.Test
+  public void freezeShouldSupportLargeTrees() {
+    MultimapTree<Integer> multimapTree = MultimapTree.create();
+    multimapTree.setRoot(0);
+    for (int i = 1; i < 100000; i++) {
+      multimapTree.add(i / 3, i);
+    }
+
+    FrozenTree<Integer> frozenTree = Trees.freeze(multimapTree);
+
+    assertEquals(100000, frozenTree.size());
+    assertEquals(Integer.valueOf(33333), frozenTree.getParent(99999));
+    assertEquals(multimapTree, frozenTree);
+  }
+}
@@ -2,12 +2,15 @@ package org.dapacode.tree4j;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Ordering;
+import org.dapacode.tree4j.testutils.TreeHelper;
 import org.junit.experimental.theories.DataPoints;
 import org.junit.experimental.theories.Theories;
 import org.junit.runner.RunWith;
 
 import java.util.Collection;
 
+import static org.junit.Assert.*;
+
 @RunWith(Theories.class)
 // CSOFF: WhitespaceAroundCheck
 @SuppressWarnings({"InstanceMethodNamingConvention", "DesignForExtension", "LocalCanBeFinal"})
@@ -50,4 +53,74 @@ public class ImmutableMultimapTreeTest extends ImmutableTreeTest {
 
     return data;
   }
+
+  @org.junit.Test
+  public void builderShouldBuildATreeEqualToOneBuiltWithAdded() {
+    ImmutableMultimapTree<String> tree = ImmutableMultimapTree.<String>builder()
+        .add("a", "!")
+        .add("R", "1")
+        .add("2", "c")
+        .add("1", "a")
+        .add("R", "2")
+        .add("1", "b")
+        .setRoot("R")
+        .build();
+
+    assertEquals(TreeHelper.setupTreeTestData(ImmutableMultimapTree.<String>create()), tree);
+    assertEquals("1", tree.getParent("a"));
+  }
+
+  @org.junit.Test
+  public void builderShouldUseTheSpecifiedMakers() {
+    ImmutableMultimapTree<String> tree = ImmutableMultimapTree
+        .builder(ImmutableMultimapTree.ChildrenMaker.<String>usingSetMultimap(),
+            ImmutableMultimapTree.ParentsMaker.<String>usingImmutableSortedMapInReverseOrder())
+        .setRoot("R")
+        .add("R", "1")
+        .add("R", "2")
+        .build();
+
+    assertEquals(3, tree.size());
+    assertEquals("2", tree.added("2", "x").getParent("x"));
+  }
+
+  @org.junit.Test
+  public void builderShouldBuildAnEmptyTree() {
+    assertEquals(ImmutableMultimapTree.<String>create(), ImmutableMultimapTree.<String>builder().build());
+  }
+
+  @org.junit.Test
+  public void builderShouldThrowAnIAEOnAlreadyAssociatedChildNode() {
+    ImmutableMultimapTree.Builder<String> builder = ImmutableMultimapTree.<String>builder().add("R", "1");
+    expectedException.expect(IllegalArgumentException.class);
+    builder.add("2", "1");
+  }
+
+  @org.junit.Test
+  public void buildShouldThrowAnIAEWithoutARoot() {
+    ImmutableMultimapTree.Builder<String> builder = ImmutableMultimapTree.<String>builder().add("R", "1");
+    expectedException.expect(IllegalArgumentException.class);
+    builder.build();
+  }
+
+  @org.junit.Test
+  public void buildShouldThrowAnIAEOnNodesNotConnectedToTheRoot() {
+    ImmutableMultimapTree.Builder<String> builder = ImmutableMultimapTree.<String>builder()
+        .setRoot("R")
+        .add("R", "1")
+        .add("a", "b")
+        .add("b", "a");
+    expectedException.expect(IllegalArgumentException.class);
+    builder.build();
+  }
+
+  @org.junit.Test
+  public void buildShouldThrowAnIAEOnARootWithAParent() {
+    ImmutableMultimapTree.Builder<String> builder = ImmutableMultimapTree.<String>builder()
+        .setRoot("R")
+        .add("R", "1")
+        .add("1", "R");
+    expectedException.expect(IllegalArgumentException.class);
+    builder.build();
+  }
 }
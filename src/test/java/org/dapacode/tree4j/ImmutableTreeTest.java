@@ -1,11 +1,14 @@
 package org.dapacode.tree4j;
 
+import com.google.common.collect.ImmutableList;
 import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.dapacode.tree4j.testutils.TreeHelper;
 import org.dapacode.tree4j.testutils.TreeHelper.Test;
 import org.junit.experimental.theories.Theory;
 
 import java.util.Collection;
+import java.util.Map;
 
 import static org.dapacode.tree4j.testutils.TreeHelper.withoutModifying;
 import static org.hamcrest.CoreMatchers.*;
@@ -173,6 +176,213 @@ public class ImmutableTreeTest extends TreeTest<ImmutableTree<String>> {
     });
   }
 
+  @Theory
+  public void movedShouldMoveTheNodeAndAllOfItsChildren(ImmutableTree<String> immutableTree) {
+    withoutModifying(immutableTree, new Test<ImmutableTree<String>>() {
+      @Override
+      public void apply(ImmutableTree<String> immutableTree) {
+        immutableTree = setupTreeTestData(immutableTree);
+
+        ImmutableTree<String> newTree = immutableTree.moved("a", "c");
+
+        assertEquals("c", newTree.getParent("a"));
+        assertEquals("a", newTree.getParent("!"));
+        assertFalse(newTree.getChildren("1").contains("a"));
+        assertEquals("1", immutableTree.getParent("a"));
+        assertEquals(newTree, immutableTree.removed("a").added("c", "a").added("a", "!"));
+        assertEquals(newTree.hashCode(), immutableTree.removed("a").added("c", "a").added("a", "!").hashCode());
+      }
+    });
+  }
+
+  @Theory
+  public void movedShouldReturnTheSameTreeWhenMovingANodeToItsParent(ImmutableTree<String> immutableTree) {
+    withoutModifying(immutableTree, new Test<ImmutableTree<String>>() {
+      @Override
+      public void apply(ImmutableTree<String> immutableTree) {
+        immutableTree = setupTreeTestData(immutableTree);
+
+        ImmutableTree<String> newTree = immutableTree.moved("a", "1");
+
+        assertThat(newTree, is(sameInstance(immutableTree)));
+      }
+    });
+  }
+
+  @Theory
+  public void movedShouldThrowIllegalArgumentExceptionOnMovingANodeUnderItsDescendant(ImmutableTree<String> immutableTree) {
+    withoutModifying(immutableTree, new Test<ImmutableTree<String>>() {
+      @Override
+      public void apply(ImmutableTree<String> immutableTree) {
+        immutableTree = setupTreeTestData(immutableTree);
+
+        expectedException.expect(IllegalArgumentException.class);
+        immutableTree.moved("1", "!");
+      }
+    });
+  }
+
+  @Theory
+  public void graftedShouldAddAllTheNodesOfTheSubtree(ImmutableTree<String> immutableTree) {
+    withoutModifying(immutableTree, new Test<ImmutableTree<String>>() {
+      @Override
+      public void apply(ImmutableTree<String> immutableTree) {
+        immutableTree = setupTreeTestData(immutableTree);
+        ImmutableTree<String> subtree = ImmutableMultimapTree.<String>create().withRoot("3").added("3", "d").added("d", "?");
+
+        ImmutableTree<String> newTree = immutableTree.grafted("c", subtree);
+
+        assertEquals("c", newTree.getParent("3"));
+        assertEquals("d", newTree.getParent("?"));
+        assertFalse(immutableTree.contains("3"));
+        assertEquals(newTree, immutableTree.added("c", "3").added("3", "d").added("d", "?"));
+        assertEquals(newTree.hashCode(), immutableTree.added("c", "3").added("3", "d").added("d", "?").hashCode());
+      }
+    });
+  }
+
+  @Theory
+  public void graftedShouldReturnTheSameTreeOnAnEmptySubtree(ImmutableTree<String> immutableTree) {
+    withoutModifying(immutableTree, new Test<ImmutableTree<String>>() {
+      @Override
+      public void apply(ImmutableTree<String> immutableTree) {
+        immutableTree = setupTreeTestData(immutableTree);
+
+        ImmutableTree<String> newTree = immutableTree.grafted("c", ImmutableMultimapTree.<String>create());
+
+        assertThat(newTree, is(sameInstance(immutableTree)));
+      }
+    });
+  }
+
+  @Theory
+  public void graftedShouldThrowIllegalArgumentExceptionWhenTheSubtreeContainsANodeOfTheTree(
+      ImmutableTree<String> immutableTree) {
+    withoutModifying(immutableTree, new Test<ImmutableTree<String>>() {
+      @Override
+      public void apply(ImmutableTree<String> immutableTree) {
+        immutableTree = setupTreeTestData(immutableTree);
+
+        expectedException.expect(IllegalArgumentException.class);
+        immutableTree.grafted("c", ImmutableMultimapTree.<String>create().withRoot("3").added("3", "a"));
+      }
+    });
+  }
+
+  @Theory
+  public void addedAllShouldAddAllTheAssociations(ImmutableTree<String> immutableTree) {
+    withoutModifying(immutableTree, new Test<ImmutableTree<String>>() {
+      @Override
+      public void apply(ImmutableTree<String> immutableTree) {
+        ImmutableTree<String> expectedTree = setupTreeTestData(immutableTree);
+
+        immutableTree = immutableTree.withRoot("R");
+        immutableTree = immutableTree.addedAll(ImmutableList.<Map.Entry<String, String>>of(
+            ImmutablePair.of("R", "1"),
+            ImmutablePair.of("R", "2"),
+            ImmutablePair.of("1", "a"),
+            ImmutablePair.of("1", "b"),
+            ImmutablePair.of("2", "c"),
+            ImmutablePair.of("a", "!")));
+
+        assertEquals(expectedTree, immutableTree);
+      }
+    });
+  }
+
+  @Theory
+  public void addedAllShouldReturnAnIdenticalTreeOnReinsertingNodes(ImmutableTree<String> immutableTree) {
+    withoutModifying(immutableTree, new Test<ImmutableTree<String>>() {
+      @Override
+      public void apply(ImmutableTree<String> immutableTree) {
+        immutableTree = setupTreeTestData(immutableTree);
+
+        ImmutableTree<String> newTree = immutableTree.addedAll(ImmutableList.<Map.Entry<String, String>>of(
+            ImmutablePair.of("R", "1"),
+            ImmutablePair.of("a", "!")));
+
+        assertSame(immutableTree, newTree);
+      }
+    });
+  }
+
+  @Theory
+  public void addedAllShouldThrowIllegalArgumentExceptionOnInsertingAnUnknownParent(ImmutableTree<String> immutableTree) {
+    withoutModifying(immutableTree, new Test<ImmutableTree<String>>() {
+      @Override
+      public void apply(ImmutableTree<String> immutableTree) {
+        immutableTree = immutableTree.withRoot("R");
+        expectedException.expect(IllegalArgumentException.class);
+        immutableTree.addedAll(ImmutableList.<Map.Entry<String, String>>of(
+            ImmutablePair.of("R", "1"),
+            ImmutablePair.of("unknown parent", "node")));
+      }
+    });
+  }
+
+  @Theory
+  public void addedAllShouldThrowIllegalArgumentExceptionOnInsertingAnAlreadyAssociatedChild(
+      ImmutableTree<String> immutableTree) {
+    withoutModifying(immutableTree, new Test<ImmutableTree<String>>() {
+      @Override
+      public void apply(ImmutableTree<String> immutableTree) {
+        immutableTree = immutableTree.withRoot("R");
+        expectedException.expect(IllegalArgumentException.class);
+        immutableTree.addedAll(ImmutableList.<Map.Entry<String, String>>of(
+            ImmutablePair.of("R", "1"),
+            ImmutablePair.of("R", "2"),
+            ImmutablePair.of("2", "1")));
+      }
+    });
+  }
+
+  @Theory
+  public void removedAllShouldCascadeRemove(ImmutableTree<String> immutableTree) {
+    withoutModifying(immutableTree, new Test<ImmutableTree<String>>() {
+      @Override
+      public void apply(ImmutableTree<String> immutableTree) {
+        immutableTree = setupTreeTestData(immutableTree);
+
+        immutableTree = immutableTree.removedAll(ImmutableList.of("a", "2", "!", "unknown node"));
+
+        assertEquals(3, immutableTree.size());
+        assertThat(immutableTree.getChildren("1"), hasItem("b"));
+        assertFalse(immutableTree.contains("a"));
+        assertFalse(immutableTree.contains("!"));
+        assertFalse(immutableTree.contains("c"));
+      }
+    });
+  }
+
+  @Theory
+  public void removedAllShouldReturnAnEmptyTreeOnRootNode(ImmutableTree<String> immutableTree) {
+    withoutModifying(immutableTree, new Test<ImmutableTree<String>>() {
+      @Override
+      public void apply(ImmutableTree<String> immutableTree) {
+        immutableTree = setupTreeTestData(immutableTree);
+
+        immutableTree = immutableTree.removedAll(ImmutableList.of("a", "R"));
+
+        assertNull(immutableTree.getRoot());
+        assertEquals(0, immutableTree.size());
+      }
+    });
+  }
+
+  @Theory
+  public void removedAllShouldReturnTheSameTreeOnUnknownNodes(ImmutableTree<String> immutableTree) {
+    withoutModifying(immutableTree, new Test<ImmutableTree<String>>() {
+      @Override
+      public void apply(ImmutableTree<String> immutableTree) {
+        immutableTree = setupTreeTestData(immutableTree);
+
+        ImmutableTree<String> newTree = immutableTree.removedAll(ImmutableList.of("unknown node", "other node"));
+
+        assertThat(newTree, is(sameInstance(immutableTree)));
+      }
+    });
+  }
+
   @Override
   @SuppressWarnings("ParameterNameDiffersFromOverriddenParameter")
   public ImmutableTree<String> withRoot(ImmutableTree<String> immutableTree, String root) {
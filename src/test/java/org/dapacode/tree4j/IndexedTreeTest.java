@@ -0,0 +1,152 @@
+package org.dapacode.tree4j;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.experimental.theories.DataPoints;
+import org.junit.experimental.theories.Theories;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+@RunWith(Theories.class)
+// CSOFF: WhitespaceAroundCheck
+@SuppressWarnings({"InstanceMethodNamingConvention", "DesignForExtension", "LocalCanBeFinal"})
+// CSON: WhitespaceAroundCheck
+public class IndexedTreeTest extends MutableTreeTest {
+  @DataPoints
+  public static MutableTree<?>[] data() {
+    return new MutableTree<?>[]{
+        Trees.indexedTree(MultimapTree.<String>create())
+    };
+  }
+
+  @org.junit.Test
+  public void shouldIndexTheSubtreeSizesAndDepths() {
+    IndexedTree<String> tree = Trees.indexedTree(MultimapTree.<String>create());
+    tree.setRoot("R");
+    tree.add("R", "1");
+    tree.add("1", "a");
+    tree.add("a", "!");
+    tree.add("1", "b");
+    tree.add("R", "2");
+    tree.add("2", "c");
+
+    assertEquals(7, tree.getSubtreeSize("R"));
+    assertEquals(4, tree.getSubtreeSize("1"));
+    assertEquals(1, tree.getSubtreeSize("!"));
+    assertEquals(0, tree.getDepth("R"));
+    assertEquals(3, tree.getDepth("!"));
+    assertEquals(3, tree.getMaxDepth());
+
+    tree.remove("a");
+
+    assertEquals(5, tree.getSubtreeSize("R"));
+    assertEquals(2, tree.getSubtreeSize("1"));
+    assertFalse(tree.contains("!"));
+    assertEquals(2, tree.getMaxDepth());
+
+    tree.setRoot("S");
+
+    assertEquals(1, tree.getSubtreeSize("S"));
+    assertEquals(0, tree.getDepth("S"));
+    assertEquals(0, tree.getMaxDepth());
+
+    tree.clear();
+
+    assertEquals(-1, tree.getMaxDepth());
+  }
+
+  @org.junit.Test
+  public void shouldIndexTheExistingNodesOfTheBackingTree() {
+    MultimapTree<String> backingTree = MultimapTree.create();
+    backingTree.setRoot("R");
+    backingTree.add("R", "1");
+    backingTree.add("1", "a");
+    backingTree.add("R", "2");
+
+    IndexedTree<String> tree = Trees.indexedTree(backingTree);
+
+    assertEquals(4, tree.getSubtreeSize("R"));
+    assertEquals(2, tree.getSubtreeSize("1"));
+    assertEquals(2, tree.getDepth("a"));
+  }
+
+  @org.junit.Test(expected = IllegalArgumentException.class)
+  public void getSubtreeSizeShouldThrowAnIAEOnUnknownNode() {
+    IndexedTree<String> tree = Trees.indexedTree(MultimapTree.<String>create());
+    tree.setRoot("R");
+    tree.getSubtreeSize("unknown node");
+  }
+
+  @org.junit.Test
+  public void shouldKeepTheIndexConsistentWithTheTree() {
+    IndexedTree<Integer> tree = Trees.indexedTree(MultimapTree.<Integer>create());
+    tree.setRoot(0);
+    Random random = new Random(42);
+    for (int i = 1; i < 5000; i++) {
+      List<Integer> nodes = Trees.getNodesPreOrder(tree).toList();
+      if (random.nextInt(10) == 0 && nodes.size() > 1) {
+        tree.remove(nodes.get(1 + random.nextInt(nodes.size() - 1)));
+      } else {
+        tree.add(nodes.get(random.nextInt(nodes.size())), i);
+      }
+    }
+
+    assertConsistent(tree);
+  }
+
+  @org.junit.Test
+  public void shouldKeepTheIndexConsistentWithTheTreeWhenMovingNodes() {
+    IndexedTree<Integer> tree = Trees.indexedTree(MultimapTree.<Integer>create());
+    tree.setRoot(0);
+    Random random = new Random(42);
+    for (int i = 1; i < 1000; i++) {
+      tree.add(random.nextInt(i), i);
+    }
+    for (int i = 0; i < 1000; i++) {
+      int node = 1 + random.nextInt(999);
+      int newParent = random.nextInt(1000);
+      if (!Trees.getNodesPreOrder(tree, node).contains(newParent)) {
+        tree.move(node, newParent);
+      }
+    }
+
+    assertConsistent(tree);
+  }
+
+  @org.junit.Test
+  public void shouldKeepTheIndexConsistentWithTheTreeWhenAddingSubtrees() {
+    IndexedTree<Integer> tree = Trees.indexedTree(MultimapTree.<Integer>create());
+    tree.setRoot(0);
+    Random random = new Random(42);
+    for (int i = 1; i < 100; i++) {
+      tree.add(random.nextInt(i), i);
+    }
+    for (int start = 100; start < 1000; start += 100) {
+      MultimapTree<Integer> subtree = MultimapTree.create();
+      subtree.setRoot(start);
+      for (int i = start + 1; i < start + 100; i++) {
+        subtree.add(start + random.nextInt(i - start), i);
+      }
+      tree.addAll(random.nextInt(start), subtree);
+    }
+
+    assertConsistent(tree);
+  }
+
+  private static void assertConsistent(final IndexedTree<Integer> tree) {
+    int maxDepth = -1;
+    for (Integer node : ImmutableList.copyOf(Trees.getNodesPreOrder(tree))) {
+      assertEquals(Trees.getNodesPreOrder(tree, node).size(), tree.getSubtreeSize(node));
+      int depth = 0;
+      for (Integer ancestor = tree.getParent(node); ancestor != null; ancestor = tree.getParent(ancestor)) {
+        depth++;
+      }
+      assertEquals(depth, tree.getDepth(node));
+      maxDepth = Math.max(maxDepth, depth);
+    }
+    assertEquals(maxDepth, tree.getMaxDepth());
+  }
+}
@@ -0,0 +1,118 @@
+package org.dapacode.tree4j;
+
+import org.dapacode.tree4j.testutils.TreeHelper;
+import org.junit.experimental.theories.DataPoints;
+import org.junit.experimental.theories.Theories;
+import org.junit.runner.RunWith;
+
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+@RunWith(Theories.class)
+// CSOFF: WhitespaceAroundCheck
+@SuppressWarnings({"InstanceMethodNamingConvention", "DesignForExtension", "LocalCanBeFinal"})
+// CSON: WhitespaceAroundCheck
+public class InstrumentedMutableTreeTest extends MutableTreeTest {
+  @DataPoints
+  public static MutableTree<?>[] data() {
+    return new MutableTree<?>[]{
+        Trees.instrumentedMutableTree(MultimapTree.<String>create())
+    };
+  }
+
+  @org.junit.Test
+  public void shouldCountTheCallsAndErrorsOfEachOperation() {
+    InstrumentedMutableTree<String> tree = Trees.instrumentedMutableTree(MultimapTree.<String>create());
+    TreeHelper.setupTreeTestData(tree);
+    tree.getChildren("1");
+    try {
+      tree.getParent("unknown");
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+
+    TreeMetrics metrics = tree.getMetrics();
+    assertEquals(6, metrics.getSnapshot(TreeMetrics.Operation.ADD).getCalls());
+    assertEquals(1, metrics.getSnapshot(TreeMetrics.Operation.SET_ROOT).getCalls());
+    assertEquals(1, metrics.getSnapshot(TreeMetrics.Operation.GET_PARENT).getErrors());
+    assertEquals(0, metrics.getSnapshot(TreeMetrics.Operation.GET_CHILDREN).getErrors());
+    assertFalse(metrics.getOperations().containsKey("REMOVE"));
+
+    metrics.reset();
+    assertEquals(0, metrics.getSnapshot(TreeMetrics.Operation.ADD).getCalls());
+  }
+
+  @org.junit.Test
+  public void shouldTrackTheSizeAndMaximumDepth() {
+    InstrumentedMutableTree<String> tree = Trees.instrumentedMutableTree(MultimapTree.<String>create());
+    TreeMetrics metrics = tree.getMetrics();
+    assertEquals(-1, metrics.snapshotMaxDepth());
+
+    TreeHelper.setupTreeTestData(tree);
+    assertEquals(7, metrics.getSize());
+    assertEquals(-1, metrics.getMaxDepth());
+    assertEquals(3, metrics.snapshotMaxDepth());
+    assertEquals(3, metrics.getMaxDepth());
+
+    tree.remove("a");
+    assertEquals(3, metrics.getMaxDepth());
+    assertEquals(2, metrics.snapshotMaxDepth());
+    assertEquals(2, metrics.getMaxDepth());
+    assertEquals(3, Trees.instrumentedTree(TreeHelper.setupTreeTestData(MultimapTree.<String>create())).getMetrics()
+        .snapshotMaxDepth());
+  }
+
+  @org.junit.Test
+  public void shouldReadTheMaximumDepthOfAnIndexedTreeFromItsIndex() {
+    InstrumentedMutableTree<String> tree =
+        Trees.instrumentedMutableTree(Trees.indexedTree(MultimapTree.<String>create()));
+    TreeMetrics metrics = tree.getMetrics();
+    assertEquals(-1, metrics.getMaxDepth());
+
+    TreeHelper.setupTreeTestData(tree);
+    assertEquals(3, metrics.getMaxDepth());
+
+    tree.remove("a");
+    assertEquals(2, metrics.getMaxDepth());
+  }
+
+  @org.junit.Test
+  public void latencyHistogramsShouldEstimatePercentiles() {
+    long[] counts = new long[TreeMetrics.LatencyBuckets.COUNT];
+    counts[TreeMetrics.LatencyBuckets.index(100)] = 90;
+    counts[TreeMetrics.LatencyBuckets.index(10000)] = 10;
+    TreeMetrics.OperationSnapshot snapshot = new TreeMetrics.OperationSnapshot(100, 0, 109000, 10000, counts);
+
+    assertTrue(snapshot.getMedianNanos() >= 100 && snapshot.getMedianNanos() < 125);
+    assertEquals(10000, snapshot.getP99Nanos());
+    assertEquals(1090.0, snapshot.getMeanNanos(), 0.0);
+
+    for (long nanos = 0; nanos < 100000; nanos += 7) {
+      int bucket = TreeMetrics.LatencyBuckets.index(nanos);
+      assertTrue(TreeMetrics.OperationSnapshot.getLowerBoundNanos(bucket) <= nanos);
+      assertTrue(TreeMetrics.LatencyBuckets.upperBound(bucket) >= nanos);
+    }
+    assertEquals(TreeMetrics.LatencyBuckets.COUNT - 1, TreeMetrics.LatencyBuckets.index(Long.MAX_VALUE));
+  }
+
+  @org.junit.Test
+  public void metricsShouldBeRegisteredAsAnMXBean() throws Exception {
+    InstrumentedMutableTree<String> tree = Trees.instrumentedMutableTree(MultimapTree.<String>create());
+    TreeHelper.setupTreeTestData(tree);
+
+    ObjectName name = tree.getMetrics().registerMBean("test");
+    try {
+      assertEquals(7, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Size"));
+      TabularData operations = (TabularData) ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Operations");
+      CompositeData add = (CompositeData) operations.get(new Object[]{"ADD"}).get("value");
+      assertEquals(6L, add.get("calls"));
+    } finally {
+      TreeMetrics.unregisterMBean("test");
+    }
+  }
+}
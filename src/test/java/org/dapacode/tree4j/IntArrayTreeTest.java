@@ -0,0 +1,271 @@
+package org.dapacode.tree4j;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.junit.Assert.*;
+
+// CSOFF: WhitespaceAroundCheck
+@SuppressWarnings({"InstanceMethodNamingConvention", "DesignForExtension", "LocalCanBeFinal"})
+// CSON: WhitespaceAroundCheck
+public class IntArrayTreeTest {
+  @Rule
+  @SuppressWarnings("PublicField")
+  public final ExpectedException expectedException = ExpectedException.none();
+
+  private final IntArrayTree tree = IntArrayTree.create();
+
+  /** Builds a tree of 1000 nodes where the parent of each node {@code i} is {@code i / 10}. */
+  private void setupTreeTestData(MutableIntTree intTree) {
+    intTree.setRoot(0);
+    for (int i = 1; i < 1000; i++) {
+      intTree.add(i / 10, i);
+    }
+  }
+
+  @Test
+  public void addShouldLinkTheChildToItsParentInInsertionOrder() {
+    tree.setRoot(5);
+    tree.add(5, 7);
+    tree.add(5, 3);
+    tree.add(3, 100);
+
+    assertEquals(4, tree.size());
+    assertEquals(5, tree.getParent(3));
+    assertEquals(IntTree.NO_NODE, tree.getParent(5));
+    assertArrayEquals(new int[]{7, 3}, tree.getChildren(5));
+    assertEquals(2, tree.getChildCount(5));
+    assertEquals(7, tree.getFirstChild(5));
+    assertEquals(3, tree.getNextSibling(7));
+    assertEquals(IntTree.NO_NODE, tree.getNextSibling(3));
+    assertTrue(tree.contains(100));
+    assertFalse(tree.contains(99));
+    assertFalse(tree.contains(-1));
+  }
+
+  @Test
+  public void moveShouldRelinkTheNodeAfterTheLastChildOfItsNewParent() {
+    setupTreeTestData(tree);
+
+    assertTrue(tree.move(12, 3));
+    assertFalse(tree.move(12, 3));
+
+    assertEquals(3, tree.getParent(12));
+    assertEquals(3, tree.getParent(tree.getParent(125)));
+    assertEquals(11, tree.getChildCount(3));
+    assertEquals(12, tree.getChildren(3)[10]);
+    assertArrayEquals(new int[]{10, 11, 13, 14, 15, 16, 17, 18, 19}, tree.getChildren(1));
+    assertEquals(1000, tree.size());
+  }
+
+  @Test
+  public void moveShouldThrowAnIAEWhenMovingANodeUnderItsDescendant() {
+    setupTreeTestData(tree);
+    expectedException.expect(IllegalArgumentException.class);
+    tree.move(1, 123);
+  }
+
+  @Test
+  public void addShouldReturnFalseWhenAddingTheSameAssociationTwice() {
+    tree.setRoot(0);
+    assertTrue(tree.add(0, 1));
+    assertFalse(tree.add(0, 1));
+  }
+
+  @Test
+  public void addShouldThrowAnIAEOnAlreadyAssociatedChildNode() {
+    tree.setRoot(0);
+    tree.add(0, 1);
+    tree.add(0, 2);
+    expectedException.expect(IllegalArgumentException.class);
+    tree.add(2, 1);
+  }
+
+  @Test
+  public void addShouldThrowAnIAEOnTheRootAsChildNode() {
+    tree.setRoot(0);
+    tree.add(0, 1);
+    expectedException.expect(IllegalArgumentException.class);
+    tree.add(1, 0);
+  }
+
+  @Test
+  public void addShouldThrowAnIAEOnUnknownParentNode() {
+    tree.setRoot(0);
+    expectedException.expect(IllegalArgumentException.class);
+    tree.add(1, 2);
+  }
+
+  @Test
+  public void removeShouldRemoveTheNodeAndAllOfItsDescendants() {
+    setupTreeTestData(tree);
+
+    assertTrue(tree.remove(5));
+
+    assertEquals(1000 - 111, tree.size());
+    assertFalse(tree.contains(5));
+    assertFalse(tree.contains(59));
+    assertFalse(tree.contains(599));
+    assertTrue(tree.contains(6));
+    assertArrayEquals(new int[]{1, 2, 3, 4, 6, 7, 8, 9}, tree.getChildren(0));
+    assertEquals(MultimapTree.copyOf(IntTrees.asTree(tree)), IntTrees.asTree(tree));
+
+    tree.add(0, 5);
+    assertEquals(5, tree.getChildren(0)[8]);
+    assertEquals(0, tree.getChildCount(5));
+  }
+
+  @Test
+  public void removeShouldEmptyTheTreeOnRootNode() {
+    setupTreeTestData(tree);
+
+    tree.remove(0);
+
+    assertEquals(0, tree.size());
+    assertEquals(IntTree.NO_NODE, tree.getRoot());
+    assertFalse(tree.contains(1));
+  }
+
+  @Test
+  public void nextPreOrderShouldTraverseTheSubtree() {
+    tree.setRoot(0);
+    tree.add(0, 1);
+    tree.add(0, 2);
+    tree.add(1, 3);
+    tree.add(1, 4);
+    tree.add(2, 5);
+
+    ImmutableList.Builder<Integer> nodes = ImmutableList.builder();
+    for (int node = 0; node != IntTree.NO_NODE; node = IntTrees.nextPreOrder(tree, node, 0)) {
+      nodes.add(node);
+    }
+    assertEquals(ImmutableList.of(0, 1, 3, 4, 2, 5), nodes.build());
+
+    nodes = ImmutableList.builder();
+    for (int node = 1; node != IntTree.NO_NODE; node = IntTrees.nextPreOrder(tree, node, 1)) {
+      nodes.add(node);
+    }
+    assertEquals(ImmutableList.of(1, 3, 4), nodes.build());
+  }
+
+  @Test
+  public void copyOfShouldReturnAnEqualButIndependentTree() {
+    setupTreeTestData(tree);
+
+    IntArrayTree copy = IntArrayTree.copyOf(tree);
+    IntArrayTree viewCopy = IntArrayTree.copyOf(new IntTreeOnlyView(tree));
+    copy.remove(3);
+
+    assertTrue(tree.contains(3));
+    assertFalse(copy.contains(3));
+    assertEquals(IntTrees.asTree(tree), IntTrees.asTree(viewCopy));
+  }
+
+  @Test
+  public void asTreeShouldBeEqualToAnEquivalentMultimapTree() {
+    setupTreeTestData(tree);
+    MultimapTree<Integer> multimapTree = MultimapTree.create();
+    multimapTree.setRoot(0);
+    for (int i = 1; i < 1000; i++) {
+      multimapTree.add(i / 10, i);
+    }
+
+    Tree<Integer> view = IntTrees.asTree(tree);
+
+    assertEquals(multimapTree, view);
+    assertEquals(view, multimapTree);
+    assertEquals(multimapTree.hashCode(), view.hashCode());
+    assertNull(view.getParent(0));
+    assertTrue(view.getChildren(0).contains(9));
+    assertFalse(view.getChildren(0).contains(10));
+  }
+
+  @Test
+  public void asMutableTreeShouldWriteThrough() {
+    MutableTree<Integer> view = IntTrees.asMutableTree(tree);
+
+    view.setRoot(1);
+    view.add(1, 2);
+
+    assertEquals(2, tree.size());
+    assertEquals(1, tree.getParent(2));
+
+    view.remove(2);
+    assertFalse(tree.contains(2));
+  }
+
+  @Test
+  public void asMutableTreeShouldNotGraftASubtreeWithANegativeNode() {
+    MutableTree<Integer> view = IntTrees.asMutableTree(tree);
+    view.setRoot(1);
+    MutableTree<Integer> subtree = MultimapTree.create();
+    subtree.setRoot(2);
+    subtree.add(2, 3);
+    subtree.add(3, -4);
+
+    try {
+      view.addAll(1, subtree);
+      fail("The subtree shouldn't be grafted");
+    } catch (IllegalArgumentException expected) {
+      assertEquals(1, tree.size());
+      assertFalse(tree.contains(2));
+    }
+  }
+
+  @Test
+  public void asMutableTreeShouldThrowANPEOnNullNode() {
+    expectedException.expect(NullPointerException.class);
+    IntTrees.asMutableTree(tree).setRoot(null);
+  }
+
+  /** An int tree which hides the implementation of the tree it delegates to. */
+  private static final class IntTreeOnlyView implements IntTree {
+    private final IntTree delegate;
+
+    IntTreeOnlyView(IntTree delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public int size() {
+      return delegate.size();
+    }
+
+    @Override
+    public boolean contains(int node) {
+      return delegate.contains(node);
+    }
+
+    @Override
+    public int getParent(int node) {
+      return delegate.getParent(node);
+    }
+
+    @Override
+    public int getFirstChild(int node) {
+      return delegate.getFirstChild(node);
+    }
+
+    @Override
+    public int getNextSibling(int node) {
+      return delegate.getNextSibling(node);
+    }
+
+    @Override
+    public int getChildCount(int node) {
+      return delegate.getChildCount(node);
+    }
+
+    @Override
+    public int[] getChildren(int node) {
+      return delegate.getChildren(node);
+    }
+
+    @Override
+    public int getRoot() {
+      return delegate.getRoot();
+    }
+  }
+}
@@ -0,0 +1,171 @@
+package org.dapacode.tree4j;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.dapacode.tree4j.testutils.TreeHelper;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+// CSOFF: WhitespaceAroundCheck
+@SuppressWarnings({"InstanceMethodNamingConvention", "DesignForExtension", "LocalCanBeFinal"})
+// CSON: WhitespaceAroundCheck
+public class LazyTreeTest {
+  private static final int THREADS = 8;
+
+  private final MutableTree<String> store = TreeHelper.setupTreeTestData(MultimapTree.<String>create());
+
+  /** The number of times the children of each node were loaded from the store. */
+  private final ConcurrentMap<String, AtomicInteger> loads = new ConcurrentHashMap<String, AtomicInteger>();
+
+  private final Function<String, Iterable<String>> loader = new Function<String, Iterable<String>>() {
+    @Override
+    public Iterable<String> apply(final String node) {
+      loads.putIfAbsent(node, new AtomicInteger());
+      loads.get(node).incrementAndGet();
+      return ImmutableList.copyOf(store.getChildren(node));
+    }
+  };
+
+  private int loadCount(final String node) {
+    final AtomicInteger count = loads.get(node);
+    return count == null ? 0 : count.get();
+  }
+
+  @Test
+  public void shouldLoadTheChildrenOfANodeOnlyWhenRequested() {
+    LazyTree<String> tree = LazyTree.create("R", loader);
+
+    assertTrue(loads.isEmpty());
+
+    assertEquals(ImmutableSet.of("1", "2"), ImmutableSet.copyOf(tree.getChildren("R")));
+    assertEquals(ImmutableSet.of("a", "b"), ImmutableSet.copyOf(tree.getChildren("1")));
+    assertEquals("1", tree.getParent("a"));
+    assertEquals(1, loadCount("R"));
+    assertEquals(1, loadCount("1"));
+    assertEquals(0, loadCount("2"));
+  }
+
+  @Test
+  public void shouldBeEqualToTheLoadedTree() {
+    LazyTree<String> tree = LazyTree.create("R", loader);
+
+    assertEquals(store.size(), tree.size());
+    assertEquals(store, tree);
+    assertEquals(tree, store);
+    assertEquals(store.hashCode(), tree.hashCode());
+  }
+
+  @Test
+  public void shouldReloadTheEvictedChildren() {
+    LazyTree<String> tree = LazyTree.builder("R", loader).maximumSize(1).build();
+
+    tree.getChildren("R");
+    tree.getChildren("1");
+    tree.getChildren("R");
+
+    assertEquals(2, loadCount("R"));
+    assertTrue(tree.contains("a"));
+    assertEquals("1", tree.getParent("a"));
+
+    tree.evictAll();
+
+    assertTrue(tree.contains("R"));
+    assertEquals(2, loadCount("R"));
+    assertEquals("1", tree.getParent("a"));
+    assertEquals(3, loadCount("R"));
+    assertEquals(2, loadCount("1"));
+  }
+
+  @Test
+  public void shouldSearchForTheNodesNotReachedYet() {
+    LazyTree<String> tree = LazyTree.create("R", loader);
+
+    assertTrue(tree.contains("!"));
+    assertEquals("a", tree.getParent("!"));
+    assertEquals(1, loadCount("R"));
+    assertEquals(0, loadCount("!"));
+
+    assertFalse(tree.contains("unknown node"));
+    assertEquals(1, loadCount("!"));
+    assertEquals(1, loadCount("R"));
+    assertTrue(Trees.subtreeView(tree, "1").contains("!"));
+  }
+
+  @Test
+  public void shouldLoadTheChildrenOfANodeOnceWhenRequestedConcurrently() throws Exception {
+    final CountDownLatch loading = new CountDownLatch(1);
+    final LazyTree<String> tree = LazyTree.create("R", new Function<String, Iterable<String>>() {
+      @Override
+      public Iterable<String> apply(final String node) {
+        try {
+          loading.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return loader.apply(node);
+      }
+    });
+
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      List<Future<?>> futures = new ArrayList<Future<?>>();
+      for (int thread = 0; thread < THREADS; thread++) {
+        futures.add(executor.submit(new Callable<Object>() {
+          @Override
+          public Object call() {
+            return tree.getChildren("R");
+          }
+        }));
+      }
+      loading.countDown();
+      for (Future<?> future : futures) {
+        assertEquals(ImmutableSet.of("1", "2"), ImmutableSet.copyOf((Iterable<?>) future.get()));
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    assertEquals(1, loadCount("R"));
+  }
+
+  @Test
+  public void shouldPrefetchTheDescendantsToTheConfiguredDepth() throws Exception {
+    LazyTree<String> tree = LazyTree.builder("R", loader)
+        .prefetchDepth(1)
+        .executor(MoreExecutors.sameThreadExecutor())
+        .build();
+
+    tree.getChildren("R");
+
+    assertEquals(1, loadCount("1"));
+    assertEquals(1, loadCount("2"));
+    assertEquals(0, loadCount("a"));
+
+    tree.prefetch("1", 2).get();
+
+    assertEquals(1, loadCount("1"));
+    assertEquals(1, loadCount("a"));
+    assertEquals(1, loadCount("b"));
+    assertEquals(0, loadCount("!"));
+    assertEquals(0, loadCount("c"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void getChildrenShouldThrowAnIAEOnUnknownNode() {
+    LazyTree.create("R", loader).getChildren("unknown node");
+  }
+}
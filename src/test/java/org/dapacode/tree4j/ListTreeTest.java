@@ -0,0 +1,100 @@
+package org.dapacode.tree4j;
+
+import com.google.common.collect.ImmutableList;
+import org.dapacode.tree4j.testutils.TreeHelper;
+import org.junit.experimental.theories.DataPoints;
+import org.junit.experimental.theories.Theories;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+@RunWith(Theories.class)
+// CSOFF: WhitespaceAroundCheck
+@SuppressWarnings({"InstanceMethodNamingConvention", "DesignForExtension", "LocalCanBeFinal"})
+// CSON: WhitespaceAroundCheck
+public class ListTreeTest extends MutableTreeTest {
+  @DataPoints
+  public static MutableTree<?>[] data() {
+    return new MutableTree<?>[]{
+        ListTree.<String>create()
+    };
+  }
+
+  @org.junit.Test
+  public void childrenShouldBeKeptInTheOrderInWhichTheyWereAdded() {
+    ListTree<String> tree = ListTree.create();
+    TreeHelper.setupTreeTestData(tree);
+    tree.add("R", 0, "0");
+    tree.add("R", 2, "1.5");
+
+    assertEquals(ImmutableList.of("0", "1", "1.5", "2"), ImmutableList.copyOf(tree.getChildren("R")));
+    assertEquals("1.5", tree.getChild("R", 2));
+    assertEquals(2, tree.indexOf("1.5"));
+    assertEquals(3, tree.indexOf("2"));
+    assertEquals(-1, tree.indexOf("R"));
+    assertFalse(tree.add("R", 0, "2"));
+    assertEquals(3, tree.indexOf("2"));
+
+    tree.remove("1");
+    assertEquals(ImmutableList.of("0", "1.5", "2"), ImmutableList.copyOf(tree.getChildren("R")));
+    assertEquals(1, tree.indexOf("1.5"));
+  }
+
+  @org.junit.Test(expected = IndexOutOfBoundsException.class)
+  public void getChildShouldThrowAnIOOBEOnAPositionWithoutChild() {
+    ListTree<String> tree = ListTree.create();
+    TreeHelper.setupTreeTestData(tree);
+    tree.getChild("2", 1);
+  }
+
+  @org.junit.Test(expected = IndexOutOfBoundsException.class)
+  public void addShouldThrowAnIOOBEOnAPositionAfterTheLastChild() {
+    ListTree<String> tree = ListTree.create();
+    TreeHelper.setupTreeTestData(tree);
+    tree.add("2", 2, "d");
+  }
+
+  @org.junit.Test
+  public void positionalAccessShouldMatchAListForHighFanOutNodes() {
+    Random random = new Random(42);
+    ListTree<Integer> tree = ListTree.create();
+    List<Integer> expected = new ArrayList<Integer>();
+    tree.setRoot(-1);
+
+    for (int i = 0; i < 20000; i++) {
+      if (expected.isEmpty() || random.nextInt(4) != 0) {
+        int index = random.nextInt(expected.size() + 1);
+        tree.add(-1, index, i);
+        expected.add(index, i);
+      } else {
+        tree.remove(expected.remove(random.nextInt(expected.size())));
+      }
+    }
+
+    assertEquals(expected, ImmutableList.copyOf(tree.getChildren(-1)));
+    for (int index = 0; index < expected.size(); index++) {
+      assertEquals(expected.get(index), tree.getChild(-1, index));
+      assertEquals(index, tree.indexOf(expected.get(index)));
+    }
+  }
+
+  @org.junit.Test
+  public void hashCodeAndEqualsShouldBeConsistentWithTheMultimapTrees() {
+    ListTree<String> tree = ListTree.create();
+    TreeHelper.setupTreeTestData(tree);
+    MutableTree<String> multimapTree = TreeHelper.setupTreeTestData(MultimapTree.<String>create());
+    tree.add("R", 0, "3");
+    multimapTree.add("R", "3");
+    tree.remove("a");
+    multimapTree.remove("a");
+
+    assertEquals(multimapTree, tree);
+    assertEquals(tree, multimapTree);
+    assertEquals(multimapTree.hashCode(), tree.hashCode());
+    assertEquals(tree, ListTree.copyOf(multimapTree));
+  }
+}
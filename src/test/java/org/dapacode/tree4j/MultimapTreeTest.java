@@ -12,6 +12,8 @@ import org.junit.runner.RunWith;
 import java.util.Collection;
 import java.util.Map;
 
+import static org.junit.Assert.*;
+
 @RunWith(Theories.class)
 // CSOFF: WhitespaceAroundCheck
 @SuppressWarnings({"InstanceMethodNamingConvention", "DesignForExtension", "LocalCanBeFinal"})
@@ -66,4 +68,70 @@ public class MultimapTreeTest extends MutableTreeTest {
 
     return data;
   }
+
+  @org.junit.Test
+  public void equalsShouldTellApartNodesWhoseHashCodesCollide() {
+    MultimapTree<String> tree = MultimapTree.create();
+    tree.setRoot("R");
+    tree.add("R", "Aa");
+    MultimapTree<String> other = MultimapTree.create();
+    other.setRoot("R");
+    other.add("R", "BB");
+
+    assertEquals(tree.hashCode(), other.hashCode());
+    assertFalse(tree.equals(other));
+    assertFalse(ImmutableMultimapTree.copyOf(tree).equals(ImmutableMultimapTree.copyOf(other)));
+  }
+
+  @org.junit.Test
+  public void createShouldRejectAssociationsWhichArentEmpty() {
+    SetMultimap<String, String> children = LinkedHashMultimap.create();
+    children.put("R", "1");
+    Map<String, String> parents = Maps.newLinkedHashMap();
+    parents.put("1", "R");
+
+    try {
+      MultimapTree.create(children, parents);
+      fail("The non-empty associations should be rejected");
+    } catch (IllegalArgumentException expected) {
+      assertEquals(1, children.size());
+    }
+  }
+
+  @org.junit.Test
+  public void hashCodeShouldBeMaintainedAcrossModifications() {
+    MultimapTree<Integer> tree = MultimapTree.create();
+    tree.setRoot(0);
+    for (int i = 1; i < 500; i++) {
+      tree.add(i / 7, i);
+    }
+    assertEquals(Trees.hashCode(tree), tree.hashCode());
+
+    tree.remove(3);
+    tree.remove(499);
+    tree.add(0, 3);
+    assertEquals(Trees.hashCode(tree), tree.hashCode());
+    assertEquals(ImmutableMultimapTree.copyOf(tree).hashCode(), tree.hashCode());
+    assertEquals(MultimapTree.copyOf(tree).hashCode(), tree.hashCode());
+
+    tree.setRoot(1);
+    assertEquals(Trees.hashCode(tree), tree.hashCode());
+    tree.clear();
+    assertEquals(0, tree.hashCode());
+  }
+
+  @org.junit.Test
+  public void equalsShouldRejectTreesWithTheSameRootButDifferentSizesOrHashCodes() {
+    MultimapTree<Integer> tree = MultimapTree.create();
+    tree.setRoot(0);
+    tree.add(0, 1);
+    MultimapTree<Integer> other = MultimapTree.copyOf(tree);
+    assertEquals(tree, other);
+
+    other.add(1, 2);
+    assertFalse(tree.equals(other));
+    tree.add(0, 2);
+    assertFalse(tree.equals(other));
+    assertFalse(other.equals(ImmutableMultimapTree.copyOf(tree)));
+  }
 }
@@ -203,6 +203,113 @@ public class MutableTreeTest extends TreeTest<MutableTree<String>> {
     assertTrue(changed);
   }
 
+  @Theory
+  public void moveShouldMoveTheNodeAndAllOfItsChildren(MutableTree<String> mutableTree) {
+    setupTreeTestData(mutableTree);
+    MutableTree<String> expected = TreeHelper.setupTreeTestData(MultimapTree.<String>create());
+    expected.remove("a");
+    expected.add("c", "a");
+    expected.add("a", "!");
+
+    boolean changed = mutableTree.move("a", "c");
+
+    assertTrue(changed);
+    assertEquals("c", mutableTree.getParent("a"));
+    assertEquals("a", mutableTree.getParent("!"));
+    assertThat(mutableTree.getChildren("1"), not(hasItem("a")));
+    assertThat(mutableTree.getChildren("c"), hasItem("a"));
+    assertEquals(expected, mutableTree);
+    assertEquals(expected.hashCode(), mutableTree.hashCode());
+  }
+
+  @Theory
+  public void moveShouldReturnFalseWhenMovingANodeToItsParent(MutableTree<String> mutableTree) {
+    setupTreeTestData(mutableTree);
+    assertFalse(mutableTree.move("a", "1"));
+    assertEquals("1", mutableTree.getParent("a"));
+  }
+
+  @Theory
+  public void moveShouldThrowAnIAEOnUnknownNewParentNode(MutableTree<String> mutableTree) {
+    setupTreeTestData(mutableTree);
+    expectedException.expect(IllegalArgumentException.class);
+    mutableTree.move("a", "unknown node");
+  }
+
+  @Theory
+  public void moveShouldThrowAnIAEOnTheRootNode(MutableTree<String> mutableTree) {
+    setupTreeTestData(mutableTree);
+    expectedException.expect(IllegalArgumentException.class);
+    mutableTree.move("R", "1");
+  }
+
+  @Theory
+  public void moveShouldThrowAnIAEWhenMovingANodeUnderItsDescendant(MutableTree<String> mutableTree) {
+    setupTreeTestData(mutableTree);
+    try {
+      mutableTree.move("1", "!");
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertEquals("R", mutableTree.getParent("1"));
+      assertEquals(TreeHelper.setupTreeTestData(MultimapTree.<String>create()), mutableTree);
+    }
+  }
+
+  @Theory
+  public void addAllShouldAddAllTheNodesOfTheSubtree(MutableTree<String> mutableTree) {
+    setupTreeTestData(mutableTree);
+    MutableTree<String> subtree = MultimapTree.create();
+    subtree.setRoot("3");
+    subtree.add("3", "d");
+    subtree.add("d", "?");
+    subtree.add("3", "e");
+    MutableTree<String> expected = TreeHelper.setupTreeTestData(MultimapTree.<String>create());
+    expected.add("c", "3");
+    expected.add("3", "d");
+    expected.add("d", "?");
+    expected.add("3", "e");
+
+    boolean changed = mutableTree.addAll("c", subtree);
+
+    assertTrue(changed);
+    assertEquals("c", mutableTree.getParent("3"));
+    assertEquals("d", mutableTree.getParent("?"));
+    assertEquals(expected, mutableTree);
+    assertEquals(expected.hashCode(), mutableTree.hashCode());
+  }
+
+  @Theory
+  public void addAllShouldReturnFalseOnAnEmptySubtree(MutableTree<String> mutableTree) {
+    setupTreeTestData(mutableTree);
+    assertFalse(mutableTree.addAll("c", MultimapTree.<String>create()));
+    assertEquals(TreeHelper.setupTreeTestData(MultimapTree.<String>create()), mutableTree);
+  }
+
+  @Theory
+  public void addAllShouldThrowAnIAEOnUnknownParentNode(MutableTree<String> mutableTree) {
+    setupTreeTestData(mutableTree);
+    MutableTree<String> subtree = MultimapTree.create();
+    subtree.setRoot("3");
+    expectedException.expect(IllegalArgumentException.class);
+    mutableTree.addAll("unknown node", subtree);
+  }
+
+  @Theory
+  public void addAllShouldThrowAnIAEAndNotModifyTheTreeWhenTheSubtreeContainsANodeOfTheTree(MutableTree<String> mutableTree) {
+    setupTreeTestData(mutableTree);
+    MutableTree<String> subtree = MultimapTree.create();
+    subtree.setRoot("3");
+    subtree.add("3", "d");
+    subtree.add("d", "a");
+    try {
+      mutableTree.addAll("c", subtree);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertFalse(mutableTree.contains("3"));
+      assertEquals(TreeHelper.setupTreeTestData(MultimapTree.<String>create()), mutableTree);
+    }
+  }
+
   @Override
   @SuppressWarnings("ParameterNameDiffersFromOverriddenParameter")
   public MutableTree<String> withRoot(MutableTree<String> mutableTree, String root) {
@@ -0,0 +1,157 @@
+package org.dapacode.tree4j;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.experimental.theories.DataPoints;
+import org.junit.experimental.theories.Theories;
+import org.junit.runner.RunWith;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+@RunWith(Theories.class)
+// CSOFF: WhitespaceAroundCheck
+@SuppressWarnings({"InstanceMethodNamingConvention", "DesignForExtension", "LocalCanBeFinal"})
+// CSON: WhitespaceAroundCheck
+public class NestedSetTreeTest extends MutableTreeTest {
+  @DataPoints
+  public static MutableTree<?>[] data() {
+    return new MutableTree<?>[]{
+        Trees.nestedSetTree(MultimapTree.<String>create())
+    };
+  }
+
+  @org.junit.Test
+  public void shouldLabelTheNodesWithNestedIntervals() {
+    NestedSetTree<String> tree = Trees.nestedSetTree(MultimapTree.<String>create());
+    tree.setRoot("R");
+    tree.add("R", "1");
+    tree.add("1", "a");
+    tree.add("a", "!");
+    tree.add("1", "b");
+    tree.add("R", "2");
+    tree.add("2", "c");
+
+    assertTrue(tree.isDescendant("!", "R"));
+    assertTrue(tree.isDescendant("b", "1"));
+    assertFalse(tree.isDescendant("c", "1"));
+    assertFalse(tree.isDescendant("1", "1"));
+    assertFalse(tree.isDescendant("R", "a"));
+    assertEquals(ImmutableList.of("1", "a", "!", "b", "2", "c"), ImmutableList.copyOf(tree.getDescendants("R")));
+    assertEquals(ImmutableList.of("a", "!", "b"), ImmutableList.copyOf(tree.getDescendants("1")));
+    assertTrue(tree.getDescendants("c").isEmpty());
+    assertTrue(tree.getEnter("1") < tree.getEnter("a") && tree.getExit("a") < tree.getEnter("b"));
+
+    tree.remove("a");
+
+    assertEquals(ImmutableList.of("1", "b", "2", "c"), ImmutableList.copyOf(tree.getDescendants("R")));
+  }
+
+  @org.junit.Test
+  public void shouldLabelTheExistingNodesOfTheBackingTree() {
+    MultimapTree<String> backingTree = MultimapTree.create();
+    backingTree.setRoot("R");
+    backingTree.add("R", "1");
+    backingTree.add("1", "a");
+    backingTree.add("R", "2");
+
+    NestedSetTree<String> tree = Trees.nestedSetTree(backingTree);
+
+    assertEquals(ImmutableList.of("1", "a", "2"), ImmutableList.copyOf(tree.getDescendants("R")));
+    assertTrue(tree.isDescendant("a", "1"));
+  }
+
+  @org.junit.Test
+  public void shouldRelabelWhenTheGapsAreExhausted() {
+    NestedSetTree<Integer> tree = Trees.nestedSetTree(MultimapTree.<Integer>create());
+    tree.setRoot(0);
+    // Both a deep chain and many siblings halve the gaps at each insertion
+    for (int i = 1; i < 1000; i++) {
+      tree.add(i - 1, i);
+    }
+    Collection<Integer> descendants = tree.getDescendants(500);
+    for (int i = 1000; i < 2000; i++) {
+      tree.add(500, i);
+    }
+
+    assertEquals(Trees.getNodesPreOrder(tree, 501).toList(), ImmutableList.copyOf(descendants));
+    assertEquals(1999, tree.getDescendants(0).size());
+    assertEquals(1499, tree.getDescendants(500).size());
+    assertTrue(tree.isDescendant(1999, 499));
+    assertFalse(tree.isDescendant(1999, 501));
+    assertConsistent(tree);
+  }
+
+  @org.junit.Test
+  public void shouldKeepTheLabelsConsistentWithTheTree() {
+    NestedSetTree<Integer> tree = Trees.nestedSetTree(MultimapTree.<Integer>create());
+    tree.setRoot(0);
+    Random random = new Random(42);
+    for (int i = 1; i < 3000; i++) {
+      List<Integer> nodes = Trees.getNodesPreOrder(tree).toList();
+      if (random.nextInt(10) == 0 && nodes.size() > 1) {
+        tree.remove(nodes.get(1 + random.nextInt(nodes.size() - 1)));
+      } else {
+        tree.add(nodes.get(random.nextInt(nodes.size())), i);
+      }
+    }
+
+    assertConsistent(tree);
+  }
+
+  @org.junit.Test
+  public void shouldKeepTheLabelsConsistentWithTheTreeWhenMovingNodes() {
+    NestedSetTree<Integer> tree = Trees.nestedSetTree(MultimapTree.<Integer>create());
+    tree.setRoot(0);
+    Random random = new Random(42);
+    for (int i = 1; i < 1000; i++) {
+      tree.add(random.nextInt(i), i);
+    }
+    for (int i = 0; i < 2000; i++) {
+      int node = 1 + random.nextInt(999);
+      int newParent = random.nextInt(1000);
+      if (!tree.isDescendant(newParent, node) && newParent != node) {
+        tree.move(node, newParent);
+      }
+    }
+    assertConsistent(tree);
+
+    // Moving nodes under the same node halves the gap after its last child every time, until a moved subtree doesn't fit in it
+    // and an ancestor is relabelled
+    tree.add(0, 1000);
+    for (int i = 1; i < 200; i++) {
+      tree.move(i, 1000);
+    }
+    assertConsistent(tree);
+  }
+
+  @org.junit.Test
+  public void shouldKeepTheLabelsConsistentWithTheTreeWhenAddingSubtrees() {
+    NestedSetTree<Integer> tree = Trees.nestedSetTree(MultimapTree.<Integer>create());
+    tree.setRoot(0);
+    Random random = new Random(42);
+    for (int i = 1; i < 100; i++) {
+      tree.add(random.nextInt(i), i);
+    }
+    // The later subtrees are added under the same node, until one doesn't fit after its last child
+    for (int start = 100; start < 6000; start += 100) {
+      MultimapTree<Integer> subtree = MultimapTree.create();
+      subtree.setRoot(start);
+      for (int i = start + 1; i < start + 100; i++) {
+        subtree.add(start + random.nextInt(i - start), i);
+      }
+      tree.addAll(start < 1000 ? random.nextInt(start) : 1, subtree);
+    }
+
+    assertConsistent(tree);
+  }
+
+  private static void assertConsistent(final NestedSetTree<Integer> tree) {
+    for (Integer node : Trees.getNodesPreOrder(tree)) {
+      assertEquals(Trees.getNodesPreOrder(tree, node).skip(1).toList(), ImmutableList.copyOf(tree.getDescendants(node)));
+      assertTrue(tree.getEnter(node) < tree.getExit(node));
+    }
+  }
+}
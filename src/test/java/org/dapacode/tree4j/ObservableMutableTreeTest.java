@@ -0,0 +1,163 @@
+package org.dapacode.tree4j;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.experimental.theories.DataPoints;
+import org.junit.experimental.theories.Theories;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+@RunWith(Theories.class)
+// CSOFF: WhitespaceAroundCheck
+@SuppressWarnings({"InstanceMethodNamingConvention", "DesignForExtension", "LocalCanBeFinal"})
+// CSON: WhitespaceAroundCheck
+public class ObservableMutableTreeTest extends MutableTreeTest {
+  @DataPoints
+  public static MutableTree<?>[] data() {
+    return new MutableTree<?>[]{
+        Trees.observableTree(MultimapTree.<String>create())
+    };
+  }
+
+  @org.junit.Test
+  public void listenersShouldReceiveEveryChange() {
+    ObservableMutableTree<String> tree = Trees.observableTree(MultimapTree.<String>create());
+    final List<String> events = Lists.newArrayList();
+    tree.addListener(new ObservableMutableTree.Listener<String>() {
+      @Override
+      public void treeChanged(final TreeEvent<String> event) {
+        events.add(event.toString());
+      }
+    });
+
+    tree.setRoot("R");
+    tree.add("R", "1");
+    tree.add("1", "a");
+    tree.add("1", "a");
+    tree.move("a", "R");
+    tree.move("a", "R");
+    tree.addAll("a", ImmutableMultimapTree.<String>create().withRoot("2").added("2", "b"));
+    tree.addAll("a", ImmutableMultimapTree.<String>create());
+    tree.remove("1");
+    tree.clear();
+    tree.clear();
+
+    assertEquals(ImmutableList.of("ROOT_SET(R)", "ADDED(R, 1)", "ADDED(1, a)", "MOVED(R, a)", "ADDED(a, 2)", "ADDED(2, b)",
+        "REMOVED(R, 1)", "CLEARED"), events);
+  }
+
+  @org.junit.Test
+  public void removedEventsShouldContainTheRemovedSubtree() {
+    ObservableMutableTree<String> tree = Trees.observableTree(MultimapTree.<String>create());
+    tree.setRoot("R");
+    tree.add("R", "1");
+    tree.add("1", "a");
+    tree.add("a", "!");
+    final List<TreeEvent<String>> events = Lists.newArrayList();
+    tree.addListener(new ObservableMutableTree.Listener<String>() {
+      @Override
+      public void treeChanged(final TreeEvent<String> event) {
+        events.add(event);
+      }
+    });
+
+    tree.remove("1");
+
+    TreeEvent<String> event = events.get(0);
+    assertEquals(TreeEvent.Type.REMOVED, event.getType());
+    assertEquals("R", event.getParent());
+    assertEquals(3, event.getSubtree().size());
+    assertEquals("a", event.getSubtree().getParent("!"));
+  }
+
+  @org.junit.Test
+  public void batchListenersShouldReceiveTheEventsInOrder() throws InterruptedException {
+    ObservableMutableTree<Integer> tree = Trees.observableTree(MultimapTree.<Integer>create());
+    final List<TreeEvent<Integer>> events = Lists.newArrayList();
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    tree.addBatchListener(new ObservableMutableTree.BatchListener<Integer>() {
+      @Override
+      public void treeChanged(final List<TreeEvent<Integer>> batch) {
+        events.addAll(batch);
+      }
+    }, executor);
+
+    tree.setRoot(0);
+    for (int i = 1; i < 1000; i++) {
+      tree.add(i - 1, i);
+    }
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+    assertEquals(1000, events.size());
+    for (int i = 1; i < 1000; i++) {
+      assertEquals(Integer.valueOf(i), events.get(i).getNode());
+    }
+  }
+
+  @org.junit.Test
+  public void batchesShouldDropTheEventsPrecedingANewRoot() {
+    ObservableMutableTree<String> tree = Trees.observableTree(MultimapTree.<String>create());
+    final List<TreeEvent<String>> events = Lists.newArrayList();
+    final List<Runnable> deliveries = Lists.newArrayList();
+    tree.addBatchListener(new ObservableMutableTree.BatchListener<String>() {
+      @Override
+      public void treeChanged(final List<TreeEvent<String>> batch) {
+        events.addAll(batch);
+      }
+    }, new Executor() {
+      @Override
+      public void execute(final Runnable command) {
+        deliveries.add(command);
+      }
+    });
+
+    tree.setRoot("R");
+    tree.add("R", "1");
+    tree.setRoot("S");
+    tree.add("S", "2");
+    assertEquals(1, deliveries.size());
+    deliveries.get(0).run();
+
+    assertEquals(2, events.size());
+    assertEquals(TreeEvent.Type.ROOT_SET, events.get(0).getType());
+    assertEquals("S", events.get(0).getNode());
+  }
+
+  @org.junit.Test
+  public void removedListenersShouldNotReceiveEvents() {
+    ObservableMutableTree<String> tree = Trees.observableTree(MultimapTree.<String>create());
+    final List<TreeEvent<String>> events = Lists.newArrayList();
+    ObservableMutableTree.Listener<String> listener = new ObservableMutableTree.Listener<String>() {
+      @Override
+      public void treeChanged(final TreeEvent<String> event) {
+        events.add(event);
+      }
+    };
+    ObservableMutableTree.BatchListener<String> batchListener = new ObservableMutableTree.BatchListener<String>() {
+      @Override
+      public void treeChanged(final List<TreeEvent<String>> batch) {
+        events.addAll(batch);
+      }
+    };
+    tree.addListener(listener);
+    tree.addBatchListener(batchListener, MoreExecutors.sameThreadExecutor());
+
+    tree.setRoot("R");
+    assertEquals(2, events.size());
+
+    assertTrue(tree.removeListener(listener));
+    assertTrue(tree.removeBatchListener(batchListener));
+    assertFalse(tree.removeListener(listener));
+    tree.add("R", "1");
+    assertEquals(2, events.size());
+  }
+}
@@ -0,0 +1,94 @@
+package org.dapacode.tree4j;
+
+import org.junit.experimental.theories.DataPoints;
+import org.junit.experimental.theories.Theories;
+import org.junit.runner.RunWith;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+@RunWith(Theories.class)
+// CSOFF: WhitespaceAroundCheck
+@SuppressWarnings({"InstanceMethodNamingConvention", "DesignForExtension", "LocalCanBeFinal"})
+// CSON: WhitespaceAroundCheck
+public class PersistentTreeTest extends ImmutableTreeTest {
+  @DataPoints
+  public static ImmutableTree<?>[] data() {
+    final PersistentTree<String> delegate = PersistentTree.create();
+    return new ImmutableTree<?>[]{
+        PersistentTree.<String>create(),
+        new DelegatingImmutableTree<String>() {
+          @Override
+          protected ImmutableTree<String> delegate() {
+            return delegate;
+          }
+        }
+    };
+  }
+
+  @org.junit.Test
+  public void addedShouldLeaveThePreviousVersionUnchanged() {
+    PersistentTree<Integer> tree = PersistentTree.<Integer>create().withRoot(0);
+    for (int i = 1; i < 1000; i++) {
+      tree = tree.added(i / 10, i);
+    }
+
+    PersistentTree<Integer> newTree = tree.added(999, 1000);
+
+    assertFalse(tree.contains(1000));
+    assertEquals(1000, tree.size());
+    assertEquals(1001, newTree.size());
+    assertEquals(Integer.valueOf(999), newTree.getParent(1000));
+  }
+
+  @org.junit.Test
+  public void removedShouldRemoveAllDescendantsAndLeaveThePreviousVersionUnchanged() {
+    PersistentTree<Integer> tree = PersistentTree.<Integer>create().withRoot(0);
+    for (int i = 1; i < 1000; i++) {
+      tree = tree.added(i / 10, i);
+    }
+
+    PersistentTree<Integer> newTree = tree.removed(1);
+
+    assertEquals(1000, tree.size());
+    assertEquals(1000 - 111, newTree.size());
+    assertFalse(newTree.contains(19));
+    assertFalse(newTree.contains(199));
+    assertTrue(newTree.contains(299));
+    assertThat(newTree.getChildren(0), not(hasItem(1)));
+  }
+
+  @org.junit.Test
+  public void hashCodeAndEqualsShouldBeConsistentWithTheMultimapTrees() {
+    MultimapTree<Integer> multimapTree = MultimapTree.create();
+    multimapTree.setRoot(0);
+    PersistentTree<Integer> persistentTree = PersistentTree.<Integer>create().withRoot(0);
+    for (int i = 1; i < 500; i++) {
+      multimapTree.add(i / 7, i);
+      persistentTree = persistentTree.added(i / 7, i);
+    }
+    multimapTree.remove(3);
+    persistentTree = persistentTree.removed(3);
+
+    assertEquals(multimapTree, persistentTree);
+    assertEquals(persistentTree, multimapTree);
+    assertEquals(multimapTree.hashCode(), persistentTree.hashCode());
+    assertEquals(ImmutableMultimapTree.copyOf(persistentTree).hashCode(), persistentTree.hashCode());
+  }
+
+  @org.junit.Test
+  public void shouldSupportNodesWithCollidingHashCodes() {
+    PersistentTree<String> tree = PersistentTree.<String>create().withRoot("R");
+    tree = tree.added("R", "Aa").added("R", "BB").added("Aa", "AaAa").added("Aa", "BBBB").added("BB", "AaBB");
+
+    assertEquals(6, tree.size());
+    assertEquals("Aa", tree.getParent("BBBB"));
+    assertEquals("BB", tree.getParent("AaBB"));
+
+    tree = tree.removed("BB");
+
+    assertEquals(4, tree.size());
+    assertFalse(tree.contains("AaBB"));
+    assertTrue(tree.contains("BBBB"));
+  }
+}
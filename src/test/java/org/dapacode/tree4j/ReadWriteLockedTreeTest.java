@@ -0,0 +1,145 @@
+package org.dapacode.tree4j;
+
+import com.google.common.collect.ImmutableList;
+import org.dapacode.tree4j.testutils.TreeHelper;
+import org.junit.experimental.theories.DataPoints;
+import org.junit.experimental.theories.Theories;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+@RunWith(Theories.class)
+// CSOFF: WhitespaceAroundCheck
+@SuppressWarnings({"InstanceMethodNamingConvention", "DesignForExtension", "LocalCanBeFinal"})
+// CSON: WhitespaceAroundCheck
+public class ReadWriteLockedTreeTest extends MutableTreeTest {
+  private static final int THREADS = 8;
+
+  @DataPoints
+  public static MutableTree<?>[] data() {
+    return new MutableTree<?>[]{
+        Trees.readWriteLockedTree(MultimapTree.<String>create()),
+        Trees.readWriteLockedTree(ConcurrentMultimapTree.<String>create()),
+        Trees.synchronizedTree(MultimapTree.<String>create())
+    };
+  }
+
+  @org.junit.Test
+  public void snapshotShouldBeCachedUntilTheNextModification() {
+    ReadWriteLockedTree<String> tree = Trees.readWriteLockedTree(MultimapTree.<String>create());
+    tree.setRoot("R");
+    tree.add("R", "1");
+
+    ImmutableTree<String> snapshot = tree.snapshot();
+    assertSame(snapshot, tree.snapshot());
+    assertEquals(tree, snapshot);
+
+    tree.add("R", "2");
+
+    assertFalse(snapshot.contains("2"));
+    assertNotSame(snapshot, tree.snapshot());
+    assertTrue(tree.snapshot().contains("2"));
+  }
+
+  @org.junit.Test
+  public void failedModificationsShouldKeepTheSnapshot() {
+    ReadWriteLockedTree<String> tree = Trees.readWriteLockedTree(MultimapTree.<String>create());
+    tree.setRoot("R");
+    tree.add("R", "1");
+    ImmutableTree<String> snapshot = tree.snapshot();
+
+    tree.add("R", "1");
+    tree.setRoot("R");
+
+    assertSame(snapshot, tree.snapshot());
+  }
+
+  @org.junit.Test
+  public void concurrentReadersShouldSeeConsistentStates() throws Exception {
+    checkConcurrentReadersSeeConsistentStates(Trees.readWriteLockedTree(MultimapTree.<Integer>create()));
+  }
+
+  @org.junit.Test
+  public void optimisticReadersShouldSeeConsistentStates() throws Exception {
+    checkConcurrentReadersSeeConsistentStates(Trees.readWriteLockedTree(ConcurrentMultimapTree.<Integer>create()));
+  }
+
+  private static void checkConcurrentReadersSeeConsistentStates(final ReadWriteLockedTree<Integer> tree) throws Exception {
+    tree.setRoot(0);
+    final int nodes = 20000;
+
+    final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+      futures.add(executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() {
+          for (int i = 1; i < nodes; i++) {
+            tree.add(i / 2, i);
+          }
+          return null;
+        }
+      }));
+      for (int thread = 1; thread < THREADS; thread++) {
+        futures.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() {
+            for (int i = nodes - 1; i > 0; i--) {
+              // A node is only ever added after its parent
+              if (tree.contains(i)) {
+                assertEquals(Integer.valueOf(i / 2), tree.getParent(i));
+                assertTrue(tree.contains(i / 2));
+              }
+            }
+            final ImmutableTree<Integer> snapshot = tree.snapshot();
+            assertEquals(snapshot.size() - 1, Trees.getAssociationsPreOrder(snapshot).size());
+            return null;
+          }
+        }));
+      }
+      for (final Future<Void> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    assertEquals(nodes, tree.size());
+  }
+
+  @org.junit.Test
+  public void synchronizedTreesComparedToEachOtherConcurrentlyShouldNotDeadlock() throws Exception {
+    final MutableTree<String> first = Trees.synchronizedTree(TreeHelper.setupTreeTestData(MultimapTree.<String>create()));
+    final MutableTree<String> second = Trees.synchronizedTree(TreeHelper.setupTreeTestData(MultimapTree.<String>create()));
+
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+      for (final MutableTree<String> tree : ImmutableList.of(first, second)) {
+        final MutableTree<String> other = tree == first ? second : first;
+        futures.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() {
+            for (int i = 0; i < 1000; i++) {
+              assertEquals(tree, other);
+            }
+            return null;
+          }
+        }));
+      }
+      for (final Future<Void> future : futures) {
+        future.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,171 @@
+package org.dapacode.tree4j;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.dapacode.tree4j.testutils.TreeHelper;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+// CSOFF: WhitespaceAroundCheck
+@SuppressWarnings({"InstanceMethodNamingConvention", "DesignForExtension", "LocalCanBeFinal"})
+// CSON: WhitespaceAroundCheck
+public class TreeDiffTest {
+  private final MutableTree<String> source = TreeHelper.setupTreeTestData(MultimapTree.<String>create());
+
+  @Test
+  public void diffOfEqualTreesShouldBeEmpty() {
+    TreeDiff<String> diff = Trees.diff(source, ImmutableMultimapTree.copyOf(source));
+
+    assertTrue(diff.isEmpty());
+    assertTrue(Trees.diff(MultimapTree.<String>create(), MultimapTree.<String>create()).isEmpty());
+  }
+
+  @Test
+  public void diffShouldTellApartNodesWhoseHashCodesCollide() {
+    MutableTree<String> sourceTree = MultimapTree.create();
+    sourceTree.setRoot("R");
+    sourceTree.add("R", "Aa");
+    MutableTree<String> targetTree = MultimapTree.create();
+    targetTree.setRoot("R");
+    targetTree.add("R", "BB");
+    assertEquals("Aa".hashCode(), "BB".hashCode());
+
+    Trees.apply(sourceTree, Trees.diff(sourceTree, targetTree));
+
+    assertEquals(ImmutableSet.copyOf(targetTree), ImmutableSet.copyOf(sourceTree));
+  }
+
+  @Test
+  public void diffShouldContainOnlyTheChanges() {
+    MutableTree<String> target = MultimapTree.copyOf(source);
+    target.remove("b");
+    target.add("c", "d");
+    target.remove("a");
+    target.add("2", "a");
+    target.add("a", "!");
+
+    TreeDiff<String> diff = Trees.diff(source, target);
+
+    assertFalse(diff.isRootChanged());
+    assertEquals(ImmutableList.of(Maps.immutableEntry("c", "d")), diff.getAddedAssociations());
+    assertEquals(ImmutableMap.of("a", "2"), diff.getMovedNodes());
+    assertEquals(ImmutableList.of("b"), diff.getRemovedNodes());
+  }
+
+  @Test
+  public void applyShouldTurnTheSourceTreeIntoTheTargetTree() {
+    MutableTree<String> target = MultimapTree.copyOf(source);
+    target.remove("1");
+    target.add("2", "1");
+    target.add("c", "a");
+    target.add("a", "b");
+    target.add("b", "!");
+    target.add("!", "x");
+
+    TreeDiff<String> diff = Trees.diff(source, target);
+    MutableTree<String> tree = MultimapTree.copyOf(source);
+    Trees.apply(tree, diff);
+
+    assertEquals(target, tree);
+    assertEquals(target, Trees.applied(ImmutableMultimapTree.copyOf(source), diff));
+    assertEquals(target, Trees.applied(PersistentTree.copyOf(source), diff));
+  }
+
+  @Test
+  public void applyShouldMoveANodeUnderOneOfItsFormerDescendants() {
+    MutableTree<String> target = MultimapTree.create();
+    target.setRoot("R");
+    target.add("R", "2");
+    target.add("2", "c");
+    target.add("c", "a");
+    target.add("a", "1");
+    target.add("1", "b");
+    target.add("1", "!");
+
+    TreeDiff<String> diff = Trees.diff(source, target);
+    MutableTree<String> tree = MultimapTree.copyOf(source);
+    Trees.apply(tree, diff);
+
+    assertEquals(target, tree);
+    assertEquals(target, Trees.applied(ImmutableMultimapTree.copyOf(source), diff));
+  }
+
+  @Test
+  public void applyShouldReplaceTheTreeWhenTheRootChanges() {
+    MutableTree<String> target = MultimapTree.create();
+    target.setRoot("1");
+    target.add("1", "R");
+
+    TreeDiff<String> diff = Trees.diff(source, target);
+    assertTrue(diff.isRootChanged());
+    assertEquals("1", diff.getRoot());
+
+    MutableTree<String> tree = MultimapTree.copyOf(source);
+    Trees.apply(tree, diff);
+    assertEquals(target, tree);
+    assertEquals(target, Trees.applied(ImmutableMultimapTree.copyOf(source), diff));
+
+    TreeDiff<String> clearing = Trees.diff(source, MultimapTree.<String>create());
+    Trees.apply(tree, clearing);
+    assertEquals(0, tree.size());
+    assertEquals(0, Trees.applied(ImmutableMultimapTree.copyOf(source), clearing).size());
+  }
+
+  @Test
+  public void applyShouldTurnRandomTreesIntoEachOther() {
+    Random random = new Random(42);
+    for (int round = 0; round < 50; round++) {
+      MutableTree<Integer> sourceTree = randomTree(random);
+      MutableTree<Integer> targetTree = randomTree(random);
+
+      TreeDiff<Integer> diff = Trees.diff(sourceTree, targetTree);
+      Trees.apply(sourceTree, diff);
+
+      assertEquals(targetTree, sourceTree);
+      assertEquals(ImmutableSet.copyOf(targetTree), ImmutableSet.copyOf(sourceTree));
+    }
+  }
+
+  @Test
+  public void diffShouldOnlyContainTheChangesOfALargeTree() {
+    MultimapTree<Integer> sourceTree = MultimapTree.create();
+    sourceTree.setRoot(0);
+    for (int node = 1; node < 10000; node++) {
+      sourceTree.add((node - 1) / 3, node);
+    }
+    MultimapTree<Integer> targetTree = MultimapTree.copyOf(sourceTree);
+    targetTree.add(9999, 10000);
+    targetTree.move(5000, 42);
+    targetTree.remove(7777);
+
+    TreeDiff<Integer> diff = Trees.diff(sourceTree, targetTree);
+
+    assertEquals(ImmutableList.of(Maps.immutableEntry(9999, 10000)), diff.getAddedAssociations());
+    assertEquals(ImmutableMap.of(5000, 42), diff.getMovedNodes());
+    assertEquals(ImmutableList.of(7777), diff.getRemovedNodes());
+    assertTrue(Trees.diff(sourceTree, ImmutableMultimapTree.copyOf(sourceTree)).isEmpty());
+
+    Trees.apply(sourceTree, diff);
+    assertEquals(ImmutableSet.copyOf(targetTree), ImmutableSet.copyOf(sourceTree));
+  }
+
+  private static MutableTree<Integer> randomTree(final Random random) {
+    MutableTree<Integer> tree = MultimapTree.create();
+    tree.setRoot(0);
+    List<Integer> nodes = Lists.newArrayList(0);
+    for (int node = 1; node < 100; node++) {
+      if (random.nextBoolean()) {
+        tree.add(nodes.get(random.nextInt(nodes.size())), node);
+        nodes.add(node);
+      }
+    }
+    return tree;
+  }
+}
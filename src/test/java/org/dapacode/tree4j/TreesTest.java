@@ -0,0 +1,360 @@
+package org.dapacode.tree4j;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.dapacode.tree4j.testutils.TreeHelper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+// CSOFF: WhitespaceAroundCheck
+@SuppressWarnings({"InstanceMethodNamingConvention", "DesignForExtension", "LocalCanBeFinal"})
+// CSON: WhitespaceAroundCheck
+public class TreesTest {
+  private static final int DEEP = 200000;
+
+  private static final BinaryOperator<String> CONCATENATION = new BinaryOperator<String>() {
+    @Override
+    public String apply(final String node, final String child) {
+      return node + child;
+    }
+  };
+
+  private static final Function<Integer, Long> ONE = new Function<Integer, Long>() {
+    @Override
+    public Long apply(final Integer node) {
+      return 1L;
+    }
+  };
+
+  private static final BinaryOperator<Long> SUM = new BinaryOperator<Long>() {
+    @Override
+    public Long apply(final Long node, final Long child) {
+      return node + child;
+    }
+  };
+
+  @Rule
+  @SuppressWarnings("PublicField")
+  public final ExpectedException expectedException = ExpectedException.none();
+
+  private final MutableTree<String> tree = TreeHelper.setupTreeTestData(MultimapTree.<String>create());
+
+  @Test
+  public void getNodesPreOrderShouldReturnEachNodeBeforeItsChildren() {
+    assertEquals(ImmutableList.of("R", "1", "a", "!", "b", "2", "c"), Trees.getNodesPreOrder(tree).toList());
+    assertEquals(ImmutableList.of("1", "a", "!", "b"), Trees.getNodesPreOrder(tree, "1").toList());
+  }
+
+  @Test
+  public void getNodesPostOrderShouldReturnEachNodeAfterItsChildren() {
+    assertEquals(ImmutableList.of("!", "a", "b", "1", "c", "2", "R"), Trees.getNodesPostOrder(tree).toList());
+    assertEquals(ImmutableList.of("c", "2"), Trees.getNodesPostOrder(tree, "2").toList());
+  }
+
+  @Test
+  public void getNodesBreadthFirstShouldReturnTheNodesLevelByLevel() {
+    assertEquals(ImmutableList.of("R", "1", "2", "a", "b", "c", "!"), Trees.getNodesBreadthFirst(tree).toList());
+    assertEquals(ImmutableList.of("!"), Trees.getNodesBreadthFirst(tree, "!").toList());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void getAssociationsShouldReturnTheAssociationsInTheOrderOfTheChildNodes() {
+    assertEquals(ImmutableList.<Map.Entry<String, String>>of(
+        ImmutablePair.of("R", "1"), ImmutablePair.of("1", "a"), ImmutablePair.of("a", "!"), ImmutablePair.of("1", "b"),
+        ImmutablePair.of("R", "2"), ImmutablePair.of("2", "c")), Trees.getAssociationsPreOrder(tree).toList());
+    assertEquals(ImmutableList.<Map.Entry<String, String>>of(
+        ImmutablePair.of("a", "!"), ImmutablePair.of("1", "a"), ImmutablePair.of("1", "b"), ImmutablePair.of("R", "1"),
+        ImmutablePair.of("2", "c"), ImmutablePair.of("R", "2")), Trees.getAssociationsPostOrder(tree).toList());
+    assertEquals(ImmutableList.<Map.Entry<String, String>>of(
+        ImmutablePair.of("R", "1"), ImmutablePair.of("R", "2"), ImmutablePair.of("1", "a"), ImmutablePair.of("1", "b"),
+        ImmutablePair.of("2", "c"), ImmutablePair.of("a", "!")), Trees.getAssociationsBreadthFirst(tree).toList());
+    assertEquals(Trees.getAssociationsPreOrder(tree).toList(), ImmutableList.copyOf(Trees.getAssociationsDepthFirst(tree)));
+  }
+
+  @Test
+  public void traversalsShouldBeEmptyOnAnEmptyTree() {
+    MultimapTree<String> emptyTree = MultimapTree.create();
+    assertTrue(Trees.getNodesPreOrder(emptyTree).isEmpty());
+    assertTrue(Trees.getNodesPostOrder(emptyTree).isEmpty());
+    assertTrue(Trees.getNodesBreadthFirst(emptyTree).isEmpty());
+    assertTrue(Trees.getAssociationsPreOrder(emptyTree).isEmpty());
+    assertTrue(Trees.getAssociationsDepthFirst(emptyTree).isEmpty());
+  }
+
+  @Test
+  public void traversalsShouldThrowAnIAEOnUnknownNode() {
+    expectedException.expect(IllegalArgumentException.class);
+    Trees.getNodesPreOrder(tree, "unknown node");
+  }
+
+  @Test
+  public void traversalsShouldSupportDeepTrees() {
+    MultimapTree<Integer> chain = MultimapTree.create();
+    chain.setRoot(0);
+    for (int i = 1; i < DEEP; i++) {
+      chain.add(i - 1, i);
+    }
+
+    assertEquals(DEEP, Trees.getNodesPreOrder(chain).size());
+    assertEquals(Integer.valueOf(0), Trees.getNodesPostOrder(chain).last().get());
+    assertEquals(DEEP - 1, Trees.getAssociationsDepthFirst(chain).size());
+  }
+
+  @Test
+  public void traversalsShouldOnlyVisitTheConsumedNodes() {
+    MutableTree<String> countingTree = new DelegatingMutableTree<String>() {
+      private int calls;
+
+      @Override
+      protected MutableTree<String> delegate() {
+        return tree;
+      }
+
+      @Override
+      public Collection<String> getChildren(final String node) {
+        assertTrue("Too many nodes visited", ++calls <= 2);
+        return super.getChildren(node);
+      }
+    };
+
+    assertEquals(ImmutableList.of("R", "1"), Trees.getNodesPreOrder(countingTree).limit(2).toList());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void streamsShouldReturnAllTheNodesAndAssociations() {
+    assertEquals(ImmutableSet.copyOf(tree), Trees.stream(tree).collect(Collectors.toSet()));
+    assertEquals(6, Trees.parallelStream(tree).count());
+    assertEquals(ImmutableSet.of("R", "1", "a", "!", "b", "2", "c"), Trees.nodes(tree).collect(Collectors.toSet()));
+    assertEquals(ImmutableSet.of("1", "a", "!", "b"), Trees.subtreeStream(tree, "1").collect(Collectors.toSet()));
+    assertEquals(0, Trees.nodes(MultimapTree.create()).count());
+    assertEquals(0, Trees.stream(MultimapTree.create()).count());
+  }
+
+  @Test
+  public void subtreeStreamShouldThrowAnIAEOnUnknownNode() {
+    expectedException.expect(IllegalArgumentException.class);
+    Trees.subtreeStream(tree, "unknown node");
+  }
+
+  @Test
+  public void spliteratorsShouldBeSizedUntilSplit() {
+    Spliterator<String> spliterator = Trees.nodes(tree).spliterator();
+    assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.DISTINCT | Spliterator.NONNULL));
+    assertEquals(7, spliterator.getExactSizeIfKnown());
+    assertFalse(Trees.subtreeStream(tree, "1").spliterator().hasCharacteristics(Spliterator.SIZED));
+    assertTrue(Trees.nodes(ImmutableMultimapTree.copyOf(tree)).spliterator().hasCharacteristics(Spliterator.IMMUTABLE));
+
+    Spliterator<String> split = spliterator.trySplit();
+    assertNotNull(split);
+    assertFalse(spliterator.hasCharacteristics(Spliterator.SIZED));
+    assertFalse(split.hasCharacteristics(Spliterator.SIZED));
+  }
+
+  @Test
+  public void spliteratorsShouldSplitAlongSubtreeBoundariesIntoDisjointParts() {
+    MultimapTree<Integer> wideTree = MultimapTree.create();
+    wideTree.setRoot(0);
+    for (int i = 1; i < DEEP; i++) {
+      wideTree.add((i - 1) / 4, i);
+    }
+
+    List<Spliterator<Integer>> parts = new ArrayList<Spliterator<Integer>>();
+    parts.add(Trees.nodes(wideTree).spliterator());
+    for (int round = 0; round < 4; round++) {
+      for (Spliterator<Integer> part : ImmutableList.copyOf(parts)) {
+        Spliterator<Integer> split = part.trySplit();
+        if (split != null) {
+          parts.add(split);
+        }
+      }
+    }
+    assertEquals(16, parts.size());
+
+    final Set<Integer> nodes = Sets.newHashSet();
+    for (Spliterator<Integer> part : parts) {
+      part.forEachRemaining(new Consumer<Integer>() {
+        @Override
+        public void accept(final Integer node) {
+          assertTrue("Node traversed twice: " + node, nodes.add(node));
+        }
+      });
+    }
+    assertEquals(DEEP, nodes.size());
+    assertEquals(DEEP, Trees.nodes(wideTree).parallel().distinct().count());
+  }
+
+  @Test
+  public void parallelStreamsShouldSupportDeepTrees() {
+    MultimapTree<Integer> chain = MultimapTree.create();
+    chain.setRoot(0);
+    for (int i = 1; i < DEEP; i++) {
+      chain.add(i - 1, i);
+    }
+
+    assertEquals(DEEP, Trees.nodes(chain).parallel().count());
+    assertEquals(DEEP - 1, Trees.parallelStream(chain).filter(new Predicate<Map.Entry<Integer, Integer>>() {
+      @Override
+      public boolean test(final Map.Entry<Integer, Integer> association) {
+        return association.getValue() == association.getKey() + 1;
+      }
+    }).count());
+  }
+
+  @Test
+  public void foldUpShouldAggregateEachSubtree() {
+    Map<String, String> expected = ImmutableMap.<String, String>builder()
+        .put("R", "R1a!b2c").put("1", "1a!b").put("a", "a!").put("!", "!").put("b", "b").put("2", "2c").put("c", "c")
+        .build();
+
+    assertEquals(expected, Trees.foldUp(tree, Function.<String>identity(), CONCATENATION));
+    assertEquals(expected, Trees.parallelFoldUp(tree, Function.<String>identity(), CONCATENATION));
+    assertTrue(Trees.foldUp(MultimapTree.<String>create(), Function.<String>identity(), CONCATENATION).isEmpty());
+    assertTrue(Trees.parallelFoldUp(MultimapTree.<String>create(), Function.<String>identity(), CONCATENATION).isEmpty());
+  }
+
+  @Test
+  public void parallelFoldUpShouldMatchFoldUpOnLargeTrees() {
+    MultimapTree<Integer> wideTree = MultimapTree.create();
+    wideTree.setRoot(0);
+    for (int i = 1; i < DEEP; i++) {
+      wideTree.add((i - 1) / 3, i);
+    }
+    // Many leaves below a node, and a deep chain below another
+    for (int i = DEEP; i < DEEP + DEEP / 2; i++) {
+      wideTree.add(1, i);
+    }
+    wideTree.add(2, DEEP + DEEP / 2);
+    for (int i = DEEP + DEEP / 2 + 1; i < 2 * DEEP; i++) {
+      wideTree.add(i - 1, i);
+    }
+
+    Map<Integer, Long> sizes = Trees.parallelFoldUp(wideTree, ONE, SUM);
+
+    assertEquals(Trees.foldUp(wideTree, ONE, SUM), sizes);
+    assertEquals(Long.valueOf(2 * DEEP), sizes.get(0));
+    assertEquals(Long.valueOf(DEEP / 2), sizes.get(DEEP + DEEP / 2));
+  }
+
+  @Test
+  public void foldUpShouldSupportDeepTrees() {
+    MultimapTree<Integer> chain = MultimapTree.create();
+    chain.setRoot(0);
+    for (int i = 1; i < DEEP; i++) {
+      chain.add(i - 1, i);
+    }
+
+    assertEquals(Long.valueOf(DEEP), Trees.foldUp(chain, ONE, SUM).get(0));
+    assertEquals(Long.valueOf(DEEP), Trees.parallelFoldUp(chain, ONE, SUM).get(0));
+    assertEquals(Long.valueOf(1), Trees.parallelFoldUp(chain, ONE, SUM).get(DEEP - 1));
+  }
+
+  @Test
+  public void subtreeViewShouldOnlyContainTheSubtreeOfTheNode() {
+    Tree<String> view = Trees.subtreeView(tree, "1");
+
+    assertEquals("1", view.getRoot());
+    assertEquals(4, view.size());
+    assertTrue(view.contains("!"));
+    assertFalse(view.contains("R"));
+    assertFalse(view.contains("c"));
+    assertFalse(view.contains("unknown node"));
+    assertNull(view.getParent("1"));
+    assertEquals("a", view.getParent("!"));
+    assertEquals(ImmutableSet.of("a", "b"), ImmutableSet.copyOf(view.getChildren("1")));
+
+    MutableTree<String> copy = MultimapTree.create();
+    copy.setRoot("1");
+    copy.add("1", "a");
+    copy.add("1", "b");
+    copy.add("a", "!");
+    assertEquals(copy, view);
+    assertEquals(view, copy);
+    assertEquals(copy.hashCode(), view.hashCode());
+    assertEquals(ImmutableSet.copyOf(copy), ImmutableSet.copyOf(view));
+  }
+
+  @Test
+  public void subtreeViewShouldReflectTheModificationsOfTheBackingTree() {
+    Tree<String> view = Trees.subtreeView(tree, "1");
+
+    tree.add("b", "d");
+    tree.move("c", "b");
+
+    assertEquals(6, view.size());
+    assertTrue(view.contains("c"));
+
+    tree.remove("1");
+
+    assertNull(view.getRoot());
+    assertEquals(0, view.size());
+    assertFalse(view.iterator().hasNext());
+  }
+
+  @Test
+  public void subtreeViewShouldUseTheIndexesOfTheBackingTree() {
+    IndexedTree<String> indexedTree = Trees.indexedTree(TreeHelper.setupTreeTestData(MultimapTree.<String>create()));
+    NestedSetTree<String> nestedSetTree = Trees.nestedSetTree(TreeHelper.setupTreeTestData(MultimapTree.<String>create()));
+
+    assertEquals(4, Trees.subtreeView(indexedTree, "1").size());
+    assertTrue(Trees.subtreeView(nestedSetTree, "1").contains("!"));
+    assertFalse(Trees.subtreeView(nestedSetTree, "1").contains("c"));
+  }
+
+  @Test
+  public void subtreeViewShouldThrowAnIAEOnANodeOutsideTheSubtree() {
+    expectedException.expect(IllegalArgumentException.class);
+    Trees.subtreeView(tree, "1").getChildren("2");
+  }
+
+  @Test
+  public void mutableSubtreeViewShouldWriteThroughToTheBackingTree() {
+    MutableTree<String> view = Trees.mutableSubtreeView(tree, "1");
+
+    assertTrue(view.add("b", "d"));
+    assertTrue(view.move("!", "d"));
+    assertTrue(view.remove("a"));
+    assertFalse(view.setRoot("1"));
+
+    assertEquals("d", tree.getParent("!"));
+    assertFalse(tree.contains("a"));
+    assertEquals(4, view.size());
+
+    view.clear();
+
+    assertFalse(tree.contains("1"));
+    assertEquals(3, tree.size());
+    assertEquals(0, view.size());
+  }
+
+  @Test
+  public void mutableSubtreeViewShouldThrowAnIAEOnAParentOutsideTheSubtree() {
+    expectedException.expect(IllegalArgumentException.class);
+    Trees.mutableSubtreeView(tree, "1").add("2", "d");
+  }
+
+  @Test
+  public void mutableSubtreeViewShouldNotChangeItsRoot() {
+    expectedException.expect(UnsupportedOperationException.class);
+    Trees.mutableSubtreeView(tree, "1").setRoot("S");
+  }
+}
@@ -1,6 +1,9 @@
 package org.dapacode.tree4j.testutils;
 
 import com.thoughtworks.xstream.XStream;
+import org.dapacode.tree4j.InstrumentedMutableTree;
+import org.dapacode.tree4j.InstrumentedTree;
+import org.dapacode.tree4j.ReadWriteLockedTree;
 
 import javax.annotation.Nullable;
 import java.io.ByteArrayInputStream;
@@ -14,11 +17,20 @@ public final class ObjectHashes {
 
   private ObjectHashes() { /* Utility Class */ }
 
+  /** Creates an XStream leaving out the fields that reading a tree may update, caches and metrics, which aren't its state. */
+  private static XStream newXStream() {
+    final XStream xStream = new XStream();
+    xStream.omitField(InstrumentedTree.class, "metrics");
+    xStream.omitField(InstrumentedMutableTree.class, "metrics");
+    xStream.omitField(ReadWriteLockedTree.class, "snapshot");
+    return xStream;
+  }
+
   public static long getCRCChecksum(final Object o) {
     InputStream in = null;
     try {
       final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-      new XStream().toXML(o, baos);
+      newXStream().toXML(o, baos);
       in = new ByteArrayInputStream(baos.toByteArray());
 
       final CRC32 crc32 = new CRC32();